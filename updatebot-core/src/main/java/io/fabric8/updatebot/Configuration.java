@@ -16,20 +16,33 @@
 package io.fabric8.updatebot;
 
 import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
+import com.squareup.okhttp.OkHttpClient;
+import io.fabric8.updatebot.git.CloneStrategy;
 import io.fabric8.updatebot.git.GitPlugin;
 import io.fabric8.updatebot.git.GitPluginCLI;
-import io.fabric8.updatebot.kind.npm.DefaultNpmDependencyTreeGenerator;
+import io.fabric8.updatebot.git.GitPluginJGit;
+import io.fabric8.updatebot.github.GitHubConnectors;
+import io.fabric8.updatebot.github.GitHubLedger;
+import io.fabric8.updatebot.github.GitHubRateLimiter;
+import io.fabric8.updatebot.github.Issues;
+import io.fabric8.updatebot.kind.npm.LockfileNpmDependencyTreeGenerator;
 import io.fabric8.updatebot.kind.npm.NpmDependencyTreeGenerator;
 import io.fabric8.updatebot.model.RepositoryConfig;
 import io.fabric8.updatebot.model.RepositoryConfigs;
+import io.fabric8.updatebot.repository.RepositoryStateIndex;
 import io.fabric8.updatebot.support.Strings;
 import io.fabric8.updatebot.support.Systems;
+import io.fabric8.updatebot.support.ToolScheduler;
+import io.fabric8.updatebot.support.Toolchains;
 import org.fusesource.jansi.Ansi;
 import org.kohsuke.github.AbuseLimitHandler;
+import org.kohsuke.github.GHMyself;
 import org.kohsuke.github.GitHub;
 import org.kohsuke.github.GitHubBuilder;
 import org.kohsuke.github.RateLimitHandler;
 import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
@@ -51,6 +64,7 @@ import static org.fusesource.jansi.Ansi.ansi;
  */
 public class Configuration {
     public static final String DEFAULT_CONFIG_FILE = ".updatebot.yml";
+    private static final transient Logger LOG = LoggerFactory.getLogger(Configuration.class);
     public static final String DEFAULT_JENKINSFILE_LIBRARY_GIT_URL = "https://github.com/fabric8io/fabric8-jenkinsfile-library.git";
     // ANSI escapes for various colors (or empty strings if no coloring is used)
     public static Ansi.Color
@@ -63,9 +77,20 @@ public class Configuration {
 
     @Parameter(names = {"--github-pr-label", "-ghl"}, description = "GitHub Pull Request Label")
     private String githubPullRequestLabel = Systems.getConfigValue(EnvironmentVariables.GITHUB_PR_LABEL, "updatebot");
+    @Parameter(names = {"--github-api-url"}, description = "The URL of the GitHub REST API such as https://github.example.com/api/v3 for GitHub Enterprise")
+    private String githubApiUrl = Systems.getConfigValue(EnvironmentVariables.GITHUB_API_URL, GitHubConnectors.DEFAULT_API_URL);
+    @Parameter(names = {"--github-cache-size"}, description = "The maximum size in MB of the on disk cache of GitHub API responses; 0 disables the cache")
+    private int githubCacheSize = Systems.getConfigIntValue(EnvironmentVariables.GITHUB_CACHE_SIZE, 50);
+    @Parameter(names = {"--github-write-reserve"}, description = "The number of GitHub API requests in each rate limit window which are reserved for writes such as creating pull requests and comments")
+    private int githubWriteReserve = Systems.getConfigIntValue(EnvironmentVariables.GITHUB_WRITE_RESERVE, GitHubRateLimiter.DEFAULT_WRITE_RESERVE);
+    @Parameter(names = {"--issue-status-history"}, description = "The number of previous conflict reports kept in the collapsed history of the issue status comment; 0 disables the history")
+    private int issueStatusHistory = Systems.getConfigIntValue(EnvironmentVariables.ISSUE_STATUS_HISTORY, Issues.DEFAULT_STATUS_HISTORY);
+    @Parameter(names = {"--github-graphql"}, description = "Whether to use the GitHub GraphQL API to load open pull requests and issues of all repositories in a few batched queries")
+    private boolean githubGraphQL = Systems.isConfigFlag(EnvironmentVariables.GITHUB_GRAPHQL);
     @Parameter(names = {"--dry"}, description = "Dry Run mode does not perform any git commits")
     private boolean dryRun = Systems.isConfigFlag(EnvironmentVariables.DRY_RUN);
     private GitHub github;
+    private String githubLogin;
     @Parameter(names = {"--config", "-c"}, description = "Location of the UpdateBot YAML configuration file")
     private String configFile = Systems.getConfigValue(EnvironmentVariables.CONFIG_FILE, DEFAULT_CONFIG_FILE);
     @Parameter(names = {"--work-dir", "-wd"}, description = "The work directory where other downstream projects are cloned")
@@ -82,6 +107,18 @@ public class Configuration {
     private String sourcePath;
     @Parameter(names = {"--https"}, description = "Whether to use HTTPS transport instead of git and SSH")
     private boolean useHttpsTransport;
+    @Parameter(names = {"--parallel"}, description = "The maximum number of repositories to process concurrently")
+    private int parallelism = Systems.getConfigIntValue(EnvironmentVariables.PARALLEL, 1);
+    @Parameter(names = {"--clone-threads"}, description = "The number of threads used to clone or pull repositories")
+    private int cloneThreads = Systems.getConfigIntValue(EnvironmentVariables.CLONE_THREADS, 1);
+    @Parameter(names = {"--clone-connections-per-host"}, description = "The maximum number of concurrent clones or pulls from each git host")
+    private int cloneConnectionsPerHost = Systems.getConfigIntValue(EnvironmentVariables.CLONE_CONNECTIONS_PER_HOST, 4);
+    @Parameter(names = {"--clone-strategy"}, description = "How to clone downstream repositories: full, shallow, partial or sparse")
+    private String cloneStrategy = Systems.getConfigValue(EnvironmentVariables.CLONE_STRATEGY, CloneStrategy.FULL.getName());
+    @Parameter(names = {"--jgit"}, description = "Whether to use an embedded JGit repository rather than forking the git command line")
+    private boolean useJGit = Systems.isConfigFlag(EnvironmentVariables.JGIT);
+    @Parameter(names = {"--skip-unchanged"}, description = "Whether to skip repositories whose HEAD and version changes are the same as the last successful run")
+    private boolean skipUnchanged = Systems.isConfigFlag(EnvironmentVariables.SKIP_UNCHANGED);
     @Parameter(names = {"--disable-ansi"}, description = "Whether to disable the use of ANSI colours in the output")
     private boolean disableAnsi;
 
@@ -89,22 +126,38 @@ public class Configuration {
     private String mvnCommand = Systems.getConfigValue(EnvironmentVariables.MVN_COMMAND, "mvn");
     @Parameter(names = {"--npm"}, description = "The location of the `npm` executable for invoking nodejs tooling")
     private String npmCommand = Systems.getConfigValue(EnvironmentVariables.NPM_COMMAND, "npm");
+    @Parameter(names = {"--tool-memory"}, description = "The total memory in MB available to concurrent `mvn` and `npm` processes; 0 uses most of the physical memory")
+    private int toolMemory = Systems.getConfigIntValue(EnvironmentVariables.TOOL_MEMORY, 0);
+    @Parameter(names = {"--mvn-concurrency"}, description = "The maximum number of `mvn` processes to run at once; 0 for no limit other than memory")
+    private int mvnConcurrency = Systems.getConfigIntValue(EnvironmentVariables.MVN_CONCURRENCY, 0);
+    @Parameter(names = {"--mvn-memory"}, description = "The estimated memory in MB used by each `mvn` process; 0 uses the -Xmx in $MAVEN_OPTS")
+    private int mvnMemory = Systems.getConfigIntValue(EnvironmentVariables.MVN_MEMORY, 0);
+    @Parameter(names = {"--npm-concurrency"}, description = "The maximum number of `npm` processes to run at once; 0 for no limit other than memory")
+    private int npmConcurrency = Systems.getConfigIntValue(EnvironmentVariables.NPM_CONCURRENCY, 0);
+    @Parameter(names = {"--npm-memory"}, description = "The estimated memory in MB used by each `npm` process; 0 uses the --max-old-space-size in $NODE_OPTIONS")
+    private int npmMemory = Systems.getConfigIntValue(EnvironmentVariables.NPM_MEMORY, 0);
     @Parameter(names = {"--jenkinsfile-git-repo"}, description = "The git URL to clone for the Jenkinsfile library")
     private String jenksinsfileGitRepo = Systems.getConfigValue(EnvironmentVariables.JENKINSFILE_GIT_REPO, DEFAULT_JENKINSFILE_LIBRARY_GIT_URL);
 
     private File sourceDir;
     private boolean rebaseMode = true;
-    private NpmDependencyTreeGenerator npmDependencyTreeGenerator = new DefaultNpmDependencyTreeGenerator();
+    private NpmDependencyTreeGenerator npmDependencyTreeGenerator = new LockfileNpmDependencyTreeGenerator();
     private boolean pullDisabled;
     private Map<String, String> pollStatusCache = new TreeMap<>();
     private PrintStream printStream;
-    private GitPlugin git = new GitPluginCLI(this);
+    private GitPlugin git;
+    private RepositoryStateIndex repositoryStateIndex;
+    private GitHubLedger gitHubLedger;
+    private GitHubRateLimiter githubRateLimiter;
+    private OkHttpClient githubHttpClient;
+    private ToolScheduler toolScheduler;
+    private final Toolchains toolchains = new Toolchains();
     private Map<String, String> mvnEnvironmentVariables;
     private Map<String, String> npmEnvironmentVariables;
     private boolean ansiInitialised;
     private boolean useAnsi;
 
-    public GitHub getGithub() throws IOException {
+    public synchronized GitHub getGithub() throws IOException {
         if (github == null) {
             GitHubBuilder ghb = new GitHubBuilder();
             String username = getGithubUsername();
@@ -121,11 +174,78 @@ public class Configuration {
             }
             ghb.withRateLimitHandler(RateLimitHandler.WAIT).
                     withAbuseLimitHandler(AbuseLimitHandler.WAIT);
+            if (Strings.notEmpty(githubApiUrl)) {
+                ghb.withEndpoint(githubApiUrl);
+            }
+            ghb.withConnector(GitHubConnectors.createConnector(getGithubHttpClient()));
             this.github = ghb.build();
         }
         return this.github;
     }
 
+    /**
+     * Returns the login of the GitHub user we are authenticated as; which is looked up once as only a token may
+     * be configured
+     */
+    public synchronized String getGithubLogin() throws IOException {
+        if (githubLogin == null) {
+            GHMyself myself = getGithub().getMyself();
+            githubLogin = myself != null ? myself.getLogin() : getGithubUsername();
+        }
+        return githubLogin;
+    }
+
+    /**
+     * Returns the HTTP client shared by all GitHub requests so they use the same response cache and rate limiter
+     */
+    public synchronized OkHttpClient getGithubHttpClient() {
+        if (githubHttpClient == null) {
+            File cacheDir = null;
+            if (githubCacheSize > 0) {
+                cacheDir = new File(getWorkDirectory(), GitHubConnectors.CACHE_DIR);
+            }
+            githubHttpClient = GitHubConnectors.createClient(cacheDir, githubCacheSize * 1024L * 1024L, getGithubRateLimiter());
+        }
+        return githubHttpClient;
+    }
+
+    /**
+     * Returns the scheduler of GitHub requests which also tracks the remaining rate limit budget
+     */
+    public synchronized GitHubRateLimiter getGithubRateLimiter() {
+        if (githubRateLimiter == null) {
+            githubRateLimiter = new GitHubRateLimiter(githubWriteReserve);
+        }
+        return githubRateLimiter;
+    }
+
+    /**
+     * Returns the scheduler which limits how many heavyweight tool processes such as <code>mvn</code> and
+     * <code>npm</code> run at once
+     */
+    public synchronized ToolScheduler getToolScheduler() {
+        if (toolScheduler == null) {
+            toolScheduler = new ToolScheduler(toolMemory);
+            long mvnMemoryMb = mvnMemory > 0 ? mvnMemory : ToolScheduler.jvmMemoryMb(getToolEnvironmentVariable(mvnEnvironmentVariables, "MAVEN_OPTS"), ToolScheduler.DEFAULT_MAVEN_MEMORY_MB);
+            long npmMemoryMb = npmMemory > 0 ? npmMemory : ToolScheduler.nodeMemoryMb(getToolEnvironmentVariable(npmEnvironmentVariables, "NODE_OPTIONS"), ToolScheduler.DEFAULT_NPM_MEMORY_MB);
+            toolScheduler.configureTool(ToolScheduler.MAVEN, mvnConcurrency, mvnMemoryMb);
+            toolScheduler.configureTool(ToolScheduler.NPM, npmConcurrency, npmMemoryMb);
+        }
+        return toolScheduler;
+    }
+
+    private static String getToolEnvironmentVariable(Map<String, String> environmentVariables, String name) {
+        String answer = environmentVariables != null ? environmentVariables.get(name) : null;
+        return answer != null ? answer : System.getenv(name);
+    }
+
+    /**
+     * Returns the registry of probed command line tools such as <code>mvn</code> and <code>npm</code>
+     */
+    public Toolchains getToolchains() {
+        return toolchains;
+    }
+
     public String getConfigFile() {
         return configFile;
     }
@@ -142,6 +262,20 @@ public class Configuration {
         this.workDir = workDir;
     }
 
+    /**
+     * Returns the work directory; resolving a relative work directory against the source directory if it exists
+     */
+    public File getWorkDirectory() {
+        File answer = new File(workDir);
+        if (!answer.isAbsolute()) {
+            File sourceDir = getSourceDir();
+            if (io.fabric8.utils.Files.isDirectory(sourceDir)) {
+                answer = new File(sourceDir, workDir);
+            }
+        }
+        return answer;
+    }
+
     public String getGithubUsername() {
         return githubUsername;
     }
@@ -174,6 +308,46 @@ public class Configuration {
         this.githubPullRequestLabel = githubPullRequestLabel;
     }
 
+    public String getGithubApiUrl() {
+        return githubApiUrl;
+    }
+
+    public void setGithubApiUrl(String githubApiUrl) {
+        this.githubApiUrl = githubApiUrl;
+    }
+
+    public int getGithubCacheSize() {
+        return githubCacheSize;
+    }
+
+    public void setGithubCacheSize(int githubCacheSize) {
+        this.githubCacheSize = githubCacheSize;
+    }
+
+    public int getGithubWriteReserve() {
+        return githubWriteReserve;
+    }
+
+    public void setGithubWriteReserve(int githubWriteReserve) {
+        this.githubWriteReserve = githubWriteReserve;
+    }
+
+    public int getIssueStatusHistory() {
+        return issueStatusHistory;
+    }
+
+    public void setIssueStatusHistory(int issueStatusHistory) {
+        this.issueStatusHistory = issueStatusHistory;
+    }
+
+    public boolean isGithubGraphQL() {
+        return githubGraphQL;
+    }
+
+    public void setGithubGraphQL(boolean githubGraphQL) {
+        this.githubGraphQL = githubGraphQL;
+    }
+
     public boolean isDryRun() {
         return dryRun;
     }
@@ -243,6 +417,97 @@ public class Configuration {
         this.disableAnsi = disableAnsi;
     }
 
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the maximum number of repositories which are processed concurrently; a value of 1 or less processes
+     * each repository in turn
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getCloneThreads() {
+        return cloneThreads;
+    }
+
+    public void setCloneThreads(int cloneThreads) {
+        this.cloneThreads = cloneThreads;
+    }
+
+    public int getCloneConnectionsPerHost() {
+        return cloneConnectionsPerHost;
+    }
+
+    public void setCloneConnectionsPerHost(int cloneConnectionsPerHost) {
+        this.cloneConnectionsPerHost = cloneConnectionsPerHost;
+    }
+
+    public boolean isUseJGit() {
+        return useJGit;
+    }
+
+    public void setUseJGit(boolean useJGit) {
+        this.useJGit = useJGit;
+    }
+
+    public boolean isSkipUnchanged() {
+        return skipUnchanged;
+    }
+
+    public void setSkipUnchanged(boolean skipUnchanged) {
+        this.skipUnchanged = skipUnchanged;
+    }
+
+    /**
+     * Returns the index of the state of each repository from previous runs
+     */
+    public synchronized RepositoryStateIndex getRepositoryStateIndex() {
+        if (repositoryStateIndex == null) {
+            repositoryStateIndex = RepositoryStateIndex.load(getWorkDirectory());
+        }
+        return repositoryStateIndex;
+    }
+
+    /**
+     * Returns the ledger of the issues and pull requests created by updatebot from previous runs
+     */
+    public synchronized GitHubLedger getGitHubLedger() {
+        if (gitHubLedger == null) {
+            gitHubLedger = GitHubLedger.load(getWorkDirectory());
+        }
+        return gitHubLedger;
+    }
+
+    /**
+     * Saves any changes to the GitHub ledger if it has been loaded
+     */
+    public void flushGitHubLedger() {
+        GitHubLedger ledger;
+        synchronized (this) {
+            ledger = gitHubLedger;
+        }
+        if (ledger != null) {
+            ledger.flush();
+        }
+    }
+
+    public CloneStrategy getCloneStrategy() {
+        CloneStrategy answer = CloneStrategy.fromName(cloneStrategy);
+        if (answer == null) {
+            warn(LOG, "Unknown clone strategy " + cloneStrategy + " so using " + CloneStrategy.FULL);
+            answer = CloneStrategy.FULL;
+            cloneStrategy = answer.getName();
+        }
+        return answer;
+    }
+
+    public void setCloneStrategy(CloneStrategy cloneStrategy) {
+        this.cloneStrategy = cloneStrategy.getName();
+    }
+
     public File getSourceDir() {
         if (sourceDir == null) {
             if (sourcePath == null) {
@@ -284,11 +549,18 @@ public class Configuration {
         this.printStream = printStream;
     }
 
-    public GitPlugin getGit() {
+    public synchronized GitPlugin getGit() {
+        if (git == null) {
+            if (useJGit && getCloneStrategy() != CloneStrategy.FULL) {
+                throw new ParameterException("The --jgit option can only be used with the " + CloneStrategy.FULL.getName() +
+                        " clone strategy but was " + cloneStrategy);
+            }
+            git = useJGit ? new GitPluginJGit(this) : new GitPluginCLI(this);
+        }
         return git;
     }
 
-    public void setGit(GitPlugin git) {
+    public synchronized void setGit(GitPlugin git) {
         this.git = git;
     }
 
@@ -308,6 +580,46 @@ public class Configuration {
         this.npmCommand = npmCommand;
     }
 
+    public int getToolMemory() {
+        return toolMemory;
+    }
+
+    public void setToolMemory(int toolMemory) {
+        this.toolMemory = toolMemory;
+    }
+
+    public int getMvnConcurrency() {
+        return mvnConcurrency;
+    }
+
+    public void setMvnConcurrency(int mvnConcurrency) {
+        this.mvnConcurrency = mvnConcurrency;
+    }
+
+    public int getMvnMemory() {
+        return mvnMemory;
+    }
+
+    public void setMvnMemory(int mvnMemory) {
+        this.mvnMemory = mvnMemory;
+    }
+
+    public int getNpmConcurrency() {
+        return npmConcurrency;
+    }
+
+    public void setNpmConcurrency(int npmConcurrency) {
+        this.npmConcurrency = npmConcurrency;
+    }
+
+    public int getNpmMemory() {
+        return npmMemory;
+    }
+
+    public void setNpmMemory(int npmMemory) {
+        this.npmMemory = npmMemory;
+    }
+
 
     public Map<String, String> getMvnEnvironmentVariables() {
         return mvnEnvironmentVariables;
@@ -25,11 +25,28 @@ public class EnvironmentVariables {
     public static final String GITHUB_PASSWORD = "UPDATEBOT_GITHUB_PASSWORD";
     public static final String GITHUB_TOKEN = "UPDATEBOT_GITHUB_TOKEN";
     public static final String GITHUB_PR_LABEL = "UPDATEBOT_GITHUB_PR_LABEL";
+    public static final String GITHUB_API_URL = "UPDATEBOT_GITHUB_API_URL";
+    public static final String GITHUB_CACHE_SIZE = "UPDATEBOT_GITHUB_CACHE_SIZE";
+    public static final String GITHUB_GRAPHQL = "UPDATEBOT_GITHUB_GRAPHQL";
+    public static final String GITHUB_WRITE_RESERVE = "UPDATEBOT_GITHUB_WRITE_RESERVE";
+    public static final String ISSUE_STATUS_HISTORY = "UPDATEBOT_ISSUE_STATUS_HISTORY";
 
     public static final String DRY_RUN = "UPDATEBOT_DRY_RUN";
+    public static final String PARALLEL = "UPDATEBOT_PARALLEL";
+    public static final String CLONE_THREADS = "UPDATEBOT_CLONE_THREADS";
+    public static final String CLONE_CONNECTIONS_PER_HOST = "UPDATEBOT_CLONE_CONNECTIONS_PER_HOST";
+    public static final String CLONE_STRATEGY = "UPDATEBOT_CLONE_STRATEGY";
+    public static final String JGIT = "UPDATEBOT_JGIT";
+    public static final String PROCESS_TIMEOUT = "UPDATEBOT_PROCESS_TIMEOUT";
+    public static final String SKIP_UNCHANGED = "UPDATEBOT_SKIP_UNCHANGED";
 
     public static final String MVN_COMMAND = "UPDATEBOT_MVN_COMMAND";
     public static final String NPM_COMMAND = "UPDATEBOT_NPM_COMMAND";
+    public static final String TOOL_MEMORY = "UPDATEBOT_TOOL_MEMORY";
+    public static final String MVN_CONCURRENCY = "UPDATEBOT_MVN_CONCURRENCY";
+    public static final String MVN_MEMORY = "UPDATEBOT_MVN_MEMORY";
+    public static final String NPM_CONCURRENCY = "UPDATEBOT_NPM_CONCURRENCY";
+    public static final String NPM_MEMORY = "UPDATEBOT_NPM_MEMORY";
 
     public static final String JENKINSFILE_GIT_REPO = "UPDATEBOT_JENKINSFILE_GIT_REPO";
 }
@@ -25,6 +25,8 @@ import io.fabric8.updatebot.commands.PushSourceChanges;
 import io.fabric8.updatebot.commands.PushVersionChanges;
 import io.fabric8.updatebot.commands.StatusInfo;
 import io.fabric8.updatebot.commands.UpdatePullRequests;
+import io.fabric8.updatebot.github.GitHubRateLimiter;
+import io.fabric8.updatebot.support.ToolScheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -133,7 +135,19 @@ public class UpdateBot {
     public CommandSupport run(String[] args) throws IOException {
         CommandSupport command = parseCommand(args, configuration, true);
         this.command = command;
-        command.run(configuration);
+        try {
+            command.run(configuration);
+        } finally {
+            configuration.flushGitHubLedger();
+            GitHubRateLimiter rateLimiter = configuration.getGithubRateLimiter();
+            if (rateLimiter.hasQuotas()) {
+                getLOG().info(rateLimiter.toString());
+            }
+            ToolScheduler toolScheduler = configuration.getToolScheduler();
+            if (toolScheduler.hasRuns()) {
+                getLOG().info(toolScheduler.toString());
+            }
+        }
         return command;
     }
 
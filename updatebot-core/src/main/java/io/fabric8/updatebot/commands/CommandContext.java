@@ -18,9 +18,13 @@ package io.fabric8.updatebot.commands;
 import io.fabric8.updatebot.Configuration;
 import io.fabric8.updatebot.git.GitPlugin;
 import io.fabric8.updatebot.github.GitHubHelpers;
+import io.fabric8.updatebot.github.IssueSummary;
+import io.fabric8.updatebot.github.PullRequestSummary;
 import io.fabric8.updatebot.kind.Kind;
 import io.fabric8.updatebot.model.DependencyVersionChange;
 import io.fabric8.updatebot.repository.LocalRepository;
+import io.fabric8.updatebot.repository.ManifestIndex;
+import io.fabric8.updatebot.support.DocumentCache;
 import io.fabric8.updatebot.support.Markdown;
 import org.kohsuke.github.GHIssue;
 import org.kohsuke.github.GHPullRequest;
@@ -29,6 +33,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
@@ -46,7 +51,11 @@ public class CommandContext {
     private List<CommandContext> children = new ArrayList<>();
     private GHIssue issue;
     private GHPullRequest pullRequest;
+    private IssueSummary issueSummary;
+    private PullRequestSummary pullRequestSummary;
     private Status status = Status.PENDING;
+    private ManifestIndex manifestIndex;
+    private DocumentCache documentCache;
 
     public CommandContext(LocalRepository repository, Configuration configuration) {
         this.repository = repository;
@@ -94,6 +103,28 @@ public class CommandContext {
         this.pullRequest = pullRequest;
     }
 
+    /**
+     * Returns the summary of the open issue loaded via the GitHub GraphQL API if the issue was not loaded
+     */
+    public IssueSummary getIssueSummary() {
+        return issueSummary;
+    }
+
+    public void setIssueSummary(IssueSummary issueSummary) {
+        this.issueSummary = issueSummary;
+    }
+
+    /**
+     * Returns the summary of the open pull request loaded via the GitHub GraphQL API if the pull request was not loaded
+     */
+    public PullRequestSummary getPullRequestSummary() {
+        return pullRequestSummary;
+    }
+
+    public void setPullRequestSummary(PullRequestSummary pullRequestSummary) {
+        this.pullRequestSummary = pullRequestSummary;
+    }
+
     public String getRepositoryFullName() {
         return repository.getRepo().getFullName();
     }
@@ -140,8 +171,76 @@ public class CommandContext {
         return new File(repository.getDir(), relativePath);
     }
 
+    /**
+     * Returns the index of the files in the repository which is shared by this context and all of its children,
+     * creating it on first use
+     */
+    public ManifestIndex getManifestIndex() {
+        if (parentContext != null) {
+            return parentContext.getManifestIndex();
+        }
+        synchronized (this) {
+            if (manifestIndex == null) {
+                manifestIndex = ManifestIndex.create(getDir());
+            }
+            return manifestIndex;
+        }
+    }
+
+    /**
+     * Returns the cache of parsed documents in the repository which is shared by this context and all of its children
+     */
+    public DocumentCache getDocumentCache() {
+        if (parentContext != null) {
+            return parentContext.getDocumentCache();
+        }
+        synchronized (this) {
+            if (documentCache == null) {
+                documentCache = new DocumentCache();
+            }
+            return documentCache;
+        }
+    }
+
+    /**
+     * Discards the index of the files and any cached documents in the repository so they are recreated
+     * after the working tree changes
+     */
+    public void invalidateCaches() {
+        if (parentContext != null) {
+            parentContext.invalidateCaches();
+            return;
+        }
+        synchronized (this) {
+            manifestIndex = null;
+            if (documentCache != null) {
+                documentCache.clear();
+            }
+        }
+    }
+
+    /**
+     * Records that the file has been modified so that it is committed; the file is also recorded on the parent
+     * contexts so that the repository context knows all the files to commit
+     */
     public void updatedFile(File file) {
         updatedFiles.add(file);
+        if (parentContext != null) {
+            parentContext.updatedFile(file);
+        }
+    }
+
+    /**
+     * Writes all the modified documents in the {@link #getDocumentCache()} recording the files which were written
+     *
+     * @return the files which were written
+     */
+    public List<File> flushDocuments() throws IOException {
+        List<File> files = getDocumentCache().flush();
+        for (File file : files) {
+            updatedFile(file);
+        }
+        return files;
     }
 
     public GitPlugin getGit() {
@@ -209,7 +308,7 @@ public class CommandContext {
     }
 
     public StatusInfo createStatusInfo() {
-        return new StatusInfo(getRepository(), status, issue, pullRequest);
+        return StatusInfo.create(getRepository(), status, issue, issueSummary, pullRequest, pullRequestSummary);
     }
 
     public void info(Logger log, String message) {
@@ -22,14 +22,28 @@ import io.fabric8.updatebot.github.Issues;
 import io.fabric8.updatebot.model.RepositoryConfig;
 import io.fabric8.updatebot.repository.LocalRepository;
 import io.fabric8.updatebot.repository.Repositories;
+import io.fabric8.updatebot.support.NamedThreadFactory;
 import io.fabric8.utils.Strings;
 import org.kohsuke.github.GHIssue;
 import org.kohsuke.github.GHRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static io.fabric8.updatebot.github.PullRequests.COMMAND_COMMENT_INDENT;
 import static io.fabric8.updatebot.github.PullRequests.COMMAND_COMMENT_PREFIX;
@@ -40,7 +54,10 @@ import static io.fabric8.updatebot.support.ReflectionHelper.getFieldValue;
 /**
  */
 public abstract class CommandSupport {
+    private static final transient Logger LOG = LoggerFactory.getLogger(CommandSupport.class);
+
     private List<LocalRepository> localRepositories;
+    private Map<LocalRepository, CompletableFuture<LocalRepository>> repositoryFutures;
     private RepositoryConfig repositoryConfig;
 
     public String createPullRequestComment() {
@@ -107,15 +124,79 @@ public abstract class CommandSupport {
         validateConfiguration(configuration);
 
         ParentContext parentContext = new ParentContext();
-        List<LocalRepository> repositories = cloneOrPullRepositories(configuration);
+        Set<LocalRepository> repositories = cloneOrPullRepositoriesAsync(configuration).keySet();
         for (LocalRepository repository : repositories) {
             CommandContext context = createCommandContext(repository, configuration);
             parentContext.addChild(context);
-            run(context);
         }
+        runContexts(configuration, parentContext.getChildren());
         return parentContext;
     }
 
+    /**
+     * Runs this command on each of the repository contexts.
+     * <p>
+     * If the configuration allows it the repositories are processed concurrently using a bounded pool of threads.
+     * Each repository has its own {@link CommandContext} and the contexts stay in the order of the repositories.
+     * Each context is processed as soon as its repository has been cloned or pulled.
+     * If a repository fails then no more repositories are started and the first failure is thrown.
+     */
+    protected void runContexts(Configuration configuration, List<CommandContext> contexts) throws IOException {
+        int parallelism = Math.min(configuration.getParallelism(), contexts.size());
+        if (parallelism <= 1) {
+            for (CommandContext context : contexts) {
+                awaitRepository(context.getRepository());
+                runContext(context);
+            }
+            return;
+        }
+        LOG.debug("Processing " + contexts.size() + " repositories using " + parallelism + " threads");
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new NamedThreadFactory("updatebot-repository"));
+        try {
+            CompletionService<CommandContext> completionService = new ExecutorCompletionService<>(executor);
+            List<Future<CommandContext>> futures = new ArrayList<>();
+            for (CommandContext context : contexts) {
+                futures.add(completionService.submit(() -> {
+                    awaitRepository(context.getRepository());
+                    runContext(context);
+                    return context;
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    completionService.take().get();
+                } catch (ExecutionException e) {
+                    for (Future<CommandContext> future : futures) {
+                        future.cancel(false);
+                    }
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    } else if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new IOException("Failed to process repository: " + cause, cause);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while processing repositories", e);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Runs this command on a repository context then saves the changes it made to the GitHub ledger
+     */
+    protected void runContext(CommandContext context) throws IOException {
+        try {
+            run(context);
+        } finally {
+            context.getConfiguration().flushGitHubLedger();
+        }
+    }
+
     protected void validateConfiguration(Configuration configuration) throws IOException {
     }
 
@@ -131,12 +212,46 @@ public abstract class CommandSupport {
 
     public List<LocalRepository> getLocalRepositories(Configuration configuration) throws IOException {
         if (localRepositories == null) {
-            RepositoryConfig repositoryConfig = getRepositoryConfig(configuration);
-            this.localRepositories = Repositories.cloneOrPullRepositories(configuration, repositoryConfig);
+            Map<LocalRepository, CompletableFuture<LocalRepository>> repositories = cloneOrPullRepositoriesAsync(configuration);
+            for (CompletableFuture<LocalRepository> future : repositories.values()) {
+                Repositories.waitForRepository(future);
+            }
+            this.localRepositories = new ArrayList<>(repositories.keySet());
         }
         return localRepositories;
     }
 
+    /**
+     * Returns the repositories in order along with a future which completes when each repository has been cloned or pulled
+     */
+    protected Map<LocalRepository, CompletableFuture<LocalRepository>> cloneOrPullRepositoriesAsync(Configuration configuration) throws IOException {
+        if (repositoryFutures == null) {
+            if (localRepositories != null) {
+                repositoryFutures = new LinkedHashMap<>();
+                for (LocalRepository repository : localRepositories) {
+                    repositoryFutures.put(repository, CompletableFuture.completedFuture(repository));
+                }
+            } else {
+                RepositoryConfig repositoryConfig = getRepositoryConfig(configuration);
+                repositoryFutures = Repositories.cloneOrPullRepositoriesAsync(configuration, repositoryConfig);
+            }
+        }
+        return repositoryFutures;
+    }
+
+    /**
+     * Waits for the given repository to be cloned or pulled if it is still being processed in the background
+     */
+    protected void awaitRepository(LocalRepository repository) throws IOException {
+        Map<LocalRepository, CompletableFuture<LocalRepository>> futures = this.repositoryFutures;
+        if (futures != null) {
+            CompletableFuture<LocalRepository> future = futures.get(repository);
+            if (future != null) {
+                Repositories.waitForRepository(future);
+            }
+        }
+    }
+
     public RepositoryConfig getRepositoryConfig(Configuration configuration) throws IOException {
         if (repositoryConfig == null) {
             repositoryConfig = configuration.loadRepositoryConfig();
@@ -151,8 +266,7 @@ public abstract class CommandSupport {
     protected GHIssue getOrFindIssue(CommandContext context, GHRepository ghRepository) throws IOException {
         GHIssue issue = context.getIssue();
         if (issue == null) {
-            List<GHIssue> issues = Issues.getOpenIssues(ghRepository, context.getConfiguration());
-            issue = Issues.findIssue(context, issues);
+            issue = Issues.findOpenIssue(context, ghRepository);
             context.setIssue(issue);
         }
         return issue;
@@ -160,6 +274,7 @@ public abstract class CommandSupport {
 
     protected void setLocalRepositories(List<LocalRepository> localRepositories) {
         this.localRepositories = localRepositories;
+        this.repositoryFutures = null;
     }
 
     protected void setRepositoryConfig(RepositoryConfig repositoryConfig) {
@@ -16,9 +16,11 @@
 package io.fabric8.updatebot.commands;
 
 import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
 import com.beust.jcommander.Parameters;
 import io.fabric8.updatebot.CommandNames;
 import io.fabric8.updatebot.Configuration;
+import io.fabric8.updatebot.git.CloneStrategy;
 import io.fabric8.updatebot.github.GitHubHelpers;
 import io.fabric8.updatebot.kind.Kind;
 import io.fabric8.updatebot.kind.maven.ElementProcessors;
@@ -101,6 +103,19 @@ public class EnableFabric8 extends ModifyFilesCommandSupport {
         return new EnableFabric8Context(repository, configuration, null);
     }
 
+    /**
+     * A sparse clone only checks out the manifest files whereas we need all the source files to pick a pipeline,
+     * the pipeline library and to add a new Jenkinsfile which git would refuse to add outside of the sparse checkout
+     */
+    @Override
+    protected void validateConfiguration(Configuration configuration) throws IOException {
+        super.validateConfiguration(configuration);
+        CloneStrategy strategy = configuration.getCloneStrategy();
+        if (strategy.isSparseCheckout()) {
+            throw new ParameterException("The " + CommandNames.ENABLE_F8 + " command cannot be used with the " + strategy.getName() + " clone strategy");
+        }
+    }
+
     @Override
     public ParentContext run(Configuration configuration) throws IOException {
         validateConfiguration(configuration);
@@ -220,8 +235,9 @@ public class EnableFabric8 extends ModifyFilesCommandSupport {
 
         String relativePath = Files.getRelativePath(jenkinsLibraryDir, jenkinsfile);
         configuration.info(LOG, "Adding Jenkinsfile " + Strings.trimAllPrefix(relativePath, "/"));
-        File dir = context.getDir();
-        Files.copy(jenkinsfile, new File(dir, "Jenkinsfile"));
+        File newJenkinsfile = new File(context.getDir(), "Jenkinsfile");
+        Files.copy(jenkinsfile, newJenkinsfile);
+        context.updatedFile(newJenkinsfile);
         return true;
     }
 
@@ -17,6 +17,7 @@ package io.fabric8.updatebot.commands;
 
 import io.fabric8.updatebot.Configuration;
 import io.fabric8.updatebot.github.GitHubHelpers;
+import io.fabric8.updatebot.github.GitHubLedger;
 import io.fabric8.updatebot.github.Issues;
 import io.fabric8.updatebot.github.PullRequests;
 import io.fabric8.updatebot.kind.DependenciesCheck;
@@ -24,10 +25,12 @@ import io.fabric8.updatebot.kind.Kind;
 import io.fabric8.updatebot.kind.KindDependenciesCheck;
 import io.fabric8.updatebot.kind.Updater;
 import io.fabric8.updatebot.model.DependencyVersionChange;
+import io.fabric8.updatebot.repository.RepositoryState;
+import io.fabric8.updatebot.repository.RepositoryStateIndex;
 import io.fabric8.utils.Objects;
 import org.kohsuke.github.GHCommitPointer;
 import org.kohsuke.github.GHIssue;
-import org.kohsuke.github.GHIssueComment;
+import org.kohsuke.github.GHIssueState;
 import org.kohsuke.github.GHPullRequest;
 import org.kohsuke.github.GHRepository;
 import org.slf4j.Logger;
@@ -41,6 +44,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+import static io.fabric8.updatebot.github.GitHubHelpers.retryGithub;
+
 /**
  * Base class for all UpdateBot commands
  */
@@ -51,8 +56,24 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
     @Override
     public void run(CommandContext context) throws IOException {
         prepareDirectory(context);
-        if (doProcess(context) && !context.getConfiguration().isDryRun()) {
-            gitCommitAndPullRequest(context);
+        RepositoryState state = createRepositoryState(context);
+        RepositoryStateIndex stateIndex = context.getConfiguration().getRepositoryStateIndex();
+        RepositoryState previousState = stateIndex.getState(context.getCloneUrl());
+        if (state != null && state.equals(previousState) && !isPullRequestClosed(context, previousState)) {
+            context.info(LOG, "Skipping " + context.getRepositoryFullName() + " as nothing has changed since the last run");
+            return;
+        }
+        boolean dryRun = context.getConfiguration().isDryRun();
+        boolean completed = true;
+        if (doProcess(context) && !dryRun) {
+            completed = gitCommitAndPullRequest(context);
+        }
+        if (state != null && completed && !dryRun) {
+            GHPullRequest pullRequest = context.getPullRequest();
+            if (pullRequest != null) {
+                state.setPullRequest(pullRequest.getNumber());
+            }
+            stateIndex.putState(context.getCloneUrl(), state);
         }
     }
 
@@ -69,25 +90,84 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
         File dir = context.getRepository().getDir();
         dir.getParentFile().mkdirs();
         context.getGit().stashAndCheckoutMaster(dir);
+        context.invalidateCaches();
     }
 
     protected boolean doProcess(CommandContext context) throws IOException {
         return false;
     }
 
-    protected void gitCommitAndPullRequest(CommandContext context) throws IOException {
+    /**
+     * Returns the version changes this command will apply to the given repository or null if they
+     * are not known before processing
+     */
+    protected List<DependencyVersionChange> getVersionChanges(CommandContext context) throws IOException {
+        return null;
+    }
+
+    /**
+     * Returns the current state of the inputs for the repository if we are skipping unchanged repositories
+     */
+    protected RepositoryState createRepositoryState(CommandContext context) throws IOException {
+        if (!context.getConfiguration().isSkipUnchanged()) {
+            return null;
+        }
+        String headSha = context.getGit().getHeadSha(context.getDir());
+        if (headSha == null) {
+            return null;
+        }
+        List<DependencyVersionChange> changes = getVersionChanges(context);
+        if (changes == null) {
+            return null;
+        }
+        return new RepositoryState(headSha, context.getManifestIndex(), changes);
+    }
+
+    /**
+     * Returns true if the pull request raised when the state was recorded has since been closed, so that the
+     * repository is processed again even though nothing else has changed
+     */
+    protected boolean isPullRequestClosed(CommandContext context, RepositoryState state) {
+        Integer number = state != null ? state.getPullRequest() : null;
+        if (number == null) {
+            return false;
+        }
+        GHRepository ghRepository = context.gitHubRepository();
+        if (ghRepository == null) {
+            return false;
+        }
+        try {
+            GHPullRequest pullRequest = retryGithub(() -> ghRepository.getPullRequest(number));
+            return pullRequest == null || pullRequest.getState() != GHIssueState.OPEN;
+        } catch (IOException e) {
+            LOG.debug("Failed to find pull request " + number + " of " + context.getRepositoryFullName() + ": " + e, e);
+            return true;
+        }
+    }
+
+    /**
+     * Commits the changes and creates or updates the pull request
+     *
+     * @return true if the changes were committed and pushed to a pull request
+     */
+    protected boolean gitCommitAndPullRequest(CommandContext context) throws IOException {
         GHRepository ghRepository = context.gitHubRepository();
         if (ghRepository != null) {
             List<GHPullRequest> pullRequests = PullRequests.getOpenPullRequests(ghRepository, context.getConfiguration());
             GHPullRequest pullRequest = findPullRequest(context, pullRequests);
-            processPullRequest(context, ghRepository, pullRequest);
+            return processPullRequest(context, ghRepository, pullRequest);
         } else {
             // TODO what to do with vanilla git repos?
+            return false;
         }
-
     }
 
-    protected void processPullRequest(CommandContext context, GHRepository ghRepository, GHPullRequest pullRequest) throws IOException {
+    /**
+     * Commits the changes to a branch and pushes it to a new or the existing pull request
+     *
+     * @return true if the changes were committed and pushed
+     */
+    protected boolean processPullRequest(CommandContext context, GHRepository ghRepository, GHPullRequest pullRequest) throws IOException {
         Configuration configuration = context.getConfiguration();
         String title = context.createPullRequestTitle();
         File dir = context.getDir();
@@ -102,7 +182,10 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
 
         if (pullRequest == null) {
             String localBranch = "updatebot-" + UUID.randomUUID().toString();
-            doCommit(context, dir, localBranch);
+            if (!doCommit(context, dir, localBranch)) {
+                context.warn(LOG, "Failed to commit changes to branch " + localBranch + " for " + context.getCloneUrl());
+                return false;
+            }
 
             String body = context.createPullRequestBody();
             //String head = getGithubUsername() + ":" + localBranch;
@@ -110,15 +193,17 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
 
             if (!context.getGit().push(dir, localBranch)) {
                 context.warn(LOG, "Failed to push branch " + localBranch + " for " + context.getCloneUrl());
-                return;
+                return false;
             }
             pullRequest = ghRepository.createPullRequest(title, head, "master", body);
             context.setPullRequest(pullRequest);
+            configuration.getGitHubLedger().recordPullRequest(ghRepository, pullRequest, localBranch);
             context.info(LOG, configuration.colored(Configuration.COLOR_PENDING, "Created pull request " + pullRequest.getHtmlUrl()));
 
             pullRequest.comment(commandComment);
             addIssueClosedCommentIfRequired(context, pullRequest, true);
             pullRequest.setLabels(configuration.getGithubPullRequestLabel());
+            return true;
         } else {
             context.setPullRequest(pullRequest);
 
@@ -128,7 +213,7 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
                 // lets check if we need to rebase
                 if (configuration.isRebaseMode()) {
                     if (GitHubHelpers.isMergeable(pullRequest)) {
-                        return;
+                        return true;
                     }
                     pullRequest.comment("[UpdateBot](https://github.com/fabric8io/updatebot) rebasing due to merge conflicts");
                 }
@@ -147,12 +232,17 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
             // lets remove any local branches of this name
             context.getGit().deleteBranch(dir, localBranch);
 
-            doCommit(context, dir, localBranch);
+            if (!doCommit(context, dir, localBranch)) {
+                context.warn(LOG, "Failed to commit changes to branch " + localBranch + " for " + pullRequest.getHtmlUrl());
+                return false;
+            }
 
             if (!context.getGit().push(dir, localBranch + ":" + remoteRef)) {
                 context.warn(LOG, "Failed to push branch " + localBranch + " to existing github branch " + remoteRef + " for " + pullRequest.getHtmlUrl());
+                return false;
             }
             context.info(LOG, "Updated PR " + pullRequest.getHtmlUrl());
+            return true;
         }
     }
 
@@ -164,12 +254,13 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
         if (!create) {
             // avoid duplicate comment
             try {
-                List<GHIssueComment> comments = pullRequest.getComments();
-                for (GHIssueComment comment : comments) {
+                GitHubLedger ledger = context.getConfiguration().getGitHubLedger();
+                String linkComment = ledger.findLastComment(pullRequest.getRepository(), pullRequest, "issueLink", comment -> {
                     String body = comment.getBody();
-                    if (body != null && body.startsWith(PullRequests.ISSUE_LINK_COMMENT)) {
-                        return;
-                    }
+                    return body != null && body.startsWith(PullRequests.ISSUE_LINK_COMMENT) ? body : null;
+                });
+                if (linkComment != null) {
+                    return;
                 }
             } catch (IOException e) {
                 // ignore
@@ -184,7 +275,7 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
 
     private boolean doCommit(CommandContext context, File dir, String branch) {
         String commitComment = context.createCommit();
-        return context.getGit().commitToBranch(dir, branch, commitComment);
+        return context.getGit().commitToBranch(dir, branch, commitComment, context.getUpdatedFiles());
     }
 
     /**
@@ -230,6 +321,7 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
                 if (invalidChanges.size() > 0) {
                     // lets revert the current changes
                     context.getGit().revertChanges(context.getDir());
+                    context.invalidateCaches();
                     if (validChanges.size() > 0) {
                         // lets perform just the valid changes
                         if (!pushVersionChangesWithoutChecks(context, validChanges)) {
@@ -263,6 +355,8 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
                     context.info(LOG, "Closing issue as we have no further pending issues " + issue.getHtmlUrl());
                     issue.comment(Issues.CLOSE_MESSAGE + operationDescrption);
                     issue.close();
+                    configuration.getGitHubLedger().recordIssue(ghRepository, context.createIssueTitlePrefix(), null);
+                    configuration.getGitHubLedger().recordClosed(ghRepository, issue);
                 }
                 return;
             }
@@ -273,7 +367,7 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
             } else {
                 context.info(LOG, configuration.colored(Configuration.COLOR_PENDING, "Modifying issue " + issue.getHtmlUrl()));
             }
-            Issues.addConflictsComment(issue, currentPendingChanges, operationDescrption, check);
+            Issues.addConflictsComment(context, issue, currentPendingChanges, operationDescrption, check);
         } else {
             // TODO what to do with vanilla git repos?
         }
@@ -299,8 +393,7 @@ public abstract class ModifyFilesCommandSupport extends CommandSupport {
     protected List<DependencyVersionChange> loadPendingChanges(CommandContext context) throws IOException {
         GHRepository ghRepository = context.gitHubRepository();
         if (ghRepository != null) {
-            List<GHIssue> issues = Issues.getOpenIssues(ghRepository, context.getConfiguration());
-            GHIssue issue = Issues.findIssue(context, issues);
+            GHIssue issue = Issues.findOpenIssue(context, ghRepository);
             if (issue != null) {
                 context.setIssue(issue);
                 return Issues.loadPendingChangesFromIssue(context, issue);
@@ -21,13 +21,17 @@ import com.beust.jcommander.Parameters;
 import io.fabric8.updatebot.CommandNames;
 import io.fabric8.updatebot.Configuration;
 import io.fabric8.updatebot.git.GitHelper;
+import io.fabric8.updatebot.git.GitPlugin;
 import io.fabric8.updatebot.kind.CompositeUpdater;
 import io.fabric8.updatebot.model.Dependencies;
 import io.fabric8.updatebot.model.DependencyVersionChange;
 import io.fabric8.updatebot.model.GitRepository;
 import io.fabric8.updatebot.model.GitRepositoryConfig;
+import io.fabric8.updatebot.model.RepositoryConfigs;
 import io.fabric8.updatebot.repository.LocalRepository;
+import io.fabric8.updatebot.repository.SourceChangesSnapshot;
 import io.fabric8.updatebot.support.Strings;
+import io.fabric8.updatebot.support.VersionHelper;
 import io.fabric8.utils.Files;
 import io.fabric8.utils.GitHelpers;
 import org.slf4j.Logger;
@@ -55,6 +59,8 @@ public class PushSourceChanges extends ModifyFilesCommandSupport {
 
     private LocalRepository sourceRepository;
 
+    private List<DependencyVersionChange> sourceChanges;
+
     public PushSourceChanges() {
     }
 
@@ -111,6 +117,11 @@ public class PushSourceChanges extends ModifyFilesCommandSupport {
         return pushVersionsWithChecks(context, steps);
     }
 
+    @Override
+    protected List<DependencyVersionChange> getVersionChanges(CommandContext context) throws IOException {
+        return loadVersionChangesFromSource(context);
+    }
+
     @Override
     protected void validateConfiguration(Configuration configuration) throws IOException {
         File dir = configuration.getSourceDir();
@@ -160,7 +171,29 @@ public class PushSourceChanges extends ModifyFilesCommandSupport {
         return sourceRepository;
     }
 
-    protected List<DependencyVersionChange> loadVersionChangesFromSource(CommandContext context) throws IOException {
+    public void setSourceRepository(LocalRepository sourceRepository) {
+        this.sourceRepository = sourceRepository;
+    }
+
+    /**
+     * Loads the version changes from the source repository.
+     * <p>
+     * The changes are only found once per invocation as they are the same for every downstream repository.
+     * This method is synchronized as the source repository directory is shared by all the downstream repositories
+     * which may be processed concurrently
+     */
+    protected synchronized List<DependencyVersionChange> loadVersionChangesFromSource(CommandContext context) throws IOException {
+        if (sourceChanges == null) {
+            sourceChanges = findVersionChangesFromSource(context);
+        }
+        return new ArrayList<>(sourceChanges);
+    }
+
+    /**
+     * Finds the version changes in the source repository, reusing the snapshot stored in the work directory
+     * for the current source commit if the source tree has no local modifications
+     */
+    protected List<DependencyVersionChange> findVersionChangesFromSource(CommandContext context) throws IOException {
         Configuration configuration = context.getConfiguration();
         List<DependencyVersionChange> list = new ArrayList<>();
         if (sourceRepository == null) {
@@ -184,8 +217,39 @@ public class PushSourceChanges extends ModifyFilesCommandSupport {
             push = new Dependencies();
         }
         CommandContext sourceContext = new CommandContext(sourceRepository, configuration);
+        File sourceDir = sourceContext.getDir();
+        File workDir = configuration.getWorkDirectory();
+        String sourceSha = null;
+        String fingerprint = null;
+        try {
+            String configDigest = RepositoryConfigs.configFileDigest(configuration.getConfigFile(), configuration.getSourceDir());
+            if (configDigest != null) {
+                fingerprint = SourceChangesSnapshot.fingerprint(VersionHelper.updateBotVersion(), configDigest, push);
+            }
+        } catch (IOException e) {
+            LOG.debug("Could not read the configuration file " + configuration.getConfigFile() + ": " + e, e);
+        }
+        if (fingerprint != null && !GitPlugin.hasChangedFiles(sourceDir)) {
+            sourceSha = configuration.getGit().getHeadSha(sourceDir);
+        }
+        if (sourceSha != null) {
+            SourceChangesSnapshot snapshot = SourceChangesSnapshot.load(workDir, sourceSha);
+            if (snapshot != null && fingerprint.equals(snapshot.getFingerprint())) {
+                LOG.info("Reusing the source changes of " + sourceRepository.getFullName() + " at commit " + sourceSha);
+                return snapshot.createDependencyVersionChanges();
+            }
+        }
+
         CompositeUpdater updater = new CompositeUpdater();
         updater.addVersionChangesFromSource(sourceContext, push, list);
+
+        if (sourceSha != null) {
+            try {
+                new SourceChangesSnapshot(sourceSha, fingerprint, list).save(workDir);
+            } catch (IOException e) {
+                LOG.warn("Failed to save the source changes of " + sourceRepository.getFullName() + ": " + e, e);
+            }
+        }
         return list;
     }
 
@@ -204,12 +268,16 @@ public class PushSourceChanges extends ModifyFilesCommandSupport {
      */
     protected LocalRepository findLocalRepository(Configuration configuration) throws IOException {
         String cloneUrl = getCloneUrl();
-        List<LocalRepository> localRepositories = getLocalRepositories(configuration);
+        List<LocalRepository> localRepositories = new ArrayList<>(cloneOrPullRepositoriesAsync(configuration).keySet());
         LocalRepository localRepository = findLocalRepository(localRepositories, cloneUrl);
+        if (localRepository == null) {
+            localRepository = findLocalRepository(localRepositories, GitHelper.removeUsernamePassword(cloneUrl));
+        }
         if (localRepository != null) {
-            return localRepository;
+            // we only need to wait for the source repository; the others can carry on cloning in the background
+            awaitRepository(localRepository);
         }
-        return findLocalRepository(localRepositories, GitHelper.removeUsernamePassword(cloneUrl));
+        return localRepository;
     }
 
     private LocalRepository findLocalRepository(List<LocalRepository> localRepositories, String cloneUrl) {
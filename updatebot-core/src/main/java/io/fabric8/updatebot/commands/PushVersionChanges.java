@@ -27,6 +27,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -89,11 +90,7 @@ public class PushVersionChanges extends ModifyFilesCommandSupport {
         LOG.debug("Updating version in: " + dir + " repo: " + repository.getCloneUrl());
 
         boolean answer = false;
-        for (int i = 0; i + 1 < values.size(); i += 2) {
-            String propertyName = values.get(i);
-            String version = values.get(i + 1);
-
-            DependencyVersionChange step = new DependencyVersionChange(Kind.NPM, propertyName, version);
+        for (DependencyVersionChange step : getVersionChanges(context)) {
             if (pushVersionsWithChecks(context, Arrays.asList(step))) {
                 answer = true;
             }
@@ -101,5 +98,16 @@ public class PushVersionChanges extends ModifyFilesCommandSupport {
         return answer;
     }
 
+    @Override
+    protected List<DependencyVersionChange> getVersionChanges(CommandContext context) {
+        List<DependencyVersionChange> answer = new ArrayList<>();
+        for (int i = 0; i + 1 < values.size(); i += 2) {
+            String propertyName = values.get(i);
+            String version = values.get(i + 1);
+            answer.add(new DependencyVersionChange(Kind.NPM, propertyName, version));
+        }
+        return answer;
+    }
+
 
 }
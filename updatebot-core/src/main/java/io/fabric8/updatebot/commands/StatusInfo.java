@@ -16,6 +16,10 @@
 package io.fabric8.updatebot.commands;
 
 import io.fabric8.updatebot.Configuration;
+import io.fabric8.updatebot.github.GitHubGraphQL;
+import io.fabric8.updatebot.github.GitHubHelpers;
+import io.fabric8.updatebot.github.IssueSummary;
+import io.fabric8.updatebot.github.PullRequestSummary;
 import io.fabric8.updatebot.repository.LocalRepository;
 import io.fabric8.updatebot.support.Strings;
 import io.fabric8.utils.Objects;
@@ -28,6 +32,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
@@ -44,26 +50,72 @@ public class StatusInfo {
     private final GHIssue issue;
     private final GHPullRequest pullRequest;
     private final String cloneUrl;
+    private final Integer issueNumber;
+    private final Integer pullRequestNumber;
     private final GHIssueState issueState;
     private final GHIssueState pullRequestState;
     private String issueUrl;
     private String pullRequestUrl;
 
     public StatusInfo(LocalRepository repository, Status status, GHIssue issue, GHPullRequest pullRequest) {
+        this(repository, status, issue, pullRequest,
+                (issue != null) ? issue.getNumber() : null, (issue != null) ? Strings.toString(issue.getHtmlUrl()) : null, state(issue),
+                (pullRequest != null) ? pullRequest.getNumber() : null, (pullRequest != null) ? Strings.toString(pullRequest.getHtmlUrl()) : null, state(pullRequest));
+    }
+
+    protected StatusInfo(LocalRepository repository, Status status, GHIssue issue, GHPullRequest pullRequest,
+                         Integer issueNumber, String issueUrl, GHIssueState issueState,
+                         Integer pullRequestNumber, String pullRequestUrl, GHIssueState pullRequestState) {
         this.repository = repository;
         this.issue = issue;
         this.pullRequest = pullRequest;
-        this.issueUrl = (issue != null) ? Strings.toString(issue.getHtmlUrl()) : null;
-        this.pullRequestUrl = (pullRequest != null) ? Strings.toString(pullRequest.getHtmlUrl()) : null;
+        this.issueNumber = issueNumber;
+        this.issueUrl = issueUrl;
+        this.issueState = issueState;
+        this.pullRequestNumber = pullRequestNumber;
+        this.pullRequestUrl = pullRequestUrl;
+        this.pullRequestState = pullRequestState;
         this.cloneUrl = repository.getCloneUrl();
-        this.issueState = state(issue);
-        this.pullRequestState = state(pullRequest);
         if (nullOrClosed(issueState) && nullOrClosed(pullRequestState) && status.equals(Status.PENDING)) {
             status = Status.COMPLETE;
         }
         this.status = status;
     }
 
+    /**
+     * Creates a status using the issue and pull request if they were loaded from the REST API or else their open
+     * summaries loaded via the GitHub GraphQL API, so that we do not have to load them from the REST API
+     */
+    public static StatusInfo create(LocalRepository repository, Status status, GHIssue issue, IssueSummary issueSummary,
+                                    GHPullRequest pullRequest, PullRequestSummary pullRequestSummary) {
+        Integer issueNumber = null;
+        String issueUrl = null;
+        GHIssueState issueState = null;
+        if (issue != null) {
+            issueNumber = issue.getNumber();
+            issueUrl = Strings.toString(issue.getHtmlUrl());
+            issueState = state(issue);
+        } else if (issueSummary != null) {
+            issueNumber = issueSummary.getNumber();
+            issueUrl = issueSummary.getUrl();
+            issueState = GHIssueState.OPEN;
+        }
+        Integer pullRequestNumber = null;
+        String pullRequestUrl = null;
+        GHIssueState pullRequestState = null;
+        if (pullRequest != null) {
+            pullRequestNumber = pullRequest.getNumber();
+            pullRequestUrl = Strings.toString(pullRequest.getHtmlUrl());
+            pullRequestState = state(pullRequest);
+        } else if (pullRequestSummary != null) {
+            pullRequestNumber = pullRequestSummary.getNumber();
+            pullRequestUrl = pullRequestSummary.getUrl();
+            pullRequestState = GHIssueState.OPEN;
+        }
+        return new StatusInfo(repository, status, issue, pullRequest, issueNumber, issueUrl, issueState,
+                pullRequestNumber, pullRequestUrl, pullRequestState);
+    }
+
     /**
      * Returns true if there are any pending statuses in the map
      */
@@ -102,60 +154,111 @@ public class StatusInfo {
         Set<String> allKeys = new LinkedHashSet(oldMap.keySet());
         allKeys.addAll(newMap.keySet());
         Map<String, StatusInfo> answer = new LinkedHashMap<>();
+        Map<String, StatusInfo> reload = new LinkedHashMap<>();
         for (String key : allKeys) {
-            StatusInfo status = changedStatus(configuration, oldMap.get(key), newMap.get(key));
-            if (status != null) {
-                answer.put(key, status);
+            StatusInfo oldStatus = oldMap.get(key);
+            StatusInfo newStatus = newMap.get(key);
+            if (oldStatus == null) {
+                answer.put(key, newStatus);
+            } else if (newStatus != null && !oldStatus.equalStatus(newStatus)) {
+                LOG.info("Status changed for " + oldStatus + " " + newStatus);
+                // lets use the status which has the issue/pull request which is usually the old one
+                // as when things close they don't appear in searches for open issues/PRs
+                if (newStatus.getIssueUrl() != null || newStatus.getPullRequestUrl() != null) {
+                    LOG.info("new status has PR " + newStatus);
+                    answer.put(key, newStatus);
+                } else {
+                    answer.put(key, oldStatus);
+                    reload.put(key, oldStatus);
+                }
+            }
+        }
+        if (!reload.isEmpty()) {
+            Map<String, GHIssueState> states = loadStates(configuration, reload.values());
+            for (Map.Entry<String, StatusInfo> entry : reload.entrySet()) {
+                answer.put(entry.getKey(), createStatus(configuration, entry.getValue(), states));
             }
         }
         return answer;
     }
 
-    private static StatusInfo changedStatus(Configuration configuration, StatusInfo oldStatus, StatusInfo newStatus) {
-        if (oldStatus == null) {
-            return newStatus;
-        } else {
-            if (newStatus == null) {
-                return null;
-            }
-            if (oldStatus.equalStatus(newStatus)) {
-                return null;
-            }
-            LOG.info("Status changed for " + oldStatus + " " + newStatus);
-            // lets use the status which has the issue/pull request which is usually the old one
-            // as when things close they don't appear in searches for open issues/PRs
-            if (newStatus.getIssueUrl() != null || newStatus.getPullRequestUrl() != null) {
-                LOG.info("new status has PR " + newStatus);
-                return newStatus;
-            } else {
-                return StatusInfo.createStatus(configuration, oldStatus);
+    /**
+     * Loads the current states of the issues and pull requests of the given statuses in a single GraphQL query
+     * or returns an empty map if we are not using the GitHub GraphQL API or the query fails
+     */
+    private static Map<String, GHIssueState> loadStates(Configuration configuration, Collection<StatusInfo> statuses) {
+        if (!configuration.isGithubGraphQL()) {
+            return Collections.emptyMap();
+        }
+        GitHubGraphQL graphQL = GitHubGraphQL.create(configuration);
+        if (graphQL == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, Set<Integer>> numbers = new LinkedHashMap<>();
+        for (StatusInfo status : statuses) {
+            String fullName = status.getGitHubFullName();
+            if (fullName != null) {
+                Set<Integer> set = numbers.computeIfAbsent(fullName, k -> new LinkedHashSet<>());
+                if (status.getIssueNumber() != null) {
+                    set.add(status.getIssueNumber());
+                }
+                if (status.getPullRequestNumber() != null) {
+                    set.add(status.getPullRequestNumber());
+                }
             }
         }
+        try {
+            return graphQL.loadStates(numbers);
+        } catch (IOException e) {
+            configuration.warn(LOG, "Failed to query GitHub GraphQL API so using the REST API: " + e, e);
+            return Collections.emptyMap();
+        }
     }
 
-    private static StatusInfo createStatus(Configuration configuration, StatusInfo oldStatus) {
-        GHRepository repository = null;
+    private static StatusInfo createStatus(Configuration configuration, StatusInfo oldStatus, Map<String, GHIssueState> states) {
+        String fullName = oldStatus.getGitHubFullName();
         GHIssue issue = oldStatus.getIssue();
-        if (issue != null) {
-            repository = issue.getRepository();
-            try {
-                issue = repository.getIssue(issue.getNumber());
-            } catch (IOException e) {
-                configuration.warn(LOG, "Failed to lookup issue " + oldStatus.getIssueUrl() + ". " + e, e);
+        GHIssueState issueState = oldStatus.getIssueState();
+        Integer issueNumber = oldStatus.getIssueNumber();
+        if (issueNumber != null) {
+            GHIssueState state = states.get(GitHubGraphQL.stateKey(fullName, issueNumber));
+            if (state != null) {
+                issueState = state;
+            } else {
+                try {
+                    issue = getGitHubRepository(oldStatus).getIssue(issueNumber);
+                    issueState = state(issue);
+                } catch (IOException e) {
+                    configuration.warn(LOG, "Failed to lookup issue " + oldStatus.getIssueUrl() + ". " + e, e);
+                }
             }
         }
         GHPullRequest pullRequest = oldStatus.getPullRequest();
-        if (pullRequest != null) {
-            if (repository == null) {
-                repository = pullRequest.getRepository();
-            }
-            try {
-                pullRequest = repository.getPullRequest(pullRequest.getNumber());
-            } catch (IOException e) {
-                configuration.warn(LOG, "Failed to lookup pull request " + oldStatus.getPullRequestUrl() + ". " + e, e);
+        GHIssueState pullRequestState = oldStatus.getPullRequestState();
+        Integer pullRequestNumber = oldStatus.getPullRequestNumber();
+        if (pullRequestNumber != null) {
+            GHIssueState state = states.get(GitHubGraphQL.stateKey(fullName, pullRequestNumber));
+            if (state != null) {
+                pullRequestState = state;
+            } else {
+                try {
+                    pullRequest = getGitHubRepository(oldStatus).getPullRequest(pullRequestNumber);
+                    pullRequestState = state(pullRequest);
+                } catch (IOException e) {
+                    configuration.warn(LOG, "Failed to lookup pull request " + oldStatus.getPullRequestUrl() + ". " + e, e);
+                }
             }
         }
-        return new StatusInfo(oldStatus.getRepository(), oldStatus.getStatus(), issue, pullRequest);
+        return new StatusInfo(oldStatus.getRepository(), oldStatus.getStatus(), issue, pullRequest,
+                issueNumber, oldStatus.getIssueUrl(), issueState, pullRequestNumber, oldStatus.getPullRequestUrl(), pullRequestState);
+    }
+
+    private static GHRepository getGitHubRepository(StatusInfo status) throws IOException {
+        GHRepository answer = GitHubHelpers.getGitHubRepository(status.getRepository());
+        if (answer == null) {
+            throw new IOException("No GitHub repository for " + status.getCloneUrl());
+        }
+        return answer;
     }
 
     @Override
@@ -194,14 +297,36 @@ public class StatusInfo {
         return status;
     }
 
+    /**
+     * Returns the issue or null if there is none or the status was created from a GraphQL summary
+     */
     public GHIssue getIssue() {
         return issue;
     }
 
+    /**
+     * Returns the pull request or null if there is none or the status was created from a GraphQL summary
+     */
     public GHPullRequest getPullRequest() {
         return pullRequest;
     }
 
+    public Integer getIssueNumber() {
+        return issueNumber;
+    }
+
+    public Integer getPullRequestNumber() {
+        return pullRequestNumber;
+    }
+
+    /**
+     * Returns the full name of the GitHub repository or null if it is not a GitHub repository
+     */
+    public String getGitHubFullName() {
+        GHRepository ghRepository = GitHubHelpers.getGitHubRepository(repository);
+        return ghRepository != null ? ghRepository.getFullName() : null;
+    }
+
     public String getFullName() {
         return getRepository().getFullName();
     }
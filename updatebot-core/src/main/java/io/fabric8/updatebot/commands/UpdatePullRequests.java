@@ -20,8 +20,13 @@ import com.beust.jcommander.Parameters;
 import io.fabric8.updatebot.CommandNames;
 import io.fabric8.updatebot.Configuration;
 import io.fabric8.updatebot.UpdateBot;
+import io.fabric8.updatebot.github.GitHubGraphQL;
 import io.fabric8.updatebot.github.GitHubHelpers;
+import io.fabric8.updatebot.github.GitHubLedger;
+import io.fabric8.updatebot.github.IssueSummary;
+import io.fabric8.updatebot.github.PullRequestSummary;
 import io.fabric8.updatebot.github.PullRequests;
+import io.fabric8.updatebot.github.RepositorySummary;
 import io.fabric8.updatebot.support.Markdown;
 import io.fabric8.updatebot.support.Strings;
 import io.fabric8.utils.Objects;
@@ -36,9 +41,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static io.fabric8.updatebot.github.GitHubHelpers.getLastCommitStatus;
+import static io.fabric8.updatebot.github.GitHubHelpers.retryGithub;
 import static io.fabric8.updatebot.github.Issues.getLabels;
 import static io.fabric8.updatebot.github.Issues.isOpen;
 import static io.fabric8.updatebot.support.Markdown.UPDATEBOT;
@@ -53,67 +62,172 @@ public class UpdatePullRequests extends CommandSupport {
     @Parameter(names = "--merge", description = "Whether we should merge Pull Requests that are Open and have a successful last commit status", arity = 1)
     private boolean mergeOnSuccess = true;
 
+    private Map<String, RepositorySummary> repositorySummaries = new ConcurrentHashMap<>();
+
+    @Override
+    protected void runContexts(Configuration configuration, List<CommandContext> contexts) throws IOException {
+        loadRepositorySummaries(configuration, contexts);
+        super.runContexts(configuration, contexts);
+    }
+
     @Override
     public void run(CommandContext context) throws IOException {
         Status contextStatus = Status.COMPLETE;
         GHRepository ghRepository = context.gitHubRepository();
         if (ghRepository != null) {
+            RepositorySummary summary = repositorySummaries.get(ghRepository.getFullName());
+            if (summary != null) {
+                contextStatus = updatePullRequests(context, ghRepository, summary);
+            } else {
+                contextStatus = updatePullRequests(context, ghRepository);
+            }
+        }
+        context.setStatus(contextStatus);
+    }
 
-            // lets look for a pending issue
-            GHIssue issue = getOrFindIssue(context, ghRepository);
-            if (issue != null && isOpen(issue)) {
-                contextStatus = Status.PENDING;
+    /**
+     * Loads the open pull requests and issues of all the GitHub repositories up front in a few GraphQL queries
+     * rather than lots of REST calls for each repository. Any repositories which cannot be loaded use the REST API.
+     */
+    protected void loadRepositorySummaries(Configuration configuration, List<CommandContext> contexts) {
+        repositorySummaries.clear();
+        if (!configuration.isGithubGraphQL()) {
+            return;
+        }
+        GitHubGraphQL graphQL = GitHubGraphQL.create(configuration);
+        if (graphQL == null) {
+            configuration.warn(LOG, "Cannot use the GitHub GraphQL API without GitHub credentials");
+            return;
+        }
+        List<String> fullNames = new ArrayList<>();
+        for (CommandContext context : contexts) {
+            GHRepository ghRepository = GitHubHelpers.getGitHubRepository(context.getRepository());
+            if (ghRepository != null) {
+                fullNames.add(ghRepository.getFullName());
             }
+        }
+        if (fullNames.isEmpty()) {
+            return;
+        }
+        try {
+            repositorySummaries.putAll(graphQL.loadOpenPullRequestsAndIssues(fullNames, configuration.getGithubPullRequestLabel()));
+        } catch (IOException e) {
+            configuration.warn(LOG, "Failed to query GitHub GraphQL API so using the REST API: " + e, e);
+        }
+    }
 
-            List<GHPullRequest> pullRequests = PullRequests.getOpenPullRequests(ghRepository, context.getConfiguration());
-            for (GHPullRequest pullRequest : pullRequests) {
-                Configuration configuration = context.getConfiguration();
-                if (GitHubHelpers.hasLabel(getLabels(pullRequest), configuration.getGithubPullRequestLabel())) {
-                    context.setPullRequest(pullRequest);
-
-                    if (!GitHubHelpers.isMergeable(pullRequest)) {
-                        // lets re-run the update commands we can find on the PR
-                        CompositeCommand commands = loadCommandsFromPullRequest(context, ghRepository, pullRequest);
-                        if (commands != null) {
-                            commands.run(context, ghRepository, pullRequest);
-                        }
-                    }
+    protected Status updatePullRequests(CommandContext context, GHRepository ghRepository) throws IOException {
+        Status contextStatus = Status.COMPLETE;
+
+        // lets look for a pending issue
+        GHIssue issue = getOrFindIssue(context, ghRepository);
+        if (issue != null && isOpen(issue)) {
+            contextStatus = Status.PENDING;
+        }
 
-                    if (mergeOnSuccess) {
-                        try {
-                            GHCommitStatus status = getLastCommitStatus(ghRepository, pullRequest);
-                            if (status != null) {
-                                GHCommitState state = status.getState();
-                                if (state != null && state.equals(GHCommitState.SUCCESS)) {
-                                    String message = Markdown.UPDATEBOT_ICON + " merging this pull request as its CI was successful";
-                                    pullRequest.merge(message);
-                                }
-                            }
-                        } catch (IOException e) {
-                            context.warn(LOG, "Failed to find last commit status for PR " + pullRequest.getHtmlUrl() + " " + e, e);
+        List<GHPullRequest> pullRequests = PullRequests.getOpenPullRequests(ghRepository, context.getConfiguration());
+        for (GHPullRequest pullRequest : pullRequests) {
+            Configuration configuration = context.getConfiguration();
+            if (GitHubHelpers.hasLabel(getLabels(pullRequest), configuration.getGithubPullRequestLabel())) {
+                context.setPullRequest(pullRequest);
+
+                if (!GitHubHelpers.isMergeable(pullRequest)) {
+                    rebasePullRequest(context, ghRepository, pullRequest);
+                }
+
+                if (mergeOnSuccess) {
+                    try {
+                        GHCommitStatus status = getLastCommitStatus(ghRepository, pullRequest);
+                        if (status != null) {
+                            mergeIfSuccessful(pullRequest, status.getState());
                         }
-                    }
-                    if (isOpen(pullRequest)) {
-                        contextStatus = Status.PENDING;
+                    } catch (IOException e) {
+                        context.warn(LOG, "Failed to find last commit status for PR " + pullRequest.getHtmlUrl() + " " + e, e);
                     }
                 }
+                if (isOpen(pullRequest)) {
+                    contextStatus = Status.PENDING;
+                }
             }
         }
-        context.setStatus(contextStatus);
+        return contextStatus;
     }
 
     /**
-     * Lets load the old command context from comments on the PullRequest so that we can re-run a command to rebase things.
+     * Updates the pull requests using the summary loaded via GraphQL. The summary only contains open issues and
+     * pull requests so we only load a pull request, and the issue, from the REST API if we need to rebase or merge it
      */
-    protected CompositeCommand loadCommandsFromPullRequest(CommandContext context, GHRepository ghRepository, GHPullRequest pullRequest) throws IOException {
-        List<GHIssueComment> comments = pullRequest.getComments();
-        String lastCommand = null;
-        for (GHIssueComment comment : comments) {
-            String command = updateBotCommentCommand(context, comment);
-            if (command != null) {
-                lastCommand = command;
+    protected Status updatePullRequests(CommandContext context, GHRepository ghRepository, RepositorySummary summary) throws IOException {
+        Status contextStatus = Status.COMPLETE;
+
+        GHIssue issue = context.getIssue();
+        if (issue == null) {
+            IssueSummary issueSummary = summary.findIssue(context.createIssueTitlePrefix());
+            context.setIssueSummary(issueSummary);
+            if (issueSummary != null) {
+                contextStatus = Status.PENDING;
+            }
+        } else if (isOpen(issue)) {
+            contextStatus = Status.PENDING;
+        }
+
+        for (PullRequestSummary pullRequestSummary : summary.getPullRequests()) {
+            context.setPullRequest(null);
+            context.setPullRequestSummary(pullRequestSummary);
+
+            Boolean mergeable = pullRequestSummary.getMergeable();
+            // the commit status is for the head before any rebase so only use it if we do not rebase
+            boolean merge = mergeOnSuccess && GHCommitState.SUCCESS.name().equals(pullRequestSummary.getCommitStatus());
+            if (Boolean.TRUE.equals(mergeable) && !merge) {
+                contextStatus = Status.PENDING;
+                continue;
+            }
+
+            GHPullRequest pullRequest = retryGithub(() -> ghRepository.getPullRequest(pullRequestSummary.getNumber()));
+            context.setPullRequest(pullRequest);
+            if (mergeable == null) {
+                mergeable = GitHubHelpers.isMergeable(pullRequest);
+            }
+            if (!mergeable) {
+                IssueSummary issueSummary = context.getIssueSummary();
+                if (context.getIssue() == null && issueSummary != null) {
+                    // rebasing may comment on or update the issue
+                    context.setIssue(retryGithub(() -> ghRepository.getIssue(issueSummary.getNumber())));
+                }
+                rebasePullRequest(context, ghRepository, pullRequest);
+            } else if (merge) {
+                mergeIfSuccessful(pullRequest, GHCommitState.SUCCESS);
+            }
+            if (isOpen(pullRequest)) {
+                contextStatus = Status.PENDING;
             }
         }
+        return contextStatus;
+    }
+
+    /**
+     * Lets re-run the update commands we can find on the PR
+     */
+    protected void rebasePullRequest(CommandContext context, GHRepository ghRepository, GHPullRequest pullRequest) throws IOException {
+        CompositeCommand commands = loadCommandsFromPullRequest(context, ghRepository, pullRequest);
+        if (commands != null) {
+            commands.run(context, ghRepository, pullRequest);
+        }
+    }
+
+    protected void mergeIfSuccessful(GHPullRequest pullRequest, GHCommitState state) throws IOException {
+        if (state != null && state.equals(GHCommitState.SUCCESS)) {
+            String message = Markdown.UPDATEBOT_ICON + " merging this pull request as its CI was successful";
+            pullRequest.merge(message);
+        }
+    }
+
+    /**
+     * Lets load the old command context from comments on the PullRequest so that we can re-run a command to rebase things.
+     */
+    protected CompositeCommand loadCommandsFromPullRequest(CommandContext context, GHRepository ghRepository, GHPullRequest pullRequest) throws IOException {
+        GitHubLedger ledger = context.getConfiguration().getGitHubLedger();
+        String lastCommand = ledger.findLastComment(ghRepository, pullRequest, "command", comment -> updateBotCommentCommand(context, comment));
         if (lastCommand == null) {
             context.warn(LOG, "No UpdateBot comment found on pull request " + pullRequest.getHtmlUrl() + " so cannot rebase!");
             return null;
@@ -154,7 +268,7 @@ public class UpdatePullRequests extends CommandSupport {
     private String updateBotCommentCommand(CommandContext context, GHIssueComment comment) throws IOException {
         GHUser user = comment.getUser();
         if (user != null) {
-            if (Objects.equal(context.getConfiguration().getGithubUsername(), user.getLogin())) {
+            if (Objects.equal(context.getConfiguration().getGithubLogin(), user.getLogin())) {
                 String body = comment.getBody();
                 if (body != null) {
                     body = body.trim();
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.git;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * How downstream repositories are cloned
+ */
+public enum CloneStrategy {
+    /**
+     * Clones the complete history and working tree
+     */
+    FULL("full", false),
+    /**
+     * Clones only the latest commit
+     */
+    SHALLOW("shallow", false, "--depth", "1"),
+    /**
+     * Clones all the commits but only downloads file contents when they are checked out
+     */
+    PARTIAL("partial", false, "--filter=blob:none"),
+    /**
+     * Clones only the latest commit and only checks out the manifest files that updatebot can modify
+     */
+    SPARSE("sparse", true, "--depth", "1", "--filter=blob:none");
+
+    private final String name;
+    private final boolean sparseCheckout;
+    private final List<String> cloneArguments;
+
+    CloneStrategy(String name, boolean sparseCheckout, String... cloneArguments) {
+        this.name = name;
+        this.sparseCheckout = sparseCheckout;
+        this.cloneArguments = Collections.unmodifiableList(Arrays.asList(cloneArguments));
+    }
+
+    /**
+     * Returns the strategy for the given name or null if it could not be found
+     */
+    public static CloneStrategy fromName(String name) {
+        for (CloneStrategy value : values()) {
+            if (value.getName().equalsIgnoreCase(name)) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns true if only the manifest files should be checked out
+     */
+    public boolean isSparseCheckout() {
+        return sparseCheckout;
+    }
+
+    /**
+     * Returns the extra arguments passed to <code>git clone</code>
+     */
+    public List<String> getCloneArguments() {
+        return cloneArguments;
+    }
+}
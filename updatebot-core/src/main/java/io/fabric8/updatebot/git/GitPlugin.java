@@ -20,12 +20,17 @@ import io.fabric8.utils.Strings;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 /**
  */
 public interface GitPlugin {
     /**
-     * Returns true if the given directory has modified files
+     * Returns true if the given directory has modified files or if git could not determine whether it has any
      */
     static boolean hasChangedFiles(File dir) {
         try {
@@ -35,27 +40,72 @@ public interface GitPlugin {
             }
             return Strings.notEmpty(output);
         } catch (IOException e) {
-            return false;
+            return true;
         }
     }
 
+    /**
+     * Returns the paths relative to the directory, using <code>/</code> as the separator, of the given files which
+     * exist inside the directory
+     */
+    static List<String> relativePaths(File dir, Collection<File> files) {
+        List<String> answer = new ArrayList<>();
+        Path dirPath = dir.getAbsoluteFile().toPath().normalize();
+        for (File file : files) {
+            Path path = file.getAbsoluteFile().toPath().normalize();
+            if (path.startsWith(dirPath) && !path.equals(dirPath) && file.exists()) {
+                answer.add(dirPath.relativize(path).toString().replace(File.separatorChar, '/'));
+            }
+        }
+        return answer;
+    }
+
     void setRemoteURL(File dir, String remoteURL);
 
     boolean push(File dir, String localBranch);
 
     void pull(File dir, String cloneUrl);
 
-    void clone(File dir, String cloneUrl, String name);
+    default void clone(File dir, String cloneUrl, String name) {
+        clone(dir, cloneUrl, name, CloneStrategy.FULL, Collections.emptyList());
+    }
+
+    /**
+     * Clones the repository using the given strategy. If the strategy uses a sparse checkout then only the files
+     * matching the given patterns are checked out
+     */
+    void clone(File dir, String cloneUrl, String name, CloneStrategy strategy, Collection<String> sparseCheckoutPatterns);
 
     void configUserNameAndEmail(File dir);
 
-    boolean commitToBranch(File dir, String branch, String commitComment);
+    default boolean commitToBranch(File dir, String branch, String commitComment) {
+        return commitToBranch(dir, branch, commitComment, Collections.emptyList());
+    }
+
+    /**
+     * Creates the branch and commits the given modified files to it or all the changes in the working tree,
+     * including new files, if no files are given
+     */
+    boolean commitToBranch(File dir, String branch, String commitComment, Collection<File> files);
 
     void deleteBranch(File dir, String localBranch);
 
-    boolean addAndCommit(File dir, String commitComment);
+    default boolean addAndCommit(File dir, String commitComment) {
+        return addAndCommit(dir, commitComment, Collections.emptyList());
+    }
+
+    /**
+     * Commits the given modified files or all the changes in the working tree, including new files, if no files are
+     * given
+     */
+    boolean addAndCommit(File dir, String commitComment, Collection<File> files);
 
     boolean stashAndCheckoutMaster(File dir);
 
     void revertChanges(File dir) throws IOException;
+
+    /**
+     * Returns the sha of the current HEAD commit or null if it cannot be found
+     */
+    String getHeadSha(File dir);
 }
@@ -18,6 +18,8 @@ package io.fabric8.updatebot.git;
 import io.fabric8.updatebot.Configuration;
 import io.fabric8.updatebot.support.ProcessHelper;
 import io.fabric8.updatebot.support.Strings;
+import io.fabric8.updatebot.support.Toolchain;
+import io.fabric8.utils.IOHelpers;
 import org.kohsuke.github.GHMyself;
 import org.kohsuke.github.GitHub;
 import org.slf4j.Logger;
@@ -25,6 +27,9 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 /**
  */
@@ -53,12 +58,75 @@ public class GitPluginCLI implements GitPlugin {
     @Override
     public void pull(File dir, String cloneUrl) {
         LOG.debug("Pulling: " + dir + " repo: " + cloneUrl);
+        configureStatusCaches(dir);
         ProcessHelper.runCommandAndLogOutput(configuration, LOG, dir, false, "git", "pull");
     }
 
     @Override
-    public void clone(File dir, String cloneUrl, String repoName) {
-        ProcessHelper.runCommandAndLogOutput(configuration, LOG, dir, false, "git", "clone", cloneUrl, repoName);
+    public void clone(File dir, String cloneUrl, String repoName, CloneStrategy strategy, Collection<String> sparseCheckoutPatterns) {
+        boolean sparse = strategy.isSparseCheckout() && !sparseCheckoutPatterns.isEmpty();
+        List<String> commands = new ArrayList<>();
+        commands.add("git");
+        commands.add("clone");
+        commands.addAll(strategy.getCloneArguments());
+        if (sparse) {
+            commands.add("--no-checkout");
+        }
+        commands.add(cloneUrl);
+        commands.add(repoName);
+        ProcessHelper.runCommandAndLogOutput(configuration, LOG, dir, false, commands.toArray(new String[commands.size()]));
+        File repoDir = new File(dir, repoName);
+        configureStatusCaches(repoDir);
+        if (sparse) {
+            sparseCheckout(repoDir, sparseCheckoutPatterns);
+        }
+    }
+
+    /**
+     * Enables the untracked cache and, where git supports it, the built in file system monitor so that
+     * <code>git status</code> and <code>git stash</code> do not have to scan the whole working tree of large clones
+     */
+    protected void configureStatusCaches(File dir) {
+        if (!new File(dir, ".git").isDirectory()) {
+            return;
+        }
+        ProcessHelper.runCommandIgnoreOutput(dir, "git", "config", "core.untrackedCache", "true");
+        if (isFsMonitorSupported(dir)) {
+            ProcessHelper.runCommandIgnoreOutput(dir, "git", "config", "core.fsmonitor", "true");
+        }
+    }
+
+    /**
+     * The built in file system monitor daemon was added in git 2.36 and only runs on macOS and Windows
+     */
+    protected boolean isFsMonitorSupported(File dir) {
+        String os = System.getProperty("os.name", "").toLowerCase();
+        if (!os.contains("mac") && !os.contains("windows")) {
+            return false;
+        }
+        Toolchain git = configuration.getToolchains().getToolchain(dir, null, "git", "--version");
+        return git.isAvailable() && git.isVersionAtLeast("2.36");
+    }
+
+    /**
+     * Checks out only the files matching the given patterns. We use <code>core.sparseCheckout</code> rather than
+     * <code>git sparse-checkout</code> so that this works on older git versions too
+     */
+    protected void sparseCheckout(File dir, Collection<String> patterns) {
+        File sparseCheckoutFile = new File(dir, ".git/info/sparse-checkout");
+        try {
+            sparseCheckoutFile.getParentFile().mkdirs();
+            IOHelpers.writeFully(sparseCheckoutFile, String.join("\n", patterns) + "\n");
+            if (ProcessHelper.runCommandIgnoreOutput(dir, "git", "config", "core.sparseCheckout", "true") == 0 &&
+                    ProcessHelper.runCommandAndLogOutput(configuration, LOG, dir, false, "git", "read-tree", "-mu", "HEAD")) {
+                return;
+            }
+        } catch (IOException e) {
+            configuration.warn(LOG, "Failed to write " + sparseCheckoutFile + ": " + e, e);
+        }
+        configuration.warn(LOG, "Could not use a sparse checkout in " + dir + " so checking out all files");
+        ProcessHelper.runCommandIgnoreOutput(dir, "git", "config", "core.sparseCheckout", "false");
+        ProcessHelper.runCommandAndLogOutput(configuration, LOG, dir, false, "git", "read-tree", "-mu", "HEAD");
     }
 
     @Override
@@ -82,21 +150,25 @@ public class GitPluginCLI implements GitPlugin {
             configuration.warn(LOG, "Failed to load github username and email: " + e, e);
         }
         if (Strings.notEmpty(email)) {
-            ProcessHelper.runCommandAndLogOutput(configuration, LOG, dir, "git", "config", "user.email", email);
+            setConfigValue(dir, "user.email", email);
         } else {
             configuration.error(LOG, "No email available for GitHub login!");
         }
         if (Strings.notEmpty(personName)) {
-            ProcessHelper.runCommandAndLogOutput(configuration, LOG, dir, "git", "config", "user.name", personName);
+            setConfigValue(dir, "user.name", personName);
         } else {
             configuration.error(LOG, "No name available for GitHub login!");
         }
     }
 
+    protected void setConfigValue(File dir, String name, String value) {
+        ProcessHelper.runCommandAndLogOutput(configuration, LOG, dir, "git", "config", name, value);
+    }
+
     @Override
-    public boolean commitToBranch(File dir, String branch, String commitComment) {
+    public boolean commitToBranch(File dir, String branch, String commitComment, Collection<File> files) {
         if (ProcessHelper.runCommandIgnoreOutput(dir, "git", "checkout", "-b", branch) == 0) {
-            return addAndCommit(dir, commitComment);
+            return addAndCommit(dir, commitComment, files);
         }
         return false;
     }
@@ -107,8 +179,18 @@ public class GitPluginCLI implements GitPlugin {
     }
 
     @Override
-    public boolean addAndCommit(File dir, String commitComment) {
-        if (ProcessHelper.runCommandIgnoreOutput(dir, "git", "add", "*") == 0) {
+    public boolean addAndCommit(File dir, String commitComment, Collection<File> files) {
+        List<String> commands = new ArrayList<>();
+        commands.add("git");
+        commands.add("add");
+        List<String> paths = GitPlugin.relativePaths(dir, files);
+        if (paths.isEmpty()) {
+            commands.add("-A");
+        } else {
+            commands.add("--");
+            commands.addAll(paths);
+        }
+        if (ProcessHelper.runCommandIgnoreOutput(dir, commands.toArray(new String[commands.size()])) == 0) {
             if (ProcessHelper.runCommand(dir, "git", "commit", "-m", commitComment) == 0) {
                 return true;
             }
@@ -118,7 +200,7 @@ public class GitPluginCLI implements GitPlugin {
 
     @Override
     public boolean stashAndCheckoutMaster(File dir) {
-        if (ProcessHelper.runCommandIgnoreOutput(dir, "git", "stash") == 0) {
+        if (!hasTrackedChanges(dir) || ProcessHelper.runCommandIgnoreOutput(dir, "git", "stash") == 0) {
             if (ProcessHelper.runCommandIgnoreOutput(dir, "git", "checkout", "master") == 0) {
                 return true;
             }
@@ -129,8 +211,35 @@ public class GitPluginCLI implements GitPlugin {
 
     @Override
     public void revertChanges(File dir) throws IOException {
-        if (ProcessHelper.runCommandIgnoreOutput(dir, "git", "stash") != 0) {
+        if (hasTrackedChanges(dir) && ProcessHelper.runCommandIgnoreOutput(dir, "git", "stash") != 0) {
             throw new IOException("Failed to stash old changes!");
         }
     }
+
+    /**
+     * Returns true if there are changes to tracked files which <code>git stash</code> would save; untracked files
+     * are not listed which keeps the check cheap on large working trees. Returns true if the check fails
+     */
+    protected boolean hasTrackedChanges(File dir) {
+        try {
+            String output = ProcessHelper.runCommandCaptureOutput(dir, "git", "status", "--porcelain", "--untracked-files=no");
+            return Strings.notEmpty(output != null ? output.trim() : null);
+        } catch (IOException e) {
+            return true;
+        }
+    }
+
+    @Override
+    public String getHeadSha(File dir) {
+        try {
+            String output = ProcessHelper.runCommandCaptureOutput(dir, "git", "rev-parse", "HEAD");
+            if (output != null) {
+                output = output.trim();
+            }
+            return Strings.notEmpty(output) ? output : null;
+        } catch (IOException e) {
+            LOG.debug("Failed to find the HEAD of " + dir + ": " + e, e);
+            return null;
+        }
+    }
 }
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.git;
+
+import io.fabric8.updatebot.Configuration;
+import org.eclipse.jgit.api.AddCommand;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.PullResult;
+import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.transport.PushResult;
+import org.eclipse.jgit.transport.RemoteRefUpdate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A {@link GitPlugin} which uses an embedded JGit repository for each directory rather than
+ * forking a <code>git</code> process for each operation.
+ * <p>
+ * Only full clones are supported as JGit cannot pull, stash or push shallow, partial or sparse clones.
+ */
+public class GitPluginJGit extends GitPluginCLI {
+    private static final transient Logger LOG = LoggerFactory.getLogger(GitPluginJGit.class);
+    private final Configuration configuration;
+
+    public GitPluginJGit(Configuration configuration) {
+        super(configuration);
+        this.configuration = configuration;
+    }
+
+    @Override
+    public void setRemoteURL(File dir, String remoteURL) {
+        try (Git git = open(dir)) {
+            setConfigValue(git, "remote", "origin", "url", remoteURL);
+        } catch (IOException e) {
+            configuration.warn(LOG, "Could not set the remote URL of " + remoteURL + ": " + e, e);
+        }
+    }
+
+    @Override
+    public boolean push(File dir, String localBranch) {
+        try (Git git = open(dir)) {
+            Iterable<PushResult> results = git.push().setRemote("origin").add(localBranch).setForce(true).call();
+            for (PushResult result : results) {
+                for (RemoteRefUpdate update : result.getRemoteUpdates()) {
+                    RemoteRefUpdate.Status status = update.getStatus();
+                    if (status != RemoteRefUpdate.Status.OK && status != RemoteRefUpdate.Status.UP_TO_DATE) {
+                        LOG.warn("Failed to push branch " + localBranch + " in " + dir + " status: " + status);
+                        return false;
+                    }
+                }
+            }
+            return true;
+        } catch (IOException | GitAPIException e) {
+            // lets not log the exception as it may include the secure git URL
+            LOG.warn("Failed to push branch " + localBranch + " in " + dir);
+            return false;
+        }
+    }
+
+    @Override
+    public void pull(File dir, String cloneUrl) {
+        LOG.debug("Pulling: " + dir + " repo: " + cloneUrl);
+        try (Git git = open(dir)) {
+            PullResult result = git.pull().call();
+            if (!result.isSuccessful()) {
+                configuration.warn(LOG, "Failed to pull " + dir + " merge: " + result.getMergeResult());
+            }
+        } catch (IOException | GitAPIException e) {
+            configuration.warn(LOG, "Failed to pull " + dir + ": " + e);
+        }
+    }
+
+    @Override
+    public void clone(File dir, String cloneUrl, String repoName, CloneStrategy strategy, Collection<String> sparseCheckoutPatterns) {
+        if (strategy != CloneStrategy.FULL) {
+            throw new IllegalArgumentException("JGit does not support the " + strategy.getName() + " clone strategy");
+        }
+        File repoDir = new File(dir, repoName);
+        try (Git git = Git.cloneRepository().setURI(cloneUrl).setDirectory(repoDir).call()) {
+            LOG.debug("Cloned " + repoName + " into " + git.getRepository().getDirectory());
+        } catch (GitAPIException e) {
+            // lets not include the exception as it may include the secure git URL
+            throw new IllegalStateException("Failed to clone " + repoName + " into " + dir + ": " + e.getClass().getSimpleName());
+        }
+    }
+
+    @Override
+    protected void setConfigValue(File dir, String name, String value) {
+        String[] keys = name.split("\\.", 2);
+        try (Git git = open(dir)) {
+            setConfigValue(git, keys[0], null, keys[1], value);
+        } catch (IOException e) {
+            configuration.warn(LOG, "Failed to set git config " + name + " in " + dir + ": " + e, e);
+        }
+    }
+
+    @Override
+    public boolean commitToBranch(File dir, String branch, String commitComment, Collection<File> files) {
+        try (Git git = open(dir)) {
+            git.checkout().setCreateBranch(true).setName(branch).call();
+        } catch (IOException | GitAPIException e) {
+            LOG.debug("Failed to create branch " + branch + " in " + dir + ": " + e, e);
+            return false;
+        }
+        return addAndCommit(dir, commitComment, files);
+    }
+
+    @Override
+    public void deleteBranch(File dir, String localBranch) {
+        try (Git git = open(dir)) {
+            git.branchDelete().setBranchNames(localBranch).setForce(true).call();
+        } catch (IOException | GitAPIException e) {
+            LOG.debug("Failed to delete branch " + localBranch + " in " + dir + ": " + e, e);
+        }
+    }
+
+    @Override
+    public boolean addAndCommit(File dir, String commitComment, Collection<File> files) {
+        try (Git git = open(dir)) {
+            List<String> paths = GitPlugin.relativePaths(dir, files);
+            if (paths.isEmpty()) {
+                // stage new files and then modified and removed tracked files like git add -A
+                git.add().addFilepattern(".").call();
+                git.add().setUpdate(true).addFilepattern(".").call();
+            } else {
+                AddCommand add = git.add();
+                for (String path : paths) {
+                    add.addFilepattern(path);
+                }
+                add.call();
+            }
+            Status status = git.status().call();
+            if (status.getAdded().isEmpty() && status.getChanged().isEmpty() && status.getRemoved().isEmpty()) {
+                // JGit would happily create an empty commit whereas git fails
+                return false;
+            }
+            git.commit().setMessage(commitComment).call();
+            return true;
+        } catch (IOException | GitAPIException e) {
+            configuration.warn(LOG, "Failed to commit changes in " + dir + ": " + e, e);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean stashAndCheckoutMaster(File dir) {
+        try (Git git = open(dir)) {
+            git.stashCreate().call();
+            git.checkout().setName("master").call();
+            return true;
+        } catch (IOException | GitAPIException e) {
+            LOG.warn("Failed to checkout master in " + dir + ": " + e);
+            return false;
+        }
+    }
+
+    @Override
+    public void revertChanges(File dir) throws IOException {
+        try (Git git = open(dir)) {
+            git.stashCreate().call();
+        } catch (GitAPIException e) {
+            throw new IOException("Failed to stash old changes!", e);
+        }
+    }
+
+    @Override
+    public String getHeadSha(File dir) {
+        try (Git git = open(dir)) {
+            ObjectId head = git.getRepository().resolve(Constants.HEAD);
+            return head != null ? head.name() : null;
+        } catch (IOException e) {
+            LOG.debug("Failed to find the HEAD of " + dir + ": " + e, e);
+            return null;
+        }
+    }
+
+    /**
+     * Opens the repository in the given directory which the caller must close
+     */
+    protected Git open(File dir) throws IOException {
+        return Git.open(dir);
+    }
+
+    private static void setConfigValue(Git git, String section, String subsection, String name, String value) throws IOException {
+        StoredConfig config = git.getRepository().getConfig();
+        config.setString(section, subsection, name, value);
+        config.save();
+    }
+}
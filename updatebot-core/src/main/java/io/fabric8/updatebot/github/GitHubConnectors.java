@@ -0,0 +1,128 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.github;
+
+import com.squareup.okhttp.Cache;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.OkUrlFactory;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+import io.fabric8.updatebot.Configuration;
+import io.fabric8.updatebot.support.Strings;
+import org.kohsuke.github.HttpConnector;
+import org.kohsuke.github.HttpException;
+import org.kohsuke.github.extras.OkHttpConnector;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Helper methods for creating the HTTP connectors used to talk to GitHub
+ */
+public class GitHubConnectors {
+    /**
+     * The name of the directory inside the work directory used to cache GitHub responses
+     */
+    public static final String CACHE_DIR = "github-cache";
+
+    /**
+     * The URL of the public GitHub REST API
+     */
+    public static final String DEFAULT_API_URL = "https://api.github.com";
+
+    /**
+     * Creates a connector which schedules requests using the given rate limiter and, if a cache directory is given,
+     * caches responses on disk. Every request is revalidated using the cached <code>ETag</code> so that unchanged
+     * responses, such as organisation repository listings, come back as <code>304 Not Modified</code> which do not
+     * count against the GitHub rate limit.
+     */
+    public static HttpConnector createConnector(File cacheDir, long maxCacheSizeBytes, GitHubRateLimiter rateLimiter) {
+        return createConnector(createClient(cacheDir, maxCacheSizeBytes, rateLimiter));
+    }
+
+    /**
+     * Creates a connector using the given client so that it can be shared with other GitHub API calls such as
+     * GraphQL queries
+     */
+    public static HttpConnector createConnector(OkHttpClient client) {
+        return new OkHttpConnector(new OkUrlFactory(client));
+    }
+
+    /**
+     * Creates the HTTP client used for all GitHub requests
+     */
+    public static OkHttpClient createClient(File cacheDir, long maxCacheSizeBytes, GitHubRateLimiter rateLimiter) {
+        OkHttpClient client = new OkHttpClient();
+        if (cacheDir != null) {
+            client.setCache(new Cache(cacheDir, maxCacheSizeBytes));
+            client.interceptors().add(chain -> {
+                // GitHub responses use max-age=60 so lets force revalidation to avoid stale results
+                Request request = chain.request().newBuilder().header("Cache-Control", "max-age=0").build();
+                return chain.proceed(request);
+            });
+        }
+        if (rateLimiter != null) {
+            client.interceptors().add(rateLimiter);
+        }
+        return client;
+    }
+
+    /**
+     * Returns the GraphQL endpoint for the given REST API URL; GitHub Enterprise uses <code>/api/v3</code> for REST
+     * and <code>/api/graphql</code> for GraphQL
+     */
+    public static String graphQLEndpoint(String apiUrl) {
+        String url = apiUrl;
+        while (url.endsWith("/")) {
+            url = url.substring(0, url.length() - 1);
+        }
+        if (url.endsWith("/api/v3")) {
+            return url.substring(0, url.length() - 2) + "graphql";
+        }
+        return url + "/graphql";
+    }
+
+    /**
+     * Returns the <code>Authorization</code> header for the GitHub credentials in the configuration or null if
+     * there are none
+     */
+    public static String authorization(Configuration configuration) {
+        String username = configuration.getGithubUsername();
+        String password = configuration.getGithubPassword();
+        String token = configuration.getGithubToken();
+        if (Strings.notEmpty(token)) {
+            return "bearer " + token;
+        } else if (Strings.notEmpty(username) && Strings.notEmpty(password)) {
+            String text = username + ":" + password;
+            return "Basic " + Base64.getEncoder().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return null;
+    }
+
+    /**
+     * Throws a {@link HttpException} if the response failed so that transient failures can be retried
+     * by {@link GitHubHelpers#retryGithub}
+     */
+    public static void checkResponse(Response response, String description) throws IOException {
+        if (!response.isSuccessful()) {
+            response.body().close();
+            throw new HttpException(description + " failed with response code " + response.code() + " " + response.message(),
+                    response.code(), response.message(), response.request().urlString());
+        }
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.github;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
+import com.squareup.okhttp.Response;
+import io.fabric8.updatebot.Configuration;
+import org.kohsuke.github.GHIssueState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads the open updatebot pull requests and issues, along with their labels, mergeable state and
+ * head commit status, or the state of known issues and pull requests, for many repositories at once using
+ * aliased queries against the GitHub GraphQL API
+ */
+public class GitHubGraphQL {
+    public static final int DEFAULT_BATCH_SIZE = 20;
+    private static final transient Logger LOG = LoggerFactory.getLogger(GitHubGraphQL.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int PAGE_SIZE = 50;
+    private static final int LABEL_PAGE_SIZE = 20;
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+    private static final String PAGE_INFO = "pageInfo { hasNextPage }";
+
+    private final OkHttpClient client;
+    private final String endpoint;
+    private final String authorization;
+    private final int batchSize;
+
+    public GitHubGraphQL(OkHttpClient client, String endpoint, String authorization, int batchSize) {
+        this.client = client;
+        this.endpoint = endpoint;
+        this.authorization = authorization;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Creates a client using the GitHub credentials from the configuration or returns null if there are none
+     * as the GraphQL API does not support anonymous access
+     */
+    public static GitHubGraphQL create(Configuration configuration) {
+        String authorization = GitHubConnectors.authorization(configuration);
+        if (authorization == null) {
+            return null;
+        }
+        String endpoint = GitHubConnectors.graphQLEndpoint(configuration.getGithubApiUrl());
+        return new GitHubGraphQL(configuration.getGithubHttpClient(), endpoint, authorization, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Returns the summaries of the open pull requests and issues with the given label indexed by the full name of each
+     * repository. Repositories which could not be queried, or which have more pull requests, issues or labels than fit
+     * in a single page, are not included in the result so that they are loaded via the REST API instead.
+     */
+    public Map<String, RepositorySummary> loadOpenPullRequestsAndIssues(List<String> fullNames, String label) throws IOException {
+        Map<String, RepositorySummary> answer = new LinkedHashMap<>();
+        for (int i = 0; i < fullNames.size(); i += batchSize) {
+            List<String> batch = fullNames.subList(i, Math.min(i + batchSize, fullNames.size()));
+            JsonNode data = query(createQuery(batch, label));
+            for (int j = 0; j < batch.size(); j++) {
+                String fullName = batch.get(j);
+                JsonNode repository = data.get(alias(j));
+                if (repository == null || repository.isNull()) {
+                    LOG.warn("Could not query repository " + fullName + " via GraphQL");
+                } else {
+                    RepositorySummary summary = parseRepository(fullName, repository);
+                    if (summary.isComplete()) {
+                        answer.put(fullName, summary);
+                    } else {
+                        LOG.info("Repository " + fullName + " has more results than fit in a GraphQL page so using the REST API");
+                    }
+                }
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Creates a query for the given repositories using an alias of <code>r0</code>, <code>r1</code> etc for each one
+     */
+    public static String createQuery(List<String> fullNames, String label) throws JsonProcessingException {
+        String labels = "[" + quote(label) + "]";
+        String labelsField = "labels(first: " + LABEL_PAGE_SIZE + ") { nodes { name } " + PAGE_INFO + " }";
+        StringBuilder builder = new StringBuilder("query {\n");
+        for (int i = 0; i < fullNames.size(); i++) {
+            appendRepository(builder, i, fullNames.get(i));
+            builder.append("    pullRequests(first: ").append(PAGE_SIZE).append(", states: OPEN, labels: ").append(labels).append(") {\n");
+            builder.append("      nodes { number title url mergeable headRefName headRefOid ").append(labelsField).
+                    append(" commits(last: 1) { nodes { commit { status { state } } } } }\n");
+            builder.append("      ").append(PAGE_INFO).append("\n");
+            builder.append("    }\n");
+            builder.append("    issues(first: ").append(PAGE_SIZE).append(", states: OPEN, labels: ").append(labels).append(") {\n");
+            builder.append("      nodes { number title url ").append(labelsField).append(" }\n");
+            builder.append("      ").append(PAGE_INFO).append("\n");
+            builder.append("    }\n");
+            builder.append("  }\n");
+        }
+        builder.append("}\n");
+        return builder.toString();
+    }
+
+    /**
+     * Returns the state of each of the given issues or pull requests, indexed by {@link #stateKey(String, int)}, using
+     * the numbers indexed by the full name of each repository. Merged pull requests are closed and any issues or pull
+     * requests which could not be found are not included in the result.
+     */
+    public Map<String, GHIssueState> loadStates(Map<String, ? extends Collection<Integer>> numbers) throws IOException {
+        Map<String, GHIssueState> answer = new LinkedHashMap<>();
+        List<String> fullNames = new ArrayList<>(numbers.keySet());
+        for (int i = 0; i < fullNames.size(); i += batchSize) {
+            List<String> batch = fullNames.subList(i, Math.min(i + batchSize, fullNames.size()));
+            JsonNode data = query(createStatesQuery(batch, numbers));
+            for (int j = 0; j < batch.size(); j++) {
+                String fullName = batch.get(j);
+                JsonNode repository = data.path(alias(j));
+                for (Integer number : numbers.get(fullName)) {
+                    GHIssueState state = parseState(repository.path(numberAlias(number)).path("state"));
+                    if (state != null) {
+                        answer.put(stateKey(fullName, number), state);
+                    }
+                }
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Creates a query for the state of the issues or pull requests with the given numbers in each repository using an
+     * alias of <code>n123</code> for each number
+     */
+    public static String createStatesQuery(List<String> fullNames, Map<String, ? extends Collection<Integer>> numbers) throws JsonProcessingException {
+        StringBuilder builder = new StringBuilder("query {\n");
+        for (int i = 0; i < fullNames.size(); i++) {
+            String fullName = fullNames.get(i);
+            appendRepository(builder, i, fullName);
+            for (Integer number : numbers.get(fullName)) {
+                builder.append("    ").append(numberAlias(number)).append(": issueOrPullRequest(number: ").append(number).
+                        append(") { ... on Issue { state } ... on PullRequest { state } }\n");
+            }
+            builder.append("  }\n");
+        }
+        builder.append("}\n");
+        return builder.toString();
+    }
+
+    /**
+     * Returns the key of the state of an issue or pull request in the result of {@link #loadStates(Map)}
+     */
+    public static String stateKey(String fullName, int number) {
+        return fullName + "#" + number;
+    }
+
+    /**
+     * Returns the state of an issue or pull request, treating merged pull requests as closed, or null if it is unknown
+     */
+    public static GHIssueState parseState(JsonNode state) {
+        String text = state.asText();
+        if ("OPEN".equals(text)) {
+            return GHIssueState.OPEN;
+        }
+        if ("CLOSED".equals(text) || "MERGED".equals(text)) {
+            return GHIssueState.CLOSED;
+        }
+        return null;
+    }
+
+    /**
+     * Parses the result of a repository query marking the summary as incomplete if any of the results were truncated
+     */
+    public static RepositorySummary parseRepository(String fullName, JsonNode repository) {
+        RepositorySummary answer = new RepositorySummary(fullName);
+        JsonNode pullRequests = repository.path("pullRequests");
+        JsonNode issues = repository.path("issues");
+        if (hasNextPage(pullRequests) || hasNextPage(issues)) {
+            answer.setComplete(false);
+        }
+        for (JsonNode node : pullRequests.path("nodes")) {
+            PullRequestSummary pullRequest = new PullRequestSummary();
+            populateIssue(answer, pullRequest, node);
+            String mergeable = node.path("mergeable").asText();
+            if ("MERGEABLE".equals(mergeable)) {
+                pullRequest.setMergeable(true);
+            } else if ("CONFLICTING".equals(mergeable)) {
+                pullRequest.setMergeable(false);
+            }
+            pullRequest.setHeadRef(textOrNull(node.path("headRefName")));
+            pullRequest.setHeadSha(textOrNull(node.path("headRefOid")));
+            for (JsonNode commit : node.path("commits").path("nodes")) {
+                pullRequest.setCommitStatus(textOrNull(commit.path("commit").path("status").path("state")));
+            }
+            answer.getPullRequests().add(pullRequest);
+        }
+        for (JsonNode node : issues.path("nodes")) {
+            IssueSummary issue = new IssueSummary();
+            populateIssue(answer, issue, node);
+            answer.getIssues().add(issue);
+        }
+        return answer;
+    }
+
+    protected JsonNode query(String query) throws IOException {
+        ObjectNode body = OBJECT_MAPPER.createObjectNode();
+        body.put("query", query);
+        Request request = new Request.Builder().url(endpoint).
+                header("Authorization", authorization).
+                header("Accept", "application/json").
+                post(RequestBody.create(JSON, OBJECT_MAPPER.writeValueAsBytes(body))).
+                build();
+        return GitHubHelpers.retryGithub(() -> execute(request));
+    }
+
+    private JsonNode execute(Request request) throws IOException {
+        Response response = client.newCall(request).execute();
+        GitHubConnectors.checkResponse(response, "GitHub GraphQL query");
+        JsonNode result;
+        try (InputStream in = response.body().byteStream()) {
+            result = OBJECT_MAPPER.readTree(in);
+        }
+        JsonNode errors = result.get("errors");
+        if (errors != null && errors.size() > 0) {
+            LOG.warn("GitHub GraphQL query returned errors: " + errors);
+        }
+        JsonNode data = result.get("data");
+        if (data == null || data.isNull()) {
+            throw new IOException("GitHub GraphQL query returned no data: " + errors);
+        }
+        return data;
+    }
+
+    private static void populateIssue(RepositorySummary summary, IssueSummary issue, JsonNode node) {
+        issue.setNumber(node.path("number").asInt());
+        issue.setTitle(textOrNull(node.path("title")));
+        issue.setUrl(textOrNull(node.path("url")));
+        List<String> labels = new ArrayList<>();
+        JsonNode labelsNode = node.path("labels");
+        if (hasNextPage(labelsNode)) {
+            summary.setComplete(false);
+        }
+        for (JsonNode label : labelsNode.path("nodes")) {
+            labels.add(label.path("name").asText());
+        }
+        issue.setLabels(labels);
+    }
+
+    private static boolean hasNextPage(JsonNode connection) {
+        return connection.path("pageInfo").path("hasNextPage").asBoolean(false);
+    }
+
+    private static String textOrNull(JsonNode node) {
+        return node.isTextual() ? node.asText() : null;
+    }
+
+    private static void appendRepository(StringBuilder builder, int index, String fullName) throws JsonProcessingException {
+        int idx = fullName.indexOf('/');
+        if (idx < 0) {
+            throw new IllegalArgumentException("Invalid repository name " + fullName + " should be of the form owner/name");
+        }
+        builder.append("  ").append(alias(index)).append(": repository(owner: ").append(quote(fullName.substring(0, idx))).
+                append(", name: ").append(quote(fullName.substring(idx + 1))).append(") {\n");
+    }
+
+    private static String alias(int index) {
+        return "r" + index;
+    }
+
+    private static String numberAlias(int number) {
+        return "n" + number;
+    }
+
+    /**
+     * GraphQL string literals use the same escaping as JSON
+     */
+    private static String quote(String text) throws JsonProcessingException {
+        return OBJECT_MAPPER.writeValueAsString(text);
+    }
+}
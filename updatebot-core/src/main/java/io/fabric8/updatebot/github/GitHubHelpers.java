@@ -26,7 +26,6 @@ import org.kohsuke.github.GHPerson;
 import org.kohsuke.github.GHPullRequest;
 import org.kohsuke.github.GHRepository;
 import org.kohsuke.github.GitHub;
-import org.kohsuke.github.HttpException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,6 +37,12 @@ import java.util.concurrent.Callable;
 /**
  */
 public class GitHubHelpers {
+    /**
+     * The retries shared by all GitHub calls; allowing retries of up to 10% of successful calls
+     */
+    public static final RetryBudget RETRY_BUDGET = new RetryBudget(20, 0.1);
+    public static final RetryPolicy DEFAULT_RETRY_POLICY = new RetryPolicy(RetryPolicy.DEFAULT_MAX_ATTEMPTS,
+            RetryPolicy.DEFAULT_BASE_DELAY_MILLIS, RetryPolicy.DEFAULT_MAX_DELAY_MILLIS, RETRY_BUDGET);
     private static final transient Logger LOG = LoggerFactory.getLogger(GitHubHelpers.class);
 
     public static void closeOpenUpdateBotIssuesAndPullRequests(String prLabel, List<LocalRepository> repositories) {
@@ -147,36 +152,41 @@ public class GitHubHelpers {
     }
 
     public static <T> T retryGithub(Callable<T> callable) throws IOException {
-        return retryGithub(callable, 5, 1000);
+        return retryGithub(callable, DEFAULT_RETRY_POLICY);
     }
 
     /**
      * Allow automatic retries when timeout exceptions happen
      */
     public static <T> T retryGithub(Callable<T> callable, int retries, long timeout) throws IOException {
-        for (int i = 0; i < retries; i++) {
-            if (i > 0) {
-                try {
-                    Thread.sleep(timeout);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }
+        return retryGithub(callable, new RetryPolicy(retries, timeout, RetryPolicy.DEFAULT_MAX_DELAY_MILLIS, RETRY_BUDGET));
+    }
+
+    /**
+     * Invokes the callable retrying any transient failures using the given policy
+     */
+    public static <T> T retryGithub(Callable<T> callable, RetryPolicy policy) throws IOException {
+        for (int attempts = 1; ; attempts++) {
             try {
-                return callable.call();
-            } catch (HttpException e) {
-                int code = e.getResponseCode();
-                LOG.warn("GitHub Operation returned response " + code + " so retrying. Exception " + e, e);
-                if (code >= 100) {
+                T answer = callable.call();
+                policy.onSuccess();
+                return answer;
+            } catch (IOException e) {
+                if (!policy.shouldRetry(attempts, e)) {
+                    throw e;
+                }
+                long delay = policy.delayMillis(attempts);
+                LOG.warn("GitHub operation failed on attempt " + attempts + " so retrying in " + delay + "ms. Exception " + e);
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
                     throw e;
                 }
-            } catch (IOException e) {
-                throw e;
             } catch (Exception e) {
                 throw new IOException(e);
             }
         }
-        return null;
     }
 
     public static Boolean waitForPullRequestToHaveMergable(GHPullRequest pullRequest, long sleepMS, long maximumTimeMS) throws IOException {
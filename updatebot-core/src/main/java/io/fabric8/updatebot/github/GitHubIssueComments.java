@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.github;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.squareup.okhttp.MediaType;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.RequestBody;
+import com.squareup.okhttp.Response;
+import io.fabric8.updatebot.Configuration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+
+import static io.fabric8.updatebot.github.GitHubHelpers.retryGithub;
+
+/**
+ * Loads and updates a single issue comment by its id using the GitHub REST API, which the GitHub API client
+ * does not support without loading all the comments of the issue
+ */
+public class GitHubIssueComments {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    private final OkHttpClient client;
+    private final String apiUrl;
+    private final String authorization;
+
+    public GitHubIssueComments(OkHttpClient client, String apiUrl, String authorization) {
+        this.client = client;
+        this.apiUrl = apiUrl.endsWith("/") ? apiUrl.substring(0, apiUrl.length() - 1) : apiUrl;
+        this.authorization = authorization;
+    }
+
+    /**
+     * Creates a client using the GitHub credentials from the configuration or returns null if there are none
+     */
+    public static GitHubIssueComments create(Configuration configuration) {
+        String authorization = GitHubConnectors.authorization(configuration);
+        if (authorization == null) {
+            return null;
+        }
+        return new GitHubIssueComments(configuration.getGithubHttpClient(), configuration.getGithubApiUrl(), authorization);
+    }
+
+    /**
+     * Returns the comment with the given id in the repository or null if it no longer exists
+     */
+    public JsonNode getComment(String fullName, long id) throws IOException {
+        Request request = newRequest(fullName, id).get().build();
+        return retryGithub(() -> execute(request, true));
+    }
+
+    /**
+     * Replaces the body of the comment with the given id in the repository
+     */
+    public void updateComment(String fullName, long id, String body) throws IOException {
+        ObjectNode json = OBJECT_MAPPER.createObjectNode();
+        json.put("body", body);
+        Request request = newRequest(fullName, id).patch(RequestBody.create(JSON, OBJECT_MAPPER.writeValueAsBytes(json))).build();
+        retryGithub(() -> execute(request, false));
+    }
+
+    protected Request.Builder newRequest(String fullName, long id) {
+        return new Request.Builder().url(apiUrl + "/repos/" + fullName + "/issues/comments/" + id).
+                header("Authorization", authorization).
+                header("Accept", "application/vnd.github.v3+json");
+    }
+
+    private JsonNode execute(Request request, boolean allowMissing) throws IOException {
+        Response response = client.newCall(request).execute();
+        if (allowMissing && response.code() == HttpURLConnection.HTTP_NOT_FOUND) {
+            response.body().close();
+            return null;
+        }
+        GitHubConnectors.checkResponse(response, "GitHub issue comment request");
+        try (InputStream in = response.body().byteStream()) {
+            return OBJECT_MAPPER.readTree(in);
+        }
+    }
+}
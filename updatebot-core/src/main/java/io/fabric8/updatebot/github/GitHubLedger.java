@@ -0,0 +1,318 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.github;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.fabric8.updatebot.support.MarkupHelper;
+import org.kohsuke.github.GHIssue;
+import org.kohsuke.github.GHIssueComment;
+import org.kohsuke.github.GHIssueState;
+import org.kohsuke.github.GHRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static io.fabric8.updatebot.github.GitHubHelpers.retryGithub;
+
+/**
+ * A persistent ledger of the issues and pull requests updatebot has created in each repository along with the
+ * results of scanning their comments, which is stored in the work directory between runs.
+ * <p>
+ * Entries are only hints which are validated lazily against the issue or pull request loaded from GitHub; the
+ * comments of an issue or pull request are only loaded again if its comment count or update time has changed.
+ * Changes are kept in memory until {@link #flush()} is called, which is done after each repository is processed.
+ */
+public class GitHubLedger {
+    public static final String FILE_NAME = "updatebot-ledger.json";
+    private static final transient Logger LOG = LoggerFactory.getLogger(GitHubLedger.class);
+
+    private final File file;
+    private final Map<String, RepositoryLedger> repositories;
+    private boolean dirty;
+
+    public GitHubLedger(File file, Map<String, RepositoryLedger> repositories) {
+        this.file = file;
+        this.repositories = repositories;
+    }
+
+    /**
+     * Loads the ledger from the given work directory; returning an empty ledger if it does not exist or cannot be parsed
+     */
+    public static GitHubLedger load(File workDir) {
+        File file = new File(workDir, FILE_NAME);
+        Map<String, RepositoryLedger> repositories = null;
+        if (file.isFile()) {
+            try {
+                repositories = MarkupHelper.loadJson(file, new TypeReference<TreeMap<String, RepositoryLedger>>() {
+                });
+            } catch (IOException e) {
+                LOG.warn("Ignoring invalid ledger file " + file + ": " + e);
+            }
+        }
+        if (repositories == null) {
+            repositories = new TreeMap<>();
+        }
+        return new GitHubLedger(file, repositories);
+    }
+
+    /**
+     * Returns the number of the issue with the given title prefix that was last found or created in the repository
+     */
+    public synchronized Integer getIssueNumber(GHRepository repository, String titlePrefix) {
+        RepositoryLedger ledger = repositories.get(repository.getFullName());
+        return ledger != null ? ledger.getIssues().get(titlePrefix) : null;
+    }
+
+    /**
+     * Records the issue with the given title prefix for the repository or that there is no such issue
+     */
+    public synchronized void recordIssue(GHRepository repository, String titlePrefix, GHIssue issue) {
+        Integer number = issue != null ? issue.getNumber() : null;
+        RepositoryLedger ledger = getOrCreateRepository(repository);
+        if (number == null) {
+            if (ledger.getIssues().remove(titlePrefix) == null) {
+                return;
+            }
+        } else if (number.equals(ledger.getIssues().put(titlePrefix, number))) {
+            return;
+        }
+        dirty = true;
+    }
+
+    /**
+     * Records the branch of a pull request created by updatebot
+     */
+    public synchronized void recordPullRequest(GHRepository repository, GHIssue pullRequest, String branch) {
+        ThreadEntry entry = getOrCreateRepository(repository).getThreads().computeIfAbsent(pullRequest.getNumber(), n -> new ThreadEntry());
+        entry.setPullRequest(true);
+        entry.setBranch(branch);
+        dirty = true;
+    }
+
+    /**
+     * Removes the entry for a closed issue or pull request
+     */
+    public synchronized void recordClosed(GHRepository repository, GHIssue thread) {
+        RepositoryLedger ledger = repositories.get(repository.getFullName());
+        if (ledger != null && ledger.getThreads().remove(thread.getNumber()) != null) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Returns the id of the status comment updatebot keeps up to date on the issue or null if it is not known
+     */
+    public synchronized Long getStatusCommentId(GHRepository repository, GHIssue thread) {
+        RepositoryLedger ledger = repositories.get(repository.getFullName());
+        ThreadEntry entry = ledger != null ? ledger.getThreads().get(thread.getNumber()) : null;
+        return entry != null && entry.getStatusCommentId() > 0 ? entry.getStatusCommentId() : null;
+    }
+
+    /**
+     * Records the id of the status comment on the issue. If the comment was edited in place, rather than added,
+     * the comment count does not change so the value the matcher for the given key returns for the new body is
+     * recorded too, as the status comment is the last comment updatebot has written
+     */
+    public synchronized void recordStatusComment(GHRepository repository, GHIssue thread, long commentId, boolean edited, String key, String value) {
+        ThreadEntry entry = getOrCreateRepository(repository).getThreads().computeIfAbsent(thread.getNumber(), n -> new ThreadEntry());
+        entry.setStatusCommentId(commentId);
+        if (edited && entry.getComments().containsKey(key)) {
+            entry.getComments().put(key, value);
+        }
+        dirty = true;
+    }
+
+    /**
+     * Returns the value the matcher returns for the last matching comment on the issue or pull request or null if
+     * no comment matches, using the value recorded in the ledger if the comments have not changed since
+     *
+     * @param key     the key of the matcher so that different kinds of comments can be tracked on the same thread
+     * @param matcher returns the value for a comment or null if it does not match
+     */
+    public String findLastComment(GHRepository repository, GHIssue thread, String key, CommentMatcher matcher) throws IOException {
+        int commentsCount = thread.getCommentsCount();
+        long updatedAt = toMillis(thread.getUpdatedAt());
+        synchronized (this) {
+            RepositoryLedger ledger = repositories.get(repository.getFullName());
+            ThreadEntry entry = ledger != null ? ledger.getThreads().get(thread.getNumber()) : null;
+            if (entry != null && entry.getCommentsCount() == commentsCount && entry.getUpdatedAt() == updatedAt && entry.getComments().containsKey(key)) {
+                return entry.getComments().get(key);
+            }
+        }
+
+        List<GHIssueComment> comments = retryGithub(() -> thread.getComments());
+        String answer = null;
+        for (GHIssueComment comment : comments) {
+            String value = matcher.match(comment);
+            if (value != null) {
+                answer = value;
+            }
+        }
+        if (thread.getState() == GHIssueState.CLOSED) {
+            return answer;
+        }
+
+        synchronized (this) {
+            ThreadEntry entry = getOrCreateRepository(repository).getThreads().computeIfAbsent(thread.getNumber(), n -> new ThreadEntry());
+            if (entry.getCommentsCount() != commentsCount || entry.getUpdatedAt() != updatedAt) {
+                // the other kinds of comments need to be scanned again
+                entry.getComments().clear();
+                entry.setCommentsCount(commentsCount);
+                entry.setUpdatedAt(updatedAt);
+            }
+            entry.getComments().put(key, answer);
+            dirty = true;
+        }
+        return answer;
+    }
+
+    private static long toMillis(Date date) {
+        return date != null ? date.getTime() : 0;
+    }
+
+    protected RepositoryLedger getOrCreateRepository(GHRepository repository) {
+        return repositories.computeIfAbsent(repository.getFullName(), n -> new RepositoryLedger());
+    }
+
+    /**
+     * Saves the ledger if it has changed since it was loaded or last saved
+     */
+    public synchronized void flush() {
+        if (dirty) {
+            save();
+            dirty = false;
+        }
+    }
+
+    public synchronized boolean isDirty() {
+        return dirty;
+    }
+
+    protected void save() {
+        try {
+            File parent = file.getParentFile();
+            parent.mkdirs();
+            File tmpFile = new File(parent, FILE_NAME + ".tmp");
+            MarkupHelper.savePrettyJson(tmpFile, repositories);
+            Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOG.warn("Failed to save the ledger " + file + ": " + e, e);
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the value of a comment if it matches or null
+     */
+    public interface CommentMatcher {
+        String match(GHIssueComment comment) throws IOException;
+    }
+
+    /**
+     * The updatebot issues and pull requests of a repository
+     */
+    public static class RepositoryLedger {
+        private Map<String, Integer> issues = new TreeMap<>();
+        private Map<Integer, ThreadEntry> threads = new TreeMap<>();
+
+        public Map<String, Integer> getIssues() {
+            return issues;
+        }
+
+        public void setIssues(Map<String, Integer> issues) {
+            this.issues = issues;
+        }
+
+        public Map<Integer, ThreadEntry> getThreads() {
+            return threads;
+        }
+
+        public void setThreads(Map<Integer, ThreadEntry> threads) {
+            this.threads = threads;
+        }
+    }
+
+    /**
+     * The comments last seen on an issue or pull request
+     */
+    public static class ThreadEntry {
+        private boolean pullRequest;
+        private String branch;
+        private int commentsCount = -1;
+        private long updatedAt;
+        private long statusCommentId;
+        private Map<String, String> comments = new TreeMap<>();
+
+        public boolean isPullRequest() {
+            return pullRequest;
+        }
+
+        public void setPullRequest(boolean pullRequest) {
+            this.pullRequest = pullRequest;
+        }
+
+        public String getBranch() {
+            return branch;
+        }
+
+        public void setBranch(String branch) {
+            this.branch = branch;
+        }
+
+        public int getCommentsCount() {
+            return commentsCount;
+        }
+
+        public void setCommentsCount(int commentsCount) {
+            this.commentsCount = commentsCount;
+        }
+
+        public long getUpdatedAt() {
+            return updatedAt;
+        }
+
+        public void setUpdatedAt(long updatedAt) {
+            this.updatedAt = updatedAt;
+        }
+
+        public long getStatusCommentId() {
+            return statusCommentId;
+        }
+
+        public void setStatusCommentId(long statusCommentId) {
+            this.statusCommentId = statusCommentId;
+        }
+
+        public Map<String, String> getComments() {
+            return comments;
+        }
+
+        public void setComments(Map<String, String> comments) {
+            this.comments = comments;
+        }
+    }
+}
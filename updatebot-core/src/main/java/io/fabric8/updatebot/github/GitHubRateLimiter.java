@@ -0,0 +1,293 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.github;
+
+import com.squareup.okhttp.Interceptor;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Schedules GitHub API requests using the remaining rate limit quota reported in the response headers.
+ * <p>
+ * Once the quota gets low, reads are spread evenly across the rest of the rate limit window. The last part of the
+ * quota is reserved for writes, such as creating pull requests and comments, so that polling cannot starve them.
+ * GitHub has separate quotas for the core, search and GraphQL APIs so each one is tracked separately.
+ */
+public class GitHubRateLimiter implements Interceptor {
+    public static final int DEFAULT_WRITE_RESERVE = 100;
+    public static final String HEADER_LIMIT = "X-RateLimit-Limit";
+    public static final String HEADER_REMAINING = "X-RateLimit-Remaining";
+    public static final String HEADER_RESET = "X-RateLimit-Reset";
+    public static final String HEADER_RESOURCE = "X-RateLimit-Resource";
+    public static final String RESOURCE_CORE = "core";
+    public static final String RESOURCE_SEARCH = "search";
+    public static final String RESOURCE_GRAPHQL = "graphql";
+    private static final transient Logger LOG = LoggerFactory.getLogger(GitHubRateLimiter.class);
+
+    /**
+     * Reads are only paced once less than this fraction of the quota remains
+     */
+    private static final double PACING_THRESHOLD = 0.25;
+
+    /**
+     * The write reserve is never more than this fraction of the quota so that small quotas, such as the
+     * search API, can still be used for reads
+     */
+    private static final double MAX_WRITE_RESERVE_FRACTION = 0.1;
+
+    private final int writeReserve;
+    private final AtomicLong reads = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong delayedRequests = new AtomicLong();
+    private final AtomicLong delayMillis = new AtomicLong();
+    private final Map<String, Quota> quotas = new TreeMap<>();
+
+    public GitHubRateLimiter() {
+        this(DEFAULT_WRITE_RESERVE);
+    }
+
+    public GitHubRateLimiter(int writeReserve) {
+        this.writeReserve = writeReserve;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String path = request.url().getPath();
+        String resource = resource(path);
+        boolean write = isWrite(request.method(), path);
+        long delay = reserve(resource, write, System.currentTimeMillis());
+        if (delay > 0) {
+            delayedRequests.incrementAndGet();
+            delayMillis.addAndGet(delay);
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for the GitHub rate limit");
+            }
+        }
+        Response response = chain.proceed(request);
+        String responseResource = response.header(HEADER_RESOURCE);
+        if (responseResource != null && !responseResource.trim().isEmpty()) {
+            resource = responseResource.trim();
+        }
+        update(resource, response.header(HEADER_LIMIT), response.header(HEADER_REMAINING), response.header(HEADER_RESET));
+        return response;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder("GitHub API budget:");
+        for (Map.Entry<String, Quota> entry : quotas.entrySet()) {
+            Quota quota = entry.getValue();
+            builder.append(" ").append(entry.getKey()).append(" ").append(quota.remaining).append(" of ").append(quota.limit).
+                    append(" requests remaining until ").append(new Date(quota.resetMillis)).append(",");
+        }
+        builder.append(" (reads: ").append(reads).append(", writes: ").append(writes).append(", delayed: ").
+                append(delayedRequests).append(" for ").append(delayMillis.get() / 1000).append("s)");
+        return builder.toString();
+    }
+
+    /**
+     * Returns the rate limit resource used by requests to the given URL path, handling the <code>/api/v3</code>
+     * and <code>/api/graphql</code> paths of GitHub Enterprise
+     */
+    protected static String resource(String path) {
+        if (path == null) {
+            return RESOURCE_CORE;
+        }
+        if (path.endsWith("/graphql")) {
+            return RESOURCE_GRAPHQL;
+        }
+        if (path.startsWith("/search/") || path.startsWith("/api/v3/search/")) {
+            return RESOURCE_SEARCH;
+        }
+        return RESOURCE_CORE;
+    }
+
+    /**
+     * Returns true if the request modifies GitHub; GraphQL queries are sent as <code>POST</code> requests
+     * but are only used for reading
+     */
+    protected static boolean isWrite(String method, String path) {
+        if ("GET".equals(method) || "HEAD".equals(method)) {
+            return false;
+        }
+        return !RESOURCE_GRAPHQL.equals(resource(path));
+    }
+
+    /**
+     * Reserves a core API request returning how many milliseconds to wait before it should be sent
+     */
+    protected long reserve(boolean write, long now) {
+        return reserve(RESOURCE_CORE, write, now);
+    }
+
+    /**
+     * Reserves a request against the quota of the given resource returning how many milliseconds to wait before
+     * it should be sent
+     */
+    protected synchronized long reserve(String resource, boolean write, long now) {
+        if (write) {
+            writes.incrementAndGet();
+        } else {
+            reads.incrementAndGet();
+        }
+        Quota quota = quotas.get(resource);
+        if (quota == null || quota.remaining < 0 || now >= quota.resetMillis) {
+            // we don't know the quota yet or the window has reset
+            return 0;
+        }
+        int remaining = quota.remaining;
+        int reserve = quota.writeReserve(writeReserve);
+        long untilReset = quota.resetMillis - now;
+        if (write) {
+            if (remaining <= 0) {
+                return untilReset;
+            }
+        } else if (remaining <= reserve) {
+            LOG.warn("GitHub " + resource + " rate limit low with " + remaining + " requests remaining so waiting " +
+                    (untilReset / 1000) + "s until it resets before reading");
+            return untilReset;
+        }
+        long delay = 0;
+        if (!write && remaining < quota.limit * PACING_THRESHOLD) {
+            long interval = untilReset / (remaining - reserve);
+            long slot = Math.max(now, quota.nextReadMillis);
+            quota.nextReadMillis = slot + interval;
+            delay = slot - now;
+        }
+        // lets assume this request uses up quota until the next response tells us otherwise
+        quota.remaining--;
+        return delay;
+    }
+
+    /**
+     * Updates the core API quota from the rate limit response headers
+     */
+    protected void update(String limitHeader, String remainingHeader, String resetHeader) {
+        update(RESOURCE_CORE, limitHeader, remainingHeader, resetHeader);
+    }
+
+    /**
+     * Updates the quota of the given resource from the rate limit response headers
+     */
+    protected synchronized void update(String resource, String limitHeader, String remainingHeader, String resetHeader) {
+        try {
+            if (limitHeader != null && remainingHeader != null && resetHeader != null) {
+                int limit = Integer.parseInt(limitHeader.trim());
+                int remaining = Integer.parseInt(remainingHeader.trim());
+                long resetMillis = Long.parseLong(resetHeader.trim()) * 1000L;
+                Quota quota = quotas.computeIfAbsent(resource, key -> new Quota());
+                quota.limit = limit;
+                quota.remaining = remaining;
+                quota.resetMillis = resetMillis;
+            }
+        } catch (NumberFormatException e) {
+            LOG.debug("Ignoring invalid rate limit headers: " + e);
+        }
+    }
+
+    /**
+     * Returns true if the quota of any resource is known
+     */
+    public synchronized boolean hasQuotas() {
+        return !quotas.isEmpty();
+    }
+
+    public int getLimit() {
+        return getLimit(RESOURCE_CORE);
+    }
+
+    public synchronized int getLimit(String resource) {
+        Quota quota = quotas.get(resource);
+        return quota != null ? quota.limit : -1;
+    }
+
+    public int getRemaining() {
+        return getRemaining(RESOURCE_CORE);
+    }
+
+    public synchronized int getRemaining(String resource) {
+        Quota quota = quotas.get(resource);
+        return quota != null ? quota.remaining : -1;
+    }
+
+    /**
+     * Returns the time in milliseconds when the core API quota resets
+     */
+    public long getResetMillis() {
+        return getResetMillis(RESOURCE_CORE);
+    }
+
+    /**
+     * Returns the time in milliseconds when the quota of the given resource resets
+     */
+    public synchronized long getResetMillis(String resource) {
+        Quota quota = quotas.get(resource);
+        return quota != null ? quota.resetMillis : 0;
+    }
+
+    public int getWriteReserve() {
+        return writeReserve;
+    }
+
+    public long getReads() {
+        return reads.get();
+    }
+
+    public long getWrites() {
+        return writes.get();
+    }
+
+    /**
+     * Returns the number of requests which were delayed to stay within the rate limit
+     */
+    public long getDelayedRequests() {
+        return delayedRequests.get();
+    }
+
+    /**
+     * Returns the total time in milliseconds requests were delayed to stay within the rate limit
+     */
+    public long getDelayMillis() {
+        return delayMillis.get();
+    }
+
+    /**
+     * The rate limit state of a single GitHub API resource
+     */
+    private static class Quota {
+        private int limit = -1;
+        private int remaining = -1;
+        private long resetMillis;
+        private long nextReadMillis;
+
+        int writeReserve(int writeReserve) {
+            return Math.min(writeReserve, (int) (limit * MAX_WRITE_RESERVE_FRACTION));
+        }
+    }
+}
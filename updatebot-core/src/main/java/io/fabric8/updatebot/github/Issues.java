@@ -15,6 +15,7 @@
  */
 package io.fabric8.updatebot.github;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import io.fabric8.updatebot.Configuration;
 import io.fabric8.updatebot.commands.CommandContext;
 import io.fabric8.updatebot.kind.DependenciesCheck;
@@ -34,9 +35,11 @@ import org.kohsuke.github.GHUser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -53,7 +56,13 @@ public class Issues {
     public static final String CONFLICTS_HEADER = "### Conflicts";
     public static final String CONFLICT_PREFIX = "* ";
     public static final String PENDING_COMMAND_PREFIX = "    ";
+    public static final String STATUS_COMMENT_MARKER = "<!-- updatebot:status -->";
+    public static final String HISTORY_START = "<details><summary>Previous conflicts</summary>";
+    public static final String HISTORY_END = "</details>";
+    public static final String HISTORY_SEPARATOR = "\n\n<!-- updatebot:history -->\n\n";
+    public static final int DEFAULT_STATUS_HISTORY = 5;
     private static final transient Logger LOG = LoggerFactory.getLogger(Issues.class);
+    private static final String PENDING_CHANGES_KEY = "pendingChanges";
 
     public static List<GHIssue> getOpenIssues(GHRepository ghRepository, Configuration configuration) throws IOException {
         String label = configuration.getGithubPullRequestLabel();
@@ -72,15 +81,36 @@ public class Issues {
     }
 
 
-    public static List<DependencyVersionChange> loadPendingChangesFromIssue(CommandContext context, GHIssue issue) throws IOException {
-        List<GHIssueComment> comments = issue.getComments();
-        String lastCommand = null;
-        for (GHIssueComment comment : comments) {
-            String command = updateBotIssuePendingChangesComment(context, comment);
-            if (command != null) {
-                lastCommand = command;
+    /**
+     * Returns the open updatebot issue for the context using the issue recorded in the ledger if it is still open
+     * otherwise searching the open issues
+     */
+    public static GHIssue findOpenIssue(CommandContext context, GHRepository ghRepository) throws IOException {
+        Configuration configuration = context.getConfiguration();
+        GitHubLedger ledger = configuration.getGitHubLedger();
+        String titlePrefix = context.createIssueTitlePrefix();
+        Integer number = ledger.getIssueNumber(ghRepository, titlePrefix);
+        if (number != null) {
+            GHIssue issue = null;
+            try {
+                issue = retryGithub(() -> ghRepository.getIssue(number));
+            } catch (FileNotFoundException e) {
+                LOG.debug("Issue " + number + " in the ledger no longer exists in " + ghRepository.getFullName());
+            }
+            if (issue != null && isOpen(issue) && !issue.isPullRequest() && findIssue(context, Collections.singletonList(issue)) != null
+                    && GitHubHelpers.hasLabel(getLabels(issue), configuration.getGithubPullRequestLabel())) {
+                return issue;
             }
         }
+        GHIssue answer = findIssue(context, getOpenIssues(ghRepository, configuration));
+        ledger.recordIssue(ghRepository, titlePrefix, answer);
+        return answer;
+    }
+
+    public static List<DependencyVersionChange> loadPendingChangesFromIssue(CommandContext context, GHIssue issue) throws IOException {
+        GitHubLedger ledger = context.getConfiguration().getGitHubLedger();
+        String lastCommand = ledger.findLastComment(issue.getRepository(), issue, PENDING_CHANGES_KEY,
+                comment -> updateBotIssuePendingChangesComment(context, comment));
         if (lastCommand == null) {
             LOG.warn("No UpdateBot comment found on issue " + issue.getHtmlUrl());
             return new ArrayList<>();
@@ -147,10 +177,136 @@ public class Issues {
     }
 
 
-    public static void addConflictsComment(GHIssue issue, List<DependencyVersionChange> pendingChanges, String operationDescription, DependenciesCheck check) throws IOException {
+    /**
+     * Updates the updatebot status comment on the issue in place with the current conflicts, moving the previous
+     * conflicts into its collapsed history, or adds the status comment if there is none yet.
+     * <p>
+     * The id of the status comment is kept in the {@link GitHubLedger} so that it can be loaded and updated
+     * directly; the comments of the issue are only scanned if the id is not known or is stale
+     */
+    public static void addConflictsComment(CommandContext context, GHIssue issue, List<DependencyVersionChange> pendingChanges, String operationDescription, DependenciesCheck check) throws IOException {
+        Configuration configuration = context.getConfiguration();
+        GitHubLedger ledger = configuration.getGitHubLedger();
+        GHRepository repository = issue.getRepository();
         String prefix = PENDING_CHANGE_COMMENT_PREFIX + operationDescription + "\n";
-        String issueComment = prefix + conflictChangesComment(pendingChanges, check);
-        issue.comment(issueComment);
+        String status = prefix + conflictChangesComment(pendingChanges, check);
+        int maxHistory = configuration.getIssueStatusHistory();
+
+        GitHubIssueComments issueComments = GitHubIssueComments.create(configuration);
+        Long commentId = ledger.getStatusCommentId(repository, issue);
+        if (commentId != null && issueComments != null) {
+            JsonNode comment = issueComments.getComment(repository.getFullName(), commentId);
+            String previousBody = comment != null ? textOrNull(comment.path("body")) : null;
+            if (comment != null && isStatusComment(context, issue, textOrNull(comment.path("user").path("login")),
+                    textOrNull(comment.path("issue_url")), previousBody)) {
+                issueComments.updateComment(repository.getFullName(), commentId, createStatusComment(status, previousBody, maxHistory));
+                ledger.recordStatusComment(repository, issue, commentId, true, PENDING_CHANGES_KEY, status.trim());
+                return;
+            }
+            LOG.debug("Status comment " + commentId + " in the ledger is no longer valid for issue " + issue.getHtmlUrl());
+        }
+
+        GHIssueComment statusComment = findStatusComment(context, issue);
+        if (statusComment == null) {
+            GHIssueComment comment = issue.comment(createStatusComment(status, null, maxHistory));
+            if (comment != null) {
+                ledger.recordStatusComment(repository, issue, comment.getId(), false, PENDING_CHANGES_KEY, status.trim());
+            }
+        } else {
+            statusComment.update(createStatusComment(status, statusComment.getBody(), maxHistory));
+            ledger.recordStatusComment(repository, issue, statusComment.getId(), true, PENDING_CHANGES_KEY, status.trim());
+        }
+    }
+
+    /**
+     * Returns the last status comment owned by updatebot on the issue or null if there is none
+     */
+    protected static GHIssueComment findStatusComment(CommandContext context, GHIssue issue) throws IOException {
+        List<GHIssueComment> comments = retryGithub(() -> issue.getComments());
+        GHIssueComment answer = null;
+        for (GHIssueComment comment : comments) {
+            GHUser user = comment.getUser();
+            if (user != null && isStatusComment(context, issue, user.getLogin(), null, comment.getBody())) {
+                answer = comment;
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Returns true if the comment is an updatebot status comment on the issue
+     *
+     * @param issueUrl the API URL of the issue of the comment or null if it is known to be on the issue
+     */
+    protected static boolean isStatusComment(CommandContext context, GHIssue issue, String login, String issueUrl, String body) throws IOException {
+        if (issueUrl != null && !issueUrl.endsWith("/issues/" + issue.getNumber())) {
+            return false;
+        }
+        return body != null && body.contains(STATUS_COMMENT_MARKER) && Objects.equal(context.getConfiguration().getGithubLogin(), login);
+    }
+
+    private static String textOrNull(JsonNode node) {
+        return node.isTextual() ? node.asText() : null;
+    }
+
+    /**
+     * Creates the body of the status comment for the current status keeping up to the given number of previous
+     * statuses from the previous body of the status comment in a collapsed history section
+     */
+    public static String createStatusComment(String status, String previousBody, int maxHistory) {
+        StringBuilder builder = new StringBuilder(status.trim());
+        builder.append("\n\n");
+        builder.append(STATUS_COMMENT_MARKER);
+        if (maxHistory > 0 && previousBody != null) {
+            List<String> history = new ArrayList<>();
+            String previousStatus = statusSection(previousBody);
+            if (Strings.notEmpty(previousStatus)) {
+                history.add(previousStatus);
+            }
+            for (String entry : statusHistory(previousBody)) {
+                if (history.size() >= maxHistory) {
+                    break;
+                }
+                history.add(entry);
+            }
+            if (!history.isEmpty()) {
+                builder.append("\n");
+                builder.append(HISTORY_START);
+                builder.append("\n\n");
+                builder.append(String.join(HISTORY_SEPARATOR, history));
+                builder.append("\n\n");
+                builder.append(HISTORY_END);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns the current status of a comment body without its history
+     */
+    public static String statusSection(String body) {
+        int idx = body.indexOf(STATUS_COMMENT_MARKER);
+        return (idx < 0 ? body : body.substring(0, idx)).trim();
+    }
+
+    /**
+     * Returns the previous statuses kept in the history of a status comment body, most recent first
+     */
+    public static List<String> statusHistory(String body) {
+        List<String> answer = new ArrayList<>();
+        int markerIdx = body.indexOf(STATUS_COMMENT_MARKER);
+        int startIdx = markerIdx < 0 ? -1 : body.indexOf(HISTORY_START, markerIdx);
+        int endIdx = startIdx < 0 ? -1 : body.lastIndexOf(HISTORY_END);
+        if (endIdx > startIdx) {
+            String history = body.substring(startIdx + HISTORY_START.length(), endIdx);
+            for (String entry : history.split(HISTORY_SEPARATOR.trim())) {
+                entry = entry.trim();
+                if (Strings.notEmpty(entry)) {
+                    answer.add(entry);
+                }
+            }
+        }
+        return answer;
     }
 
     public static String conflictChangesComment(List<DependencyVersionChange> pendingChanges, DependenciesCheck check) {
@@ -204,10 +360,10 @@ public class Issues {
     public static String updateBotIssuePendingChangesComment(CommandContext context, GHIssueComment comment) throws IOException {
         GHUser user = comment.getUser();
         if (user != null) {
-            if (Objects.equal(context.getConfiguration().getGithubUsername(), user.getLogin())) {
+            if (Objects.equal(context.getConfiguration().getGithubLogin(), user.getLogin())) {
                 String body = comment.getBody();
                 if (body != null) {
-                    body = body.trim();
+                    body = statusSection(body);
                     if (body.startsWith(PENDING_CHANGE_COMMENT_PREFIX)) {
                         return body;
                     }
@@ -234,10 +390,12 @@ public class Issues {
     }
 
     public static GHIssue createIssue(CommandContext context, GHRepository repository) throws IOException {
-        return repository.createIssue(context.createIssueTitlePrefix()).
+        GHIssue issue = repository.createIssue(context.createIssueTitlePrefix()).
                 body(BODY).
                 label(context.getConfiguration().getGithubPullRequestLabel()).
                 create();
+        context.getConfiguration().getGitHubLedger().recordIssue(repository, context.createIssueTitlePrefix(), issue);
+        return issue;
     }
 
     public static void logOpen(List<GHIssue> issues) {
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.github;
+
+/**
+ * A summary of an open pull request loaded via the GitHub GraphQL API
+ */
+public class PullRequestSummary extends IssueSummary {
+    private Boolean mergeable;
+    private String headRef;
+    private String headSha;
+    private String commitStatus;
+
+    @Override
+    public String toString() {
+        return "PullRequestSummary{" +
+                "number=" + getNumber() +
+                ", title='" + getTitle() + '\'' +
+                ", mergeable=" + mergeable +
+                ", commitStatus='" + commitStatus + '\'' +
+                '}';
+    }
+
+    /**
+     * Returns whether the pull request can be merged or null if GitHub has not calculated it yet
+     */
+    public Boolean getMergeable() {
+        return mergeable;
+    }
+
+    public void setMergeable(Boolean mergeable) {
+        this.mergeable = mergeable;
+    }
+
+    public String getHeadRef() {
+        return headRef;
+    }
+
+    public void setHeadRef(String headRef) {
+        this.headRef = headRef;
+    }
+
+    public String getHeadSha() {
+        return headSha;
+    }
+
+    public void setHeadSha(String headSha) {
+        this.headSha = headSha;
+    }
+
+    /**
+     * Returns the combined commit status of the head commit such as <code>SUCCESS</code>,
+     * <code>PENDING</code> or <code>FAILURE</code> or null if there is no status
+     */
+    public String getCommitStatus() {
+        return commitStatus;
+    }
+
+    public void setCommitStatus(String commitStatus) {
+        this.commitStatus = commitStatus;
+    }
+}
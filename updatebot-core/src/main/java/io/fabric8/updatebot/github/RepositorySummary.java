@@ -0,0 +1,87 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.github;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The open updatebot pull requests and issues of a repository loaded via the GitHub GraphQL API
+ */
+public class RepositorySummary {
+    private final String fullName;
+    private List<PullRequestSummary> pullRequests = new ArrayList<>();
+    private List<IssueSummary> issues = new ArrayList<>();
+    private boolean complete = true;
+
+    public RepositorySummary(String fullName) {
+        this.fullName = fullName;
+    }
+
+    @Override
+    public String toString() {
+        return "RepositorySummary{" +
+                "fullName='" + fullName + '\'' +
+                ", pullRequests=" + pullRequests +
+                ", issues=" + issues +
+                ", complete=" + complete +
+                '}';
+    }
+
+    /**
+     * Returns the first issue with the given title prefix or null if there is none
+     */
+    public IssueSummary findIssue(String titlePrefix) {
+        for (IssueSummary issue : issues) {
+            String title = issue.getTitle();
+            if (title != null && title.startsWith(titlePrefix)) {
+                return issue;
+            }
+        }
+        return null;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public List<PullRequestSummary> getPullRequests() {
+        return pullRequests;
+    }
+
+    public void setPullRequests(List<PullRequestSummary> pullRequests) {
+        this.pullRequests = pullRequests;
+    }
+
+    public List<IssueSummary> getIssues() {
+        return issues;
+    }
+
+    public void setIssues(List<IssueSummary> issues) {
+        this.issues = issues;
+    }
+
+    /**
+     * Returns false if the query results were truncated so that the summary cannot be trusted
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+}
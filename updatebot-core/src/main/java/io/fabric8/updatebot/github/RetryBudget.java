@@ -0,0 +1,56 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.github;
+
+/**
+ * A budget of retries shared by all threads so that when GitHub is having problems we stop retrying quickly
+ * rather than every worker hammering it. Each retry costs one token and each successful call earns back part
+ * of a token, so retries are limited to a fraction of the successful calls.
+ */
+public class RetryBudget {
+    private final double capacity;
+    private final double tokensPerSuccess;
+    private double tokens;
+
+    public RetryBudget(double capacity, double tokensPerSuccess) {
+        this.capacity = capacity;
+        this.tokensPerSuccess = tokensPerSuccess;
+        this.tokens = capacity;
+    }
+
+    /**
+     * Returns true if a retry is allowed, using up a token
+     */
+    public synchronized boolean tryAcquire() {
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized void onSuccess() {
+        tokens = Math.min(capacity, tokens + tokensPerSuccess);
+    }
+
+    public synchronized double getTokens() {
+        return tokens;
+    }
+
+    public double getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.github;
+
+import org.kohsuke.github.HttpException;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which failed GitHub calls are retried and how long to wait before retrying them
+ * using exponential backoff with full jitter
+ */
+public class RetryPolicy {
+    public static final int DEFAULT_MAX_ATTEMPTS = 5;
+    public static final long DEFAULT_BASE_DELAY_MILLIS = 1000;
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 30000;
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final RetryBudget budget;
+
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis, RetryBudget budget) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.budget = budget;
+    }
+
+    /**
+     * Returns true if the failure is transient so the call is worth retrying
+     */
+    public static boolean isRetryable(IOException e) {
+        if (e instanceof HttpException) {
+            HttpException httpException = (HttpException) e;
+            int code = httpException.getResponseCode();
+            if (code < 100) {
+                // we did not get a response
+                return true;
+            }
+            switch (code) {
+                case 429:
+                case 502:
+                case 503:
+                case 504:
+                    return true;
+                case 403:
+                    return isSecondaryRateLimit(httpException.getMessage());
+                default:
+                    return false;
+            }
+        }
+        return e instanceof SocketTimeoutException;
+    }
+
+    protected static boolean isSecondaryRateLimit(String message) {
+        if (message == null) {
+            return false;
+        }
+        String text = message.toLowerCase();
+        return text.contains("secondary rate limit") || text.contains("abuse");
+    }
+
+    /**
+     * Returns true if we should retry after the given number of attempts have failed
+     */
+    public boolean shouldRetry(int attempts, IOException e) {
+        return attempts < maxAttempts && isRetryable(e) && (budget == null || budget.tryAcquire());
+    }
+
+    /**
+     * Returns a random delay between zero and the exponential backoff for the given number of failed attempts
+     */
+    public long delayMillis(int attempts) {
+        long backoff = maxDelayMillis;
+        if (attempts < 31) {
+            backoff = Math.min(maxDelayMillis, baseDelayMillis * (1L << (attempts - 1)));
+        }
+        return ThreadLocalRandom.current().nextLong(backoff + 1);
+    }
+
+    public void onSuccess() {
+        if (budget != null) {
+            budget.onSuccess();
+        }
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getBaseDelayMillis() {
+        return baseDelayMillis;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    public RetryBudget getBudget() {
+        return budget;
+    }
+}
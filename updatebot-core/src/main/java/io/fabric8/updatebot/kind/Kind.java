@@ -16,24 +16,31 @@
 package io.fabric8.updatebot.kind;
 
 import io.fabric8.updatebot.kind.file.FileUpdater;
+import io.fabric8.updatebot.kind.helm.HelmFiles;
 import io.fabric8.updatebot.kind.helm.HelmUpdater;
 import io.fabric8.updatebot.kind.maven.MavenUpdater;
 import io.fabric8.updatebot.kind.npm.PackageJsonUpdater;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 /**
  */
 public enum Kind {
-    FILE("file", new FileUpdater()),
-    HELM("helm", new HelmUpdater()),
-    MAVEN("maven", new MavenUpdater()),
-    NPM("npm", new PackageJsonUpdater());
+    FILE("file", new FileUpdater(), "pom.xml"),
+    HELM("helm", new HelmUpdater(), HelmFiles.CHART_YAML, HelmFiles.REQUIREMENTS_YAML),
+    MAVEN("maven", new MavenUpdater(), "pom.xml"),
+    NPM("npm", new PackageJsonUpdater(), "package.json", "package-lock.json", "npm-shrinkwrap.json");
 
     private String name;
     private Updater updater;
+    private List<String> manifestFiles;
 
-    Kind(String name, Updater updater) {
+    Kind(String name, Updater updater, String... manifestFiles) {
         this.name = name;
         this.updater = updater;
+        this.manifestFiles = Collections.unmodifiableList(Arrays.asList(manifestFiles));
     }
 
     /**
@@ -60,4 +67,11 @@ public enum Kind {
     public Updater getUpdater() {
         return updater;
     }
+
+    /**
+     * Returns the names of the files in any directory which this kind reads or modifies
+     */
+    public List<String> getManifestFiles() {
+        return manifestFiles;
+    }
 }
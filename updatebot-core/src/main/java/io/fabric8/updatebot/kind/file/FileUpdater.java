@@ -23,11 +23,11 @@ import io.fabric8.updatebot.model.Dependencies;
 import io.fabric8.updatebot.model.DependencyVersionChange;
 import io.fabric8.updatebot.model.FileDependencies;
 import io.fabric8.updatebot.model.GitRepositoryConfig;
-import io.fabric8.utils.Files;
+import io.fabric8.updatebot.repository.ManifestIndex;
+import io.fabric8.updatebot.support.DocumentCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.File;
 import java.io.IOException;
 import java.util.List;
 
@@ -59,10 +59,12 @@ public class FileUpdater extends UpdaterSupport implements Updater {
 
     @Override
     public boolean pushVersions(CommandContext context, List<DependencyVersionChange> changes) throws IOException {
-        File file = context.file("pom.xml");
+        ManifestIndex index = context.getManifestIndex();
         boolean answer = false;
-        if (Files.isFile(file)) {
-            if (PomHelper.updatePomVersionsInPoms(context.getDir(), changes)) {
+        if (index.hasManifest("pom.xml")) {
+            DocumentCache documentCache = context.getDocumentCache();
+            if (PomHelper.updatePomVersionsInPoms(context.getDir(), index.findManifestFiles("pom.xml"), changes, documentCache)) {
+                context.flushDocuments();
                 return true;
             }
         }
@@ -22,13 +22,16 @@ import io.fabric8.updatebot.kind.helm.model.Chart;
 import io.fabric8.updatebot.kind.helm.model.Requirements;
 import io.fabric8.updatebot.model.Dependencies;
 import io.fabric8.updatebot.model.DependencyVersionChange;
-import io.fabric8.updatebot.support.MarkupHelper;
+import io.fabric8.updatebot.repository.ManifestEntry;
+import io.fabric8.updatebot.repository.ManifestIndex;
+import io.fabric8.updatebot.support.DocumentCache;
 import io.fabric8.updatebot.support.Strings;
-import io.fabric8.utils.Files;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
 import static io.fabric8.updatebot.kind.helm.HelmFiles.CHART_YAML;
 import static io.fabric8.updatebot.kind.helm.HelmFiles.REQUIREMENTS_YAML;
@@ -38,49 +41,45 @@ import static io.fabric8.updatebot.support.FileHelper.isFile;
  */
 public class HelmUpdater extends UpdaterSupport {
 
+    /**
+     * Applies the changes to the requirements loaded from the {@link DocumentCache} of the context
+     * and marks them to be written if they were modified
+     */
     public static boolean applyRequirementsChanges(CommandContext context, List<DependencyVersionChange> changes, Requirements requirements, File requirementsFile) throws IOException {
         boolean answer = requirements.applyChanges(changes);
         if (answer) {
-            // lets store the updated requirements
-            try {
-                MarkupHelper.saveYaml(requirements, requirementsFile);
-            } catch (IOException e) {
-                throw new IOException("Failed to save chart requirements " + requirementsFile + ". " + e, e);
-            }
+            context.getDocumentCache().markDirty(requirementsFile);
         }
         return answer;
     }
 
-    @Override
-    public boolean isApplicable(CommandContext context) {
-        boolean answer = isFile(context.file(CHART_YAML));
-        if (!answer) {
-            return fileExistsInDir(context.getDir(), CHART_YAML);
-        }
-        return answer;
+    /**
+     * Returns the directory containing the given relative path or an empty string for the root directory
+     */
+    protected static String parentPath(String path) {
+        int idx = path.lastIndexOf('/');
+        return idx < 0 ? "" : path.substring(0, idx);
     }
 
-    protected boolean fileExistsInDir(File dir, String fileName) {
-        if (dir.isFile()) {
-            return dir.getName().equals(fileName);
-        } else if (dir.isDirectory()) {
-            if (isFile(new File(dir, fileName))) {
+    /**
+     * Returns true if any parent of the given directory is also a chart directory
+     */
+    protected static boolean isNestedChart(Set<String> chartDirs, String chartDir) {
+        String dir = chartDir;
+        while (!dir.isEmpty()) {
+            dir = parentPath(dir);
+            if (chartDirs.contains(dir)) {
                 return true;
             }
-            File[] files = dir.listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    if (Files.isDirectory(file)) {
-                        if (fileExistsInDir(file, fileName)) {
-                            return true;
-                        }
-                    }
-                }
-            }
         }
         return false;
     }
 
+    @Override
+    public boolean isApplicable(CommandContext context) {
+        return !context.getManifestIndex().findManifests(CHART_YAML).isEmpty();
+    }
+
     /**
      * Lets find changes from a local release build of a chart and push them into dependent projects
      *
@@ -95,7 +94,7 @@ public class HelmUpdater extends UpdaterSupport {
         if (isFile(file)) {
             Chart chart;
             try {
-                chart = MarkupHelper.loadYaml(file, Chart.class);
+                chart = context.getDocumentCache().getYaml(file, Chart.class);
             } catch (IOException e) {
                 throw new IOException("Failed to load chart " + file + ". " + e, e);
             }
@@ -111,18 +110,24 @@ public class HelmUpdater extends UpdaterSupport {
 
     @Override
     public boolean pushVersions(CommandContext context, List<DependencyVersionChange> changes) throws IOException {
-        return pushVersionsForDir(context, changes, context.getDir());
-    }
-
-    protected boolean pushVersionsForDir(CommandContext context, List<DependencyVersionChange> changes, File dir) throws IOException {
-        File chartsFile = new File(dir, CHART_YAML);
+        ManifestIndex index = context.getManifestIndex();
+        Set<String> chartDirs = new TreeSet<>();
+        for (ManifestEntry chart : index.findManifests(CHART_YAML)) {
+            chartDirs.add(parentPath(chart.getPath()));
+        }
         boolean answer = false;
-        if (isFile(chartsFile)) {
-            File requirementsFile = new File(dir, REQUIREMENTS_YAML);
-            if (isFile(requirementsFile)) {
+        for (String chartDir : chartDirs) {
+            // charts nested inside another chart are not updated
+            if (isNestedChart(chartDirs, chartDir)) {
+                continue;
+            }
+            String requirementsPath = chartDir.isEmpty() ? REQUIREMENTS_YAML : chartDir + "/" + REQUIREMENTS_YAML;
+            ManifestEntry requirementsEntry = index.getManifest(requirementsPath);
+            if (requirementsEntry != null) {
+                File requirementsFile = requirementsEntry.getFile();
                 Requirements requirements;
                 try {
-                    requirements = MarkupHelper.loadYaml(requirementsFile, Requirements.class);
+                    requirements = context.getDocumentCache().getYaml(requirementsFile, Requirements.class);
                 } catch (IOException e) {
                     throw new IOException("Failed to load chart requirements " + requirementsFile + ". " + e, e);
                 }
@@ -132,16 +137,12 @@ public class HelmUpdater extends UpdaterSupport {
                     }
                 }
             }
-        } else {
-            File[] files = dir.listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    if (Files.isDirectory(file)) {
-                        if (pushVersionsForDir(context, changes, file)) {
-                            answer = true;
-                        }
-                    }
-                }
+        }
+        if (answer) {
+            try {
+                context.flushDocuments();
+            } catch (IOException e) {
+                throw new IOException("Failed to save chart requirements. " + e, e);
             }
         }
         return answer;
@@ -23,9 +23,12 @@ import io.fabric8.updatebot.model.Dependencies;
 import io.fabric8.updatebot.model.DependencyVersionChange;
 import io.fabric8.updatebot.model.MavenArtifactVersionChange;
 import io.fabric8.updatebot.model.MavenArtifactVersionChanges;
-import io.fabric8.updatebot.support.FileHelper;
+import io.fabric8.updatebot.repository.ManifestIndex;
+import io.fabric8.updatebot.support.DocumentCache;
 import io.fabric8.updatebot.support.MarkupHelper;
 import io.fabric8.updatebot.support.ProcessHelper;
+import io.fabric8.updatebot.support.ToolScheduler;
+import io.fabric8.updatebot.support.Toolchain;
 import io.fabric8.updatebot.support.VersionHelper;
 import io.fabric8.utils.Files;
 import org.slf4j.Logger;
@@ -44,14 +47,14 @@ public class MavenUpdater extends UpdaterSupport implements Updater {
 
     @Override
     public boolean isApplicable(CommandContext context) {
-        boolean answer = FileHelper.isFile(context.file("pom.xml"));
+        boolean answer = context.getManifestIndex().hasManifest("pom.xml");
         if (answer) {
             // lets verify we have a maven install
             Configuration configuration = context.getConfiguration();
             String mvnCommand = configuration.getMvnCommand();
-            int returnCode = ProcessHelper.runCommandIgnoreOutput(context.getDir(), configuration.getMvnEnvironmentVariables(), mvnCommand, "-v");
-            if (returnCode != 0) {
-                context.warn(LOG, "Could not invoke Maven!. Command failed: " + mvnCommand + " -v => " + returnCode);
+            Toolchain toolchain = configuration.getToolchains().getToolchain(context.getDir(), configuration.getMvnEnvironmentVariables(), mvnCommand, "-v");
+            if (!toolchain.isAvailable()) {
+                context.warn(LOG, "Could not invoke Maven!. Command failed: " + mvnCommand + " -v");
                 context.warn(LOG, "Please verify you have `mvn` on your PATH or you have configured Maven property");
                 return false;
             }
@@ -70,10 +73,14 @@ public class MavenUpdater extends UpdaterSupport implements Updater {
             Map<String, String> env = configuration.getMvnEnvironmentVariables();
             String mvnCommand = configuration.getMvnCommand();
             String updateBotPluginVersion = VersionHelper.updateBotVersion();
-            if (ProcessHelper.runCommandAndLogOutput(context.getConfiguration(), LOG, context.getDir(), env, mvnCommand,
-                    "-B",
-                    "io.fabric8.updatebot:updatebot-maven-plugin:" + updateBotPluginVersion + ":export",
-                    "-DdestFile=" + versionsFile, "-DupdateBotYaml=" + configFile)) {
+            boolean exported;
+            try (ToolScheduler.Lease ignored = configuration.getToolScheduler().acquire(ToolScheduler.MAVEN)) {
+                exported = ProcessHelper.runCommandAndLogOutput(context.getConfiguration(), LOG, context.getDir(), env, mvnCommand,
+                        "-B",
+                        "io.fabric8.updatebot:updatebot-maven-plugin:" + updateBotPluginVersion + ":export",
+                        "-DdestFile=" + versionsFile, "-DupdateBotYaml=" + configFile);
+            }
+            if (exported) {
                 if (!Files.isFile(versionsFile)) {
                     LOG.warn("Should have generated the export versions file " + versionsFile);
                     return;
@@ -102,10 +109,12 @@ public class MavenUpdater extends UpdaterSupport implements Updater {
 
     @Override
     public boolean pushVersions(CommandContext context, List<DependencyVersionChange> changes) throws IOException {
-        File file = context.file("pom.xml");
+        ManifestIndex index = context.getManifestIndex();
         boolean answer = false;
-        if (Files.isFile(file)) {
-            if (PomHelper.updatePomVersionsInPoms(context.getDir(), changes)) {
+        if (index.hasManifest("pom.xml")) {
+            DocumentCache documentCache = context.getDocumentCache();
+            if (PomHelper.updatePomVersionsInPoms(context.getDir(), index.findManifestFiles("pom.xml"), changes, documentCache)) {
+                context.flushDocuments();
                 return true;
             }
         }
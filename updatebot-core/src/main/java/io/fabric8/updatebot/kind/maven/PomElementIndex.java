@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.kind.maven;
+
+import de.pdark.decentxml.Document;
+import de.pdark.decentxml.Element;
+import io.fabric8.updatebot.model.MavenArtifactKey;
+import io.fabric8.updatebot.support.DecentXmlHelper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of the <code>dependency</code>, <code>plugin</code> and property elements of a parsed <code>pom.xml</code>
+ * so that many version changes can be applied without walking the whole document for each change
+ */
+public class PomElementIndex {
+    private final Element rootElement;
+    private final Map<String, List<Element>> dependencies = new HashMap<>();
+    private final Map<String, List<Element>> plugins = new HashMap<>();
+    private final Map<String, Element> properties = new HashMap<>();
+
+    public PomElementIndex(Document doc) {
+        this.rootElement = doc.getRootElement();
+        indexChildren(rootElement, true);
+        Element propertiesElement = DecentXmlHelper.firstChild(rootElement, "properties");
+        if (propertiesElement != null) {
+            for (Element property : propertiesElement.getChildren()) {
+                properties.putIfAbsent(property.getName(), property);
+            }
+        }
+    }
+
+    protected static String artifactKey(Element element) {
+        String groupId = DecentXmlHelper.firstChildTextContent(element, "groupId");
+        String artifactId = DecentXmlHelper.firstChildTextContent(element, "artifactId");
+        return new MavenArtifactKey(groupId, artifactId).toString();
+    }
+
+    protected static void addElement(Map<String, List<Element>> map, Element element) {
+        map.computeIfAbsent(artifactKey(element), k -> new ArrayList<>()).add(element);
+    }
+
+    /**
+     * Walks the tree once collecting the same elements as
+     * {@link DecentXmlHelper#findElementsWithName(Element, String)} would for
+     * <code>dependency</code> and <code>plugin</code>
+     */
+    protected void indexChildren(Element element, boolean indexPlugins) {
+        for (Element child : element.getChildren()) {
+            String name = child.getName();
+            if ("dependency".equals(name)) {
+                addElement(dependencies, child);
+            } else if (indexPlugins && "plugin".equals(name)) {
+                addElement(plugins, child);
+                indexChildren(child, false);
+            } else {
+                indexChildren(child, indexPlugins);
+            }
+        }
+    }
+
+    public Element getRootElement() {
+        return rootElement;
+    }
+
+    /**
+     * Returns the <code>dependency</code> elements for the given <code>groupId:artifactId</code> key
+     */
+    public List<Element> getDependencies(String dependency) {
+        return dependencies.getOrDefault(dependency, Collections.emptyList());
+    }
+
+    /**
+     * Returns the <code>plugin</code> elements for the given <code>groupId:artifactId</code> key
+     */
+    public List<Element> getPlugins(String dependency) {
+        return plugins.getOrDefault(dependency, Collections.emptyList());
+    }
+
+    /**
+     * Registers a newly created <code>plugin</code> element
+     */
+    public void addPlugin(Element plugin) {
+        addElement(plugins, plugin);
+    }
+
+    /**
+     * Returns the element for the given property name in the top level <code>properties</code> element or null
+     */
+    public Element getProperty(String name) {
+        return properties.get(name);
+    }
+}
@@ -19,7 +19,9 @@ import de.pdark.decentxml.Document;
 import de.pdark.decentxml.Element;
 import io.fabric8.updatebot.model.DependencyVersionChange;
 import io.fabric8.updatebot.model.MavenArtifactKey;
+import io.fabric8.updatebot.repository.ManifestIndex;
 import io.fabric8.updatebot.support.DecentXmlHelper;
+import io.fabric8.updatebot.support.DocumentCache;
 import io.fabric8.updatebot.support.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,8 +43,39 @@ public class PomHelper {
 
 
     public static boolean updatePomVersionsInPoms(File dir, List<DependencyVersionChange> changes) throws IOException {
+        return updatePomVersionsInPoms(dir, ManifestIndex.create(dir).findManifestFiles("pom.xml"), changes);
+    }
+
+    /**
+     * Updates the given <code>pom.xml</code> files where the <code>pom.xml</code> in the given directory
+     * is the root pom
+     */
+    public static boolean updatePomVersionsInPoms(File dir, List<File> pomFiles, List<DependencyVersionChange> changes) throws IOException {
+        DocumentCache documentCache = new DocumentCache();
+        boolean answer = updatePomVersionsInPoms(dir, pomFiles, changes, documentCache);
+        documentCache.flush();
+        return answer;
+    }
+
+    /**
+     * Updates the given <code>pom.xml</code> files loaded from the document cache; the modified poms are marked
+     * as dirty in the cache rather than being written
+     */
+    public static boolean updatePomVersionsInPoms(File dir, List<File> pomFiles, List<DependencyVersionChange> changes, DocumentCache documentCache) throws IOException {
+        File rootPomFile = new File(dir, "pom.xml");
+        boolean hasRootPom = pomFiles.contains(rootPomFile);
         List<PomUpdateStatus> pomsToChange = new ArrayList<>();
-        addPomFiles(dir, pomsToChange);
+        for (File file : pomFiles) {
+            try {
+                PomUpdateStatus updateStatus = PomUpdateStatus.createPomUpdateStatus(file, documentCache);
+                if (hasRootPom ? file.equals(rootPomFile) : pomsToChange.isEmpty()) {
+                    updateStatus.setRootPom(true);
+                }
+                pomsToChange.add(updateStatus);
+            } catch (Exception e) {
+                LOG.warn("Failed to parse " + file + ". " + e, e);
+            }
+        }
         return updatePomVersions(pomsToChange, changes);
     }
 
@@ -66,56 +99,16 @@ public class PomHelper {
         return answer;
     }
 
-    protected static void addPomFiles(File file, List<PomUpdateStatus> pomsToChange) {
-        if (file.isFile()) {
-            if (file.getName().equals("pom.xml")) {
-                try {
-                    PomUpdateStatus updateStatus = PomUpdateStatus.createPomUpdateStatus(file);
-                    if (pomsToChange.isEmpty()) {
-                        updateStatus.setRootPom(true);
-                    }
-                    pomsToChange.add(updateStatus);
-                } catch (Exception e) {
-                    LOG.warn("Failed to parse " + file + ". " + e, e);
-                }
-            }
-        } else if (file.isDirectory()) {
-            File[] files = file.listFiles();
-            if (files != null) {
-                for (File child : files) {
-                    addPomFiles(child, pomsToChange);
-                }
-            }
-        }
-    }
-
-
     public static boolean updatePluginVersion(Document doc, DependencyVersionChange change, Map<String, String> propertyChanges, boolean lazyAdd) {
-        Element rootElement = doc.getRootElement();
-        List<Element> plugins = DecentXmlHelper.findElementsWithName(rootElement, "plugin");
+        return updatePluginVersion(new PomElementIndex(doc), change, propertyChanges, lazyAdd);
+    }
 
-        boolean found = false;
-        String newVersion = change.getVersion();
-        boolean update = false;
-        for (Element element : plugins) {
-            String groupId = DecentXmlHelper.firstChildTextContent(element, "groupId");
-            String artifactId = DecentXmlHelper.firstChildTextContent(element, "artifactId");
-            if (change.matches(groupId, artifactId)) {
-                found = true;
-                String version = DecentXmlHelper.firstChildTextContent(element, "version");
-                if (Strings.notEmpty(version)) {
-                    if (version.startsWith("${") && version.endsWith("}")) {
-                        String versionProperty = version.substring(2, version.length() - 1);
-                        propertyChanges.put(versionProperty, newVersion);
-                    } else {
-                        if (DecentXmlHelper.updateFirstChild(element, "version", newVersion)) {
-                            update = true;
-                        }
-                    }
-                }
-            }
-        }
+    public static boolean updatePluginVersion(PomElementIndex index, DependencyVersionChange change, Map<String, String> propertyChanges, boolean lazyAdd) {
+        List<Element> plugins = index.getPlugins(change.getDependency());
+        boolean found = !plugins.isEmpty();
+        boolean update = updateVersionElements(plugins, change, propertyChanges);
         if (lazyAdd && !found) {
+            Element rootElement = index.getRootElement();
             MavenArtifactKey key = fromString(change.getDependency());
             // lets add the plugin
             // lets add a new fmp plugin element
@@ -138,6 +131,7 @@ public class PomHelper {
             if (processor != null) {
                 processor.process(plugin, separator);
             }
+            index.addPlugin(plugin);
             update = true;
         }
         return update;
@@ -145,23 +139,29 @@ public class PomHelper {
 
 
     public static boolean updateDependencyVersion(Document doc, DependencyVersionChange change, Map<String, String> propertyChanges) {
-        Element rootElement = doc.getRootElement();
-        List<Element> dependencies = DecentXmlHelper.findElementsWithName(rootElement, "dependency");
+        return updateDependencyVersion(new PomElementIndex(doc), change, propertyChanges);
+    }
+
+    public static boolean updateDependencyVersion(PomElementIndex index, DependencyVersionChange change, Map<String, String> propertyChanges) {
+        return updateVersionElements(index.getDependencies(change.getDependency()), change, propertyChanges);
+    }
+
+    /**
+     * Updates the <code>version</code> child of each matching element or records the property
+     * to change if the version is an expression
+     */
+    protected static boolean updateVersionElements(List<Element> elements, DependencyVersionChange change, Map<String, String> propertyChanges) {
         String newVersion = change.getVersion();
         boolean update = false;
-        for (Element element : dependencies) {
-            String groupId = DecentXmlHelper.firstChildTextContent(element, "groupId");
-            String artifactId = DecentXmlHelper.firstChildTextContent(element, "artifactId");
-            if (change.matches(groupId, artifactId)) {
-                String version = DecentXmlHelper.firstChildTextContent(element, "version");
-                if (Strings.notEmpty(version)) {
-                    if (version.startsWith("${") && version.endsWith("}")) {
-                        String versionProperty = version.substring(2, version.length() - 1);
-                        propertyChanges.put(versionProperty, newVersion);
-                    } else {
-                        if (DecentXmlHelper.updateFirstChild(element, "version", newVersion)) {
-                            update = true;
-                        }
+        for (Element element : elements) {
+            String version = DecentXmlHelper.firstChildTextContent(element, "version");
+            if (Strings.notEmpty(version)) {
+                if (version.startsWith("${") && version.endsWith("}")) {
+                    String versionProperty = version.substring(2, version.length() - 1);
+                    propertyChanges.put(versionProperty, newVersion);
+                } else {
+                    if (DecentXmlHelper.updateFirstChild(element, "version", newVersion)) {
+                        update = true;
                     }
                 }
             }
@@ -170,16 +170,17 @@ public class PomHelper {
     }
 
     public static boolean updateProperties(Document doc, Map<String, String> propertyChanges) {
-        Element rootElement = doc.getRootElement();
+        return updateProperties(new PomElementIndex(doc), propertyChanges);
+    }
+
+    public static boolean updateProperties(PomElementIndex index, Map<String, String> propertyChanges) {
         boolean update = false;
-        Element properties = DecentXmlHelper.firstChild(rootElement, "properties");
-        if (properties != null) {
-            for (Map.Entry<String, String> entry : propertyChanges.entrySet()) {
-                String propertyName = entry.getKey();
-                String propertyVersion = entry.getValue();
-                if (DecentXmlHelper.updateFirstChild(properties, propertyName, propertyVersion)) {
-                    update = true;
-                }
+        for (Map.Entry<String, String> entry : propertyChanges.entrySet()) {
+            Element property = index.getProperty(entry.getKey());
+            String propertyVersion = entry.getValue();
+            if (property != null && !propertyVersion.equals(property.getText())) {
+                property.setText(propertyVersion);
+                update = true;
             }
         }
         return update;
@@ -18,6 +18,7 @@ package io.fabric8.updatebot.kind.maven;
 import de.pdark.decentxml.Document;
 import io.fabric8.updatebot.model.DependencyVersionChange;
 import io.fabric8.updatebot.support.DecentXmlHelper;
+import io.fabric8.updatebot.support.DocumentCache;
 import io.fabric8.utils.IOHelpers;
 import io.fabric8.utils.Objects;
 import org.slf4j.Logger;
@@ -35,12 +36,23 @@ public class PomUpdateStatus {
 
     private final File pom;
     private final Document doc;
+    private final DocumentCache documentCache;
     private boolean updated;
     private boolean rootPom;
+    private PomElementIndex index;
 
     public PomUpdateStatus(File pom, Document doc) {
+        this(pom, doc, null);
+    }
+
+    /**
+     * Creates a status for a document loaded from the given cache so that saving the pom only marks the
+     * document as modified in the cache
+     */
+    public PomUpdateStatus(File pom, Document doc, DocumentCache documentCache) {
         this.pom = pom;
         this.doc = doc;
+        this.documentCache = documentCache;
     }
 
     public static PomUpdateStatus createPomUpdateStatus(File file) throws IOException {
@@ -48,6 +60,10 @@ public class PomUpdateStatus {
         return new PomUpdateStatus(file, doc);
     }
 
+    public static PomUpdateStatus createPomUpdateStatus(File file, DocumentCache documentCache) throws IOException {
+        return new PomUpdateStatus(file, documentCache.getXml(file), documentCache);
+    }
+
     public boolean isRootPom() {
         return rootPom;
     }
@@ -80,6 +96,10 @@ public class PomUpdateStatus {
     public boolean saveIfChanged() throws IOException {
         if (updated) {
             LOG.info("Updating " + pom);
+            if (documentCache != null) {
+                documentCache.markDirty(pom);
+                return true;
+            }
             try {
                 IOHelpers.writeFully(pom, doc.toXML());
             } catch (Exception e) {
@@ -89,16 +109,26 @@ public class PomUpdateStatus {
         return updated;
     }
 
+    /**
+     * Returns the element index of this pom, creating it on first use so that all changes share a single tree walk
+     */
+    public PomElementIndex getIndex() {
+        if (index == null) {
+            index = new PomElementIndex(doc);
+        }
+        return index;
+    }
+
     public void updateVersions(List<DependencyVersionChange> changes, Map<String, String> propertyChanges) {
         for (DependencyVersionChange change : changes) {
             String scope = change.getScope();
             boolean lazyAdd = shouldLazyAdd(change);
             if (Objects.equal(MavenScopes.PLUGIN, scope)) {
-                if (PomHelper.updatePluginVersion(doc, change, propertyChanges, lazyAdd)) {
+                if (PomHelper.updatePluginVersion(getIndex(), change, propertyChanges, lazyAdd)) {
                     updated = true;
                 }
             } else {
-                if (PomHelper.updateDependencyVersion(doc, change, propertyChanges)) {
+                if (PomHelper.updateDependencyVersion(getIndex(), change, propertyChanges)) {
                     updated = true;
                 }
                 // TODO check for BOM / Parent change too!
@@ -107,7 +137,7 @@ public class PomUpdateStatus {
     }
 
     public void updateProperties(Map<String, String> propertyChanges) {
-        if (PomHelper.updateProperties(doc, propertyChanges)) {
+        if (PomHelper.updateProperties(getIndex(), propertyChanges)) {
             updated = true;
         }
 
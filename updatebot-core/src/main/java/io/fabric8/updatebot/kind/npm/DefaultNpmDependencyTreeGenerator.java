@@ -19,6 +19,7 @@ import io.fabric8.updatebot.Configuration;
 import io.fabric8.updatebot.commands.CommandContext;
 import io.fabric8.updatebot.support.FileDeleter;
 import io.fabric8.updatebot.support.ProcessHelper;
+import io.fabric8.updatebot.support.ToolScheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,11 +38,12 @@ public class DefaultNpmDependencyTreeGenerator implements NpmDependencyTreeGener
 
         Configuration configuration = context.getConfiguration();
         String npmBinary = configuration.getNpmCommand();
-        ProcessHelper.runCommandIgnoreOutput(dir, configuration.getNpmEnvironmentVariables(), npmBinary, "install");
-
         File outputFile = new File(dir, dependencyFileName);
         File errorFile = new File(dir, "npm-list-errors.log");
-        try (FileDeleter ignored = new FileDeleter(errorFile)) {
+        try (ToolScheduler.Lease ignored = configuration.getToolScheduler().acquire(ToolScheduler.NPM);
+             FileDeleter ignored2 = new FileDeleter(errorFile)) {
+            ProcessHelper.runCommandIgnoreOutput(dir, configuration.getNpmEnvironmentVariables(), npmBinary, "install");
+
             if (ProcessHelper.runCommand(dir, outputFile, errorFile, npmBinary, "list", "-json") != 0) {
                 context.warn(LOG, "Failed to generate dependencies file " + outputFile);
             } else {
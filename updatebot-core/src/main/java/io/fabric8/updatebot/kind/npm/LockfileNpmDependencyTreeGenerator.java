@@ -0,0 +1,187 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.kind.npm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.fabric8.updatebot.commands.CommandContext;
+import io.fabric8.updatebot.kind.npm.NpmLockfile.LockedPackage;
+import io.fabric8.updatebot.support.JsonNodes;
+import io.fabric8.updatebot.support.MarkupHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates the <code>npm list -json</code> style dependency tree from the <code>npm-shrinkwrap.json</code> or
+ * <code>package-lock.json</code> file so that we can check for version conflicts without running
+ * <code>npm install</code>.
+ * <p>
+ * Projects without a lockfile fall back to the {@link DefaultNpmDependencyTreeGenerator}
+ */
+public class LockfileNpmDependencyTreeGenerator implements NpmDependencyTreeGenerator {
+    public static final String[] LOCKFILE_NAMES = {"npm-shrinkwrap.json", "package-lock.json"};
+
+    private static final transient Logger LOG = LoggerFactory.getLogger(LockfileNpmDependencyTreeGenerator.class);
+    private static final String[] ROOT_DEPENDENCY_KEYS = {
+            NpmDependencyKinds.DEPENDENCIES, NpmDependencyKinds.DEV_DEPENDENCIES, "optionalDependencies"
+    };
+
+    private final NpmDependencyTreeGenerator fallback;
+
+    public LockfileNpmDependencyTreeGenerator() {
+        this(new DefaultNpmDependencyTreeGenerator());
+    }
+
+    public LockfileNpmDependencyTreeGenerator(NpmDependencyTreeGenerator fallback) {
+        this.fallback = fallback;
+    }
+
+    /**
+     * Returns the lockfile in the given directory or null if there is none
+     */
+    public static File findLockfile(File dir) {
+        for (String name : LOCKFILE_NAMES) {
+            File file = new File(dir, name);
+            if (file.isFile()) {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates the dependency tree for the given <code>package.json</code> and lockfile.
+     * <p>
+     * The versions in the <code>package.json</code> take precedence over the locked versions so that any
+     * version changes we have just made are taken into account; if a package which depends on a changed
+     * dependency does not accept the new version it keeps the locked version, which shows up as a conflict
+     */
+    public static ObjectNode createDependencyTree(JsonNode packageJson, JsonNode lockfileJson) {
+        NpmLockfile lockfile = NpmLockfile.parse(lockfileJson);
+        Map<String, String> rootRanges = new LinkedHashMap<>();
+        for (String dependencyKey : ROOT_DEPENDENCY_KEYS) {
+            JsonNode dependencies = packageJson.get(dependencyKey);
+            if (dependencies != null && dependencies.isObject()) {
+                Iterator<Map.Entry<String, JsonNode>> iter = dependencies.fields();
+                while (iter.hasNext()) {
+                    Map.Entry<String, JsonNode> entry = iter.next();
+                    if (entry.getValue().isTextual()) {
+                        rootRanges.put(entry.getKey(), entry.getValue().textValue());
+                    }
+                }
+            }
+        }
+        Map<String, String> rootVersions = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : rootRanges.entrySet()) {
+            String name = entry.getKey();
+            LockedPackage locked = lockfile.getPackage(NpmLockfile.childLocation(NpmLockfile.ROOT_LOCATION, name));
+            rootVersions.put(name, chooseVersion(locked != null ? locked.getVersion() : null, entry.getValue()));
+        }
+
+        ObjectNode answer = JsonNodeFactory.instance.objectNode();
+        putIfNotNull(answer, "name", JsonNodes.textValue(packageJson, "name"));
+        putIfNotNull(answer, "version", JsonNodes.textValue(packageJson, "version"));
+        ObjectNode dependencies = answer.putObject(NpmDependencyKinds.DEPENDENCIES);
+        Set<String> visited = new HashSet<>();
+        for (Map.Entry<String, String> entry : rootVersions.entrySet()) {
+            String name = entry.getKey();
+            ObjectNode node = dependencies.putObject(name);
+            putIfNotNull(node, "version", entry.getValue());
+            addRequirements(lockfile, rootVersions, NpmLockfile.childLocation(NpmLockfile.ROOT_LOCATION, name), node, visited);
+        }
+        return answer;
+    }
+
+    protected static void addRequirements(NpmLockfile lockfile, Map<String, String> rootVersions, String location, ObjectNode node, Set<String> visited) {
+        LockedPackage lockedPackage = lockfile.getPackage(location);
+        if (lockedPackage == null || lockedPackage.getRequires().isEmpty() || !visited.add(location)) {
+            return;
+        }
+        ObjectNode dependencies = node.putObject(NpmDependencyKinds.DEPENDENCIES);
+        for (Map.Entry<String, String> entry : lockedPackage.getRequires().entrySet()) {
+            String name = entry.getKey();
+            String range = entry.getValue();
+            String resolved = lockfile.resolve(location, name);
+            LockedPackage dependency = resolved != null ? lockfile.getPackage(resolved) : null;
+            String lockedVersion = dependency != null ? dependency.getVersion() : null;
+            String version;
+            String rootVersion = rootVersions.get(name);
+            if (rootVersion != null && NpmLockfile.childLocation(NpmLockfile.ROOT_LOCATION, name).equals(resolved)) {
+                // the shared copy may have been changed so only use it if it is still compatible
+                version = NpmSemver.satisfies(rootVersion, range) ? rootVersion : chooseVersion(lockedVersion, range);
+            } else {
+                version = chooseVersion(lockedVersion, range);
+            }
+            ObjectNode child = dependencies.putObject(name);
+            putIfNotNull(child, "version", version);
+            if (resolved != null) {
+                addRequirements(lockfile, rootVersions, resolved, child, visited);
+            }
+        }
+    }
+
+    /**
+     * Returns the locked version if it satisfies the range otherwise the version the range starts with
+     */
+    protected static String chooseVersion(String lockedVersion, String range) {
+        if (lockedVersion != null && NpmSemver.satisfies(lockedVersion, range)) {
+            return lockedVersion;
+        }
+        String answer = NpmSemver.baseVersion(range);
+        if (answer == null) {
+            answer = lockedVersion;
+        }
+        return answer;
+    }
+
+    private static void putIfNotNull(ObjectNode node, String field, String value) {
+        if (value != null) {
+            node.put(field, value);
+        }
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
+    @Override
+    public void generateDependencyTree(CommandContext context, String dependencyFileName) throws IOException {
+        File dir = context.getDir();
+        File lockfile = findLockfile(dir);
+        File packageJsonFile = new File(dir, "package.json");
+        if (lockfile == null || !packageJsonFile.isFile()) {
+            fallback.generateDependencyTree(context, dependencyFileName);
+            return;
+        }
+        context.info(LOG, "Generating dependency tree file " + dependencyFileName + " from " + lockfile.getName() + " in " + dir);
+
+        JsonNode packageJson = MarkupHelper.loadJson(packageJsonFile);
+        JsonNode lockfileJson = MarkupHelper.loadJson(lockfile);
+        File outputFile = new File(dir, dependencyFileName);
+        MarkupHelper.savePrettyJson(outputFile, createDependencyTree(packageJson, lockfileJson));
+        LOG.debug("Generate dependencies file " + outputFile);
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.kind.npm;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.fabric8.updatebot.kind.KindDependenciesCheck;
+import io.fabric8.updatebot.kind.npm.dependency.DependencyCheck;
+import io.fabric8.updatebot.kind.npm.dependency.DependencyInfo;
+import io.fabric8.updatebot.model.DependencyVersionChange;
+import io.fabric8.updatebot.repository.SourceChangesSnapshot.Change;
+import io.fabric8.updatebot.support.Digests;
+import io.fabric8.updatebot.support.MarkupHelper;
+import io.fabric8.updatebot.support.VersionHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of checking a set of npm version changes against a project which is stored in the work directory
+ * keyed by the digest of the <code>package.json</code>, the lockfile and the changes so that checking an
+ * unchanged project again does not need to generate the dependency tree
+ */
+public class NpmDependencyCheckSnapshot {
+    public static final String SNAPSHOT_DIR = "npm-checks";
+    private static final transient Logger LOG = LoggerFactory.getLogger(NpmDependencyCheckSnapshot.class);
+
+    private List<Change> validChanges = new ArrayList<>();
+    private List<Change> invalidChanges = new ArrayList<>();
+    private List<FailedCheck> failedChecks = new ArrayList<>();
+
+    public NpmDependencyCheckSnapshot() {
+    }
+
+    public NpmDependencyCheckSnapshot(KindDependenciesCheck check) {
+        for (DependencyVersionChange change : check.getValidChanges()) {
+            validChanges.add(new Change(change));
+        }
+        for (DependencyVersionChange change : check.getInvalidChanges()) {
+            invalidChanges.add(new Change(change));
+        }
+        for (Map.Entry<String, DependencyCheck> entry : check.getFailedChecks().entrySet()) {
+            failedChecks.add(new FailedCheck(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    /**
+     * Returns the key of the check of the given changes against the project in the given directory
+     * or null if the directory does not contain both a <code>package.json</code> and a lockfile; without a
+     * lockfile the resolved versions can change at any time so the results cannot be cached
+     */
+    public static String cacheKey(File dir, NpmDependencyTreeGenerator generator, List<DependencyVersionChange> changes) throws IOException {
+        File packageJson = new File(dir, "package.json");
+        File lockfile = LockfileNpmDependencyTreeGenerator.findLockfile(dir);
+        if (!packageJson.isFile() || lockfile == null) {
+            return null;
+        }
+        List<Change> list = new ArrayList<>();
+        for (DependencyVersionChange change : changes) {
+            list.add(new Change(change));
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        appendEntry(buffer, VersionHelper.updateBotVersion());
+        appendEntry(buffer, generator.getClass().getName());
+        appendEntry(buffer, Files.readAllBytes(packageJson.toPath()));
+        appendEntry(buffer, lockfile.getName());
+        appendEntry(buffer, Files.readAllBytes(lockfile.toPath()));
+        appendEntry(buffer, MarkupHelper.toJson(list));
+        return Digests.sha256(buffer.toByteArray());
+    }
+
+    private static void appendEntry(ByteArrayOutputStream buffer, String text) {
+        appendEntry(buffer, text != null ? text.getBytes(StandardCharsets.UTF_8) : new byte[0]);
+    }
+
+    private static void appendEntry(ByteArrayOutputStream buffer, byte[] data) {
+        buffer.write(data, 0, data.length);
+        buffer.write(0);
+    }
+
+    protected static File snapshotFile(File workDir, String key) {
+        return new File(new File(workDir, SNAPSHOT_DIR), key + ".json");
+    }
+
+    /**
+     * Loads the snapshot with the given key or returns null if there is no valid snapshot
+     */
+    public static NpmDependencyCheckSnapshot load(File workDir, String key) {
+        File file = snapshotFile(workDir, key);
+        if (file.isFile()) {
+            try {
+                return MarkupHelper.loadJson(file, new TypeReference<NpmDependencyCheckSnapshot>() {
+                });
+            } catch (IOException e) {
+                LOG.warn("Ignoring invalid npm dependency check file " + file + ": " + e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes this snapshot to the work directory using the given key
+     */
+    public void save(File workDir, String key) throws IOException {
+        File file = snapshotFile(workDir, key);
+        File parent = file.getParentFile();
+        parent.mkdirs();
+        File tmpFile = new File(parent, file.getName() + ".tmp");
+        MarkupHelper.savePrettyJson(tmpFile, this);
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public KindDependenciesCheck createKindDependenciesCheck() {
+        Map<String, DependencyCheck> checks = new LinkedHashMap<>();
+        for (FailedCheck failedCheck : failedChecks) {
+            checks.put(failedCheck.getDependency(), failedCheck.createDependencyCheck());
+        }
+        return new KindDependenciesCheck(createDependencyVersionChanges(validChanges), createDependencyVersionChanges(invalidChanges), checks);
+    }
+
+    private static List<DependencyVersionChange> createDependencyVersionChanges(List<Change> changes) {
+        List<DependencyVersionChange> answer = new ArrayList<>();
+        for (Change change : changes) {
+            answer.add(change.createDependencyVersionChange());
+        }
+        return answer;
+    }
+
+    @Override
+    public String toString() {
+        return "NpmDependencyCheckSnapshot{" +
+                "validChanges=" + validChanges.size() +
+                ", invalidChanges=" + invalidChanges.size() +
+                '}';
+    }
+
+    public List<Change> getValidChanges() {
+        return validChanges;
+    }
+
+    public void setValidChanges(List<Change> validChanges) {
+        this.validChanges = validChanges;
+    }
+
+    public List<Change> getInvalidChanges() {
+        return invalidChanges;
+    }
+
+    public void setInvalidChanges(List<Change> invalidChanges) {
+        this.invalidChanges = invalidChanges;
+    }
+
+    public List<FailedCheck> getFailedChecks() {
+        return failedChecks;
+    }
+
+    public void setFailedChecks(List<FailedCheck> failedChecks) {
+        this.failedChecks = failedChecks;
+    }
+
+    /**
+     * The serialized form of a {@link DependencyCheck}
+     */
+    public static class FailedCheck {
+        private String dependency;
+        private String version;
+        private String message;
+        private boolean valid;
+
+        public FailedCheck() {
+        }
+
+        public FailedCheck(String dependency, DependencyCheck check) {
+            this.dependency = dependency;
+            this.message = check.getMessage();
+            this.valid = check.isValid();
+            if (check.getDependencyInfo() != null) {
+                this.version = check.getVersion();
+            }
+        }
+
+        public DependencyCheck createDependencyCheck() {
+            DependencyInfo info = new DependencyInfo(dependency);
+            info.setVersion(version);
+            return new DependencyCheck(valid, message, info);
+        }
+
+        public String getDependency() {
+            return dependency;
+        }
+
+        public void setDependency(String dependency) {
+            this.dependency = dependency;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public void setVersion(String version) {
+            this.version = version;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+
+        public boolean isValid() {
+            return valid;
+        }
+
+        public void setValid(boolean valid) {
+            this.valid = valid;
+        }
+    }
+}
@@ -24,4 +24,12 @@ import java.io.IOException;
  */
 public interface NpmDependencyTreeGenerator {
     void generateDependencyTree(CommandContext context, String dependencyFileName) throws IOException;
+
+    /**
+     * Returns true if the tree only depends on the <code>package.json</code> and lockfile so that the results
+     * of checking it can be cached
+     */
+    default boolean isCacheable() {
+        return false;
+    }
 }
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.kind.npm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.fabric8.updatebot.support.JsonNodes;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Represents the installed packages described by a <code>package-lock.json</code> or
+ * <code>npm-shrinkwrap.json</code> file using either the v1 nested <code>dependencies</code> format
+ * or the v2/v3 flat <code>packages</code> format.
+ * <p>
+ * Packages are keyed by their install location such as <code>node_modules/foo/node_modules/bar</code>
+ * with the root project using the empty location.
+ */
+public class NpmLockfile {
+    public static final String ROOT_LOCATION = "";
+
+    private static final String NODE_MODULES = "node_modules/";
+    private static final String NESTED_NODE_MODULES = "/" + NODE_MODULES;
+
+    private final Map<String, LockedPackage> packages = new LinkedHashMap<>();
+
+    public static NpmLockfile parse(JsonNode tree) {
+        NpmLockfile answer = new NpmLockfile();
+        JsonNode packages = tree.get("packages");
+        if (packages != null && packages.isObject()) {
+            answer.parsePackages(packages);
+        } else {
+            answer.packages.put(ROOT_LOCATION, new LockedPackage(ROOT_LOCATION, JsonNodes.textValue(tree, "name"), JsonNodes.textValue(tree, "version")));
+            answer.parseDependencies(ROOT_LOCATION, tree.get("dependencies"));
+        }
+        return answer;
+    }
+
+    /**
+     * Returns the name of the package installed at the given location
+     */
+    public static String packageName(String location) {
+        int idx = location.lastIndexOf(NESTED_NODE_MODULES);
+        if (idx >= 0) {
+            return location.substring(idx + NESTED_NODE_MODULES.length());
+        }
+        if (location.startsWith(NODE_MODULES)) {
+            return location.substring(NODE_MODULES.length());
+        }
+        return location;
+    }
+
+    /**
+     * Returns the location of the package which contains the given location or null if this is the root
+     */
+    public static String parentLocation(String location) {
+        if (location.isEmpty()) {
+            return null;
+        }
+        int idx = location.lastIndexOf(NESTED_NODE_MODULES);
+        if (idx >= 0) {
+            return location.substring(0, idx);
+        }
+        return ROOT_LOCATION;
+    }
+
+    /**
+     * Returns the location a package of the given location would be installed into
+     */
+    public static String childLocation(String location, String name) {
+        if (location.isEmpty()) {
+            return NODE_MODULES + name;
+        }
+        return location + NESTED_NODE_MODULES + name;
+    }
+
+    /**
+     * Returns the location of the package with the given name which is visible from the given location
+     * using the node module resolution rules or null if it is not installed
+     */
+    public String resolve(String fromLocation, String name) {
+        String location = fromLocation;
+        while (location != null) {
+            String answer = childLocation(location, name);
+            if (packages.containsKey(answer)) {
+                return answer;
+            }
+            location = parentLocation(location);
+        }
+        return null;
+    }
+
+    public LockedPackage getPackage(String location) {
+        return packages.get(location);
+    }
+
+    public LockedPackage getRootPackage() {
+        return packages.get(ROOT_LOCATION);
+    }
+
+    public Map<String, LockedPackage> getPackages() {
+        return packages;
+    }
+
+    protected void parsePackages(JsonNode packagesNode) {
+        Iterator<Map.Entry<String, JsonNode>> iter = packagesNode.fields();
+        while (iter.hasNext()) {
+            Map.Entry<String, JsonNode> entry = iter.next();
+            String location = entry.getKey();
+            JsonNode properties = entry.getValue();
+            JsonNode link = properties.get("link");
+            if (link != null && link.asBoolean()) {
+                continue;
+            }
+            String name = JsonNodes.textValue(properties, "name");
+            if (name == null) {
+                name = packageName(location);
+            }
+            LockedPackage lockedPackage = new LockedPackage(location, name, JsonNodes.textValue(properties, "version"));
+            lockedPackage.addRequires(properties.get("dependencies"));
+            lockedPackage.addRequires(properties.get("optionalDependencies"));
+            if (location.isEmpty()) {
+                lockedPackage.addRequires(properties.get("devDependencies"));
+            }
+            packages.put(location, lockedPackage);
+        }
+    }
+
+    protected void parseDependencies(String parentLocation, JsonNode dependencies) {
+        if (dependencies == null || !dependencies.isObject()) {
+            return;
+        }
+        Iterator<Map.Entry<String, JsonNode>> iter = dependencies.fields();
+        while (iter.hasNext()) {
+            Map.Entry<String, JsonNode> entry = iter.next();
+            String name = entry.getKey();
+            JsonNode properties = entry.getValue();
+            String location = childLocation(parentLocation, name);
+            LockedPackage lockedPackage = new LockedPackage(location, name, JsonNodes.textValue(properties, "version"));
+            lockedPackage.addRequires(properties.get("requires"));
+            packages.put(location, lockedPackage);
+            parseDependencies(location, properties.get("dependencies"));
+        }
+    }
+
+    /**
+     * A package installed at a location along with the version ranges it requires
+     */
+    public static class LockedPackage {
+        private final String location;
+        private final String name;
+        private final String version;
+        private final Map<String, String> requires = new LinkedHashMap<>();
+
+        public LockedPackage(String location, String name, String version) {
+            this.location = location;
+            this.name = name;
+            this.version = version;
+        }
+
+        @Override
+        public String toString() {
+            return "LockedPackage{" +
+                    "location='" + location + '\'' +
+                    ", version='" + version + '\'' +
+                    '}';
+        }
+
+        protected void addRequires(JsonNode node) {
+            if (node != null && node.isObject()) {
+                Iterator<Map.Entry<String, JsonNode>> iter = node.fields();
+                while (iter.hasNext()) {
+                    Map.Entry<String, JsonNode> entry = iter.next();
+                    JsonNode value = entry.getValue();
+                    if (value.isTextual()) {
+                        requires.put(entry.getKey(), value.textValue());
+                    }
+                }
+            }
+        }
+
+        public String getLocation() {
+            return location;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public Map<String, String> getRequires() {
+            return requires;
+        }
+    }
+}
@@ -0,0 +1,366 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.kind.npm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A minimal implementation of the npm semantic version range syntax (<code>^</code>, <code>~</code>, comparators,
+ * x-ranges, hyphen ranges and <code>||</code>) used to work out which package versions npm would install.
+ * <p>
+ * Ranges which are not version ranges (such as git URLs, tags or file paths) are treated as matching any version
+ */
+public class NpmSemver {
+    private static final Pattern VERSION_PATTERN = Pattern.compile("^v?(\\d+|[xX*])(?:\\.(\\d+|[xX*]))?(?:\\.(\\d+|[xX*]))?(?:-([0-9A-Za-z.-]+))?(?:\\+[0-9A-Za-z.-]+)?$");
+    private static final Pattern COMPARATOR_PATTERN = Pattern.compile("^(\\^|~>?|>=|<=|>|<|=)?\\s*(.*)$");
+
+    /**
+     * Returns true if the version satisfies the range. Like npm a pre release version only satisfies a comparator set
+     * if one of its comparators is a pre release of the same <code>major.minor.patch</code> version
+     */
+    public static boolean satisfies(String version, String range) {
+        Version v = Version.parse(version);
+        if (v == null || v.isPartial()) {
+            return range == null || range.trim().equals(version);
+        }
+        if (range == null) {
+            return true;
+        }
+        List<List<Comparator>> sets = parseRange(range);
+        if (sets == null) {
+            return true;
+        }
+        for (List<Comparator> set : sets) {
+            boolean matches = v.preRelease.isEmpty() || allowsPreRelease(set, v);
+            for (Comparator comparator : set) {
+                if (!comparator.test(v)) {
+                    matches = false;
+                    break;
+                }
+            }
+            if (matches) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean allowsPreRelease(List<Comparator> set, Version v) {
+        for (Comparator comparator : set) {
+            Version version = comparator.version;
+            if (!version.preRelease.isEmpty() && version.major == v.major && version.minor == v.minor && version.patch == v.patch) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the lowest version mentioned in the range such as <code>1.2.3</code> for <code>^1.2.3</code>
+     * or null if the range does not start with a version
+     */
+    public static String baseVersion(String range) {
+        if (range == null) {
+            return null;
+        }
+        String text = range.trim();
+        int idx = text.indexOf("||");
+        if (idx >= 0) {
+            text = text.substring(0, idx).trim();
+        }
+        String[] tokens = text.split("\\s+");
+        if (tokens.length == 0) {
+            return null;
+        }
+        Matcher matcher = COMPARATOR_PATTERN.matcher(tokens[0]);
+        if (matcher.matches()) {
+            Version version = Version.parse(matcher.group(2));
+            if (version != null && !version.isPartial()) {
+                return version.toString();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parses the range into a list of comparator sets or returns null if this is not a version range
+     */
+    protected static List<List<Comparator>> parseRange(String range) {
+        List<List<Comparator>> answer = new ArrayList<>();
+        for (String part : range.split("\\|\\|")) {
+            List<Comparator> set = parseComparatorSet(part.trim());
+            if (set == null) {
+                return null;
+            }
+            answer.add(set);
+        }
+        return answer;
+    }
+
+    protected static List<Comparator> parseComparatorSet(String text) {
+        List<Comparator> answer = new ArrayList<>();
+        if (text.isEmpty() || text.equals("*") || text.equalsIgnoreCase("x") || text.equals("latest")) {
+            return answer;
+        }
+        int hyphen = text.indexOf(" - ");
+        if (hyphen > 0) {
+            Version from = Version.parse(text.substring(0, hyphen).trim());
+            Version to = Version.parse(text.substring(hyphen + 3).trim());
+            if (from == null || to == null) {
+                return null;
+            }
+            answer.add(new Comparator(">=", from.fill()));
+            if (to.isPartial()) {
+                answer.add(new Comparator("<", to.nextUpper()));
+            } else {
+                answer.add(new Comparator("<=", to));
+            }
+            return answer;
+        }
+        // join any operators separated from their version by whitespace
+        List<String> tokens = new ArrayList<>();
+        String pending = "";
+        for (String token : text.split("\\s+")) {
+            if (token.matches("\\^|~>?|>=|<=|>|<|=")) {
+                pending += token;
+            } else {
+                tokens.add(pending + token);
+                pending = "";
+            }
+        }
+        for (String token : tokens) {
+            Matcher matcher = COMPARATOR_PATTERN.matcher(token);
+            if (!matcher.matches()) {
+                return null;
+            }
+            String operator = matcher.group(1);
+            Version version = Version.parse(matcher.group(2));
+            if (version == null) {
+                return null;
+            }
+            if (!addComparators(answer, operator == null ? "" : operator, version)) {
+                return null;
+            }
+        }
+        return answer;
+    }
+
+    private static boolean addComparators(List<Comparator> answer, String operator, Version version) {
+        if (version.major < 0) {
+            // * or x matches anything unless its an exclusive bound
+            if (operator.equals("<") || operator.equals(">")) {
+                answer.add(new Comparator("<", new Version(0, 0, 0, "")));
+            }
+            return true;
+        }
+        switch (operator) {
+            case "^":
+                answer.add(new Comparator(">=", version.fill()));
+                if (version.major > 0 || version.minor < 0) {
+                    answer.add(new Comparator("<", new Version(version.major + 1, 0, 0, "")));
+                } else if (version.minor > 0 || version.patch < 0) {
+                    answer.add(new Comparator("<", new Version(0, version.minor + 1, 0, "")));
+                } else {
+                    answer.add(new Comparator("<", new Version(0, 0, version.patch + 1, "")));
+                }
+                return true;
+            case "~":
+            case "~>":
+                answer.add(new Comparator(">=", version.fill()));
+                if (version.minor < 0) {
+                    answer.add(new Comparator("<", new Version(version.major + 1, 0, 0, "")));
+                } else {
+                    answer.add(new Comparator("<", new Version(version.major, version.minor + 1, 0, "")));
+                }
+                return true;
+            case ">":
+                if (version.isPartial()) {
+                    answer.add(new Comparator(">=", version.nextUpper()));
+                } else {
+                    answer.add(new Comparator(">", version));
+                }
+                return true;
+            case "<=":
+                if (version.isPartial()) {
+                    answer.add(new Comparator("<", version.nextUpper()));
+                } else {
+                    answer.add(new Comparator("<=", version));
+                }
+                return true;
+            case ">=":
+            case "<":
+                answer.add(new Comparator(operator, version.fill()));
+                return true;
+            default:
+                if (version.isPartial()) {
+                    answer.add(new Comparator(">=", version.fill()));
+                    answer.add(new Comparator("<", version.nextUpper()));
+                } else {
+                    answer.add(new Comparator("=", version));
+                }
+                return true;
+        }
+    }
+
+    protected static class Comparator {
+        private final String operator;
+        private final Version version;
+
+        Comparator(String operator, Version version) {
+            this.operator = operator;
+            this.version = version;
+        }
+
+        boolean test(Version v) {
+            int compare = v.compareTo(version);
+            switch (operator) {
+                case ">=":
+                    return compare >= 0;
+                case ">":
+                    return compare > 0;
+                case "<=":
+                    return compare <= 0;
+                case "<":
+                    return compare < 0;
+                default:
+                    return compare == 0;
+            }
+        }
+    }
+
+    /**
+     * A version where any missing or wildcard parts are negative
+     */
+    protected static class Version implements Comparable<Version> {
+        private final int major;
+        private final int minor;
+        private final int patch;
+        private final String preRelease;
+
+        Version(int major, int minor, int patch, String preRelease) {
+            this.major = major;
+            this.minor = minor;
+            this.patch = patch;
+            this.preRelease = preRelease;
+        }
+
+        static Version parse(String text) {
+            if (text == null) {
+                return null;
+            }
+            Matcher matcher = VERSION_PATTERN.matcher(text.trim());
+            if (!matcher.matches()) {
+                return null;
+            }
+            int major = part(matcher.group(1));
+            int minor = major < 0 ? -1 : part(matcher.group(2));
+            int patch = minor < 0 ? -1 : part(matcher.group(3));
+            String preRelease = matcher.group(4);
+            return new Version(major, minor, patch, preRelease != null ? preRelease : "");
+        }
+
+        private static int part(String text) {
+            if (text == null || text.equalsIgnoreCase("x") || text.equals("*")) {
+                return -1;
+            }
+            try {
+                return Integer.parseInt(text);
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        boolean isPartial() {
+            return major < 0 || minor < 0 || patch < 0;
+        }
+
+        /**
+         * Returns this version with any missing parts set to zero
+         */
+        Version fill() {
+            return new Version(Math.max(major, 0), Math.max(minor, 0), Math.max(patch, 0), preRelease);
+        }
+
+        /**
+         * Returns the first version after all the versions matching this partial version
+         */
+        Version nextUpper() {
+            if (minor < 0) {
+                return new Version(major + 1, 0, 0, "");
+            } else if (patch < 0) {
+                return new Version(major, minor + 1, 0, "");
+            }
+            return new Version(major, minor, patch + 1, "");
+        }
+
+        @Override
+        public int compareTo(Version that) {
+            int answer = Integer.compare(major, that.major);
+            if (answer == 0) {
+                answer = Integer.compare(minor, that.minor);
+            }
+            if (answer == 0) {
+                answer = Integer.compare(patch, that.patch);
+            }
+            if (answer == 0) {
+                answer = comparePreRelease(preRelease, that.preRelease);
+            }
+            return answer;
+        }
+
+        private static int comparePreRelease(String a, String b) {
+            if (a.equals(b)) {
+                return 0;
+            }
+            // a release is greater than any pre release
+            if (a.isEmpty()) {
+                return 1;
+            }
+            if (b.isEmpty()) {
+                return -1;
+            }
+            String[] as = a.split("\\.");
+            String[] bs = b.split("\\.");
+            for (int i = 0; i < Math.min(as.length, bs.length); i++) {
+                boolean aNumeric = as[i].matches("\\d+");
+                boolean bNumeric = bs[i].matches("\\d+");
+                int answer;
+                if (aNumeric && bNumeric) {
+                    answer = Long.compare(Long.parseLong(as[i]), Long.parseLong(bs[i]));
+                } else if (aNumeric) {
+                    answer = -1;
+                } else if (bNumeric) {
+                    answer = 1;
+                } else {
+                    answer = as[i].compareTo(bs[i]);
+                }
+                if (answer != 0) {
+                    return answer;
+                }
+            }
+            return Integer.compare(as.length, bs.length);
+        }
+
+        @Override
+        public String toString() {
+            String answer = major + "." + minor + "." + patch;
+            return preRelease.isEmpty() ? answer : answer + "-" + preRelease;
+        }
+    }
+}
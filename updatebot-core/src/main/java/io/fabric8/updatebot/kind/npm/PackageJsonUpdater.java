@@ -29,12 +29,13 @@ import io.fabric8.updatebot.model.Dependencies;
 import io.fabric8.updatebot.model.DependencySet;
 import io.fabric8.updatebot.model.DependencyVersionChange;
 import io.fabric8.updatebot.model.NpmDependencies;
+import io.fabric8.updatebot.support.DocumentCache;
 import io.fabric8.updatebot.support.FileDeleter;
-import io.fabric8.updatebot.support.FileHelper;
 import io.fabric8.updatebot.support.JsonNodes;
-import io.fabric8.updatebot.support.MarkupHelper;
 import io.fabric8.updatebot.support.ProcessHelper;
 import io.fabric8.updatebot.support.Strings;
+import io.fabric8.updatebot.support.ToolScheduler;
+import io.fabric8.updatebot.support.Toolchain;
 import io.fabric8.utils.Files;
 import io.fabric8.utils.Filter;
 import io.fabric8.utils.Objects;
@@ -45,8 +46,11 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 
 /**
@@ -57,14 +61,14 @@ public class PackageJsonUpdater implements Updater {
 
     @Override
     public boolean isApplicable(CommandContext context) {
-        boolean answer = FileHelper.isFile(context.file("package.json"));
+        boolean answer = context.getManifestIndex().hasManifest("package.json");
         if (answer) {
             // lets verify we have a npm install
             Configuration configuration = context.getConfiguration();
             String npmCommand = configuration.getNpmCommand();
-            int returnCode = ProcessHelper.runCommandIgnoreOutput(context.getDir(), configuration.getNpmEnvironmentVariables(), npmCommand, "-v");
-            if (returnCode != 0) {
-                context.warn(LOG, "Could not invoke NodeJS!. Command failed: " + npmCommand + " -v => " + returnCode);
+            Toolchain toolchain = configuration.getToolchains().getToolchain(context.getDir(), configuration.getNpmEnvironmentVariables(), npmCommand, "-v");
+            if (!toolchain.isAvailable()) {
+                context.warn(LOG, "Could not invoke NodeJS!. Command failed: " + npmCommand + " -v");
                 context.warn(LOG, "Please verify you have `npm` on your PATH or you have configured NodeJS property");
                 return false;
             }
@@ -72,41 +76,59 @@ public class PackageJsonUpdater implements Updater {
         return answer;
     }
 
-    protected boolean pushVersions(PushVersionChangesContext context) throws IOException {
+    /**
+     * Applies all the version changes to the cached <code>package.json</code> in a single pass over the
+     * dependency sections without writing it, returning the contexts which changed the file
+     */
+    protected Set<PushVersionChangesContext> applyVersionChanges(CommandContext context, List<PushVersionChangesContext> changeContexts) throws IOException {
+        Set<PushVersionChangesContext> answer = new LinkedHashSet<>();
+        Map<String, PushVersionChangesContext> changesByName = new LinkedHashMap<>();
+        for (PushVersionChangesContext changeContext : changeContexts) {
+            changesByName.put(changeContext.getName(), changeContext);
+        }
         File file = context.file("package.json");
-        JsonNode tree = MarkupHelper.loadJson(file);
-        boolean answer = false;
+        DocumentCache documentCache = context.getDocumentCache();
+        JsonNode tree = documentCache.getJson(file);
         for (String dependencyKey : NpmDependencyKinds.DEPENDENCY_KEYS) {
             JsonNode dependencies = tree.get(dependencyKey);
             if (dependencies instanceof ObjectNode) {
                 ObjectNode objectNode = (ObjectNode) dependencies;
-                if (doPushVersionChange(dependencyKey, objectNode, context)) {
-                    answer = true;
+                for (PushVersionChangesContext changeContext : changesByName.values()) {
+                    if (doPushVersionChange(dependencyKey, objectNode, changeContext)) {
+                        answer.add(changeContext);
+                    }
                 }
             }
         }
-        if (answer) {
-            MarkupHelper.savePrettyJson(file, tree);
-            context.updatedFile(file);
+        if (!answer.isEmpty()) {
+            documentCache.markDirty(file);
+            for (PushVersionChangesContext changeContext : answer) {
+                changeContext.updatedFile(file);
+            }
         }
         return answer;
     }
 
     @Override
     public boolean pushVersions(CommandContext parentContext, List<DependencyVersionChange> changes) throws IOException {
-        boolean answer = false;
-        if (isApplicable(parentContext)) {
-            for (DependencyVersionChange step : changes) {
-                PushVersionChangesContext context = new PushVersionChangesContext(parentContext, step);
-                boolean updated = pushVersions(context);
-                if (updated) {
-                    answer = true;
-                } else {
-                    parentContext.removeChild(context);
-                }
+        if (!isApplicable(parentContext)) {
+            return false;
+        }
+        List<PushVersionChangesContext> changeContexts = new ArrayList<>();
+        for (DependencyVersionChange step : changes) {
+            changeContexts.add(new PushVersionChangesContext(parentContext, step));
+        }
+        Set<PushVersionChangesContext> updated = applyVersionChanges(parentContext, changeContexts);
+        for (PushVersionChangesContext changeContext : changeContexts) {
+            if (!updated.contains(changeContext)) {
+                parentContext.removeChild(changeContext);
             }
         }
-        return answer;
+        if (updated.isEmpty()) {
+            return false;
+        }
+        parentContext.flushDocuments();
+        return true;
     }
 
     /**
@@ -136,55 +158,73 @@ public class PackageJsonUpdater implements Updater {
     }
 
     protected JsonNode getPackageJsonTree(CommandContext context) {
-        return getJsonFile(context, "package.json");
-    }
-
-    protected JsonNode getJsonFile(CommandContext context, String fileName) {
-        JsonNode tree = null;
-        File file = context.file(fileName);
+        File file = context.file("package.json");
         if (Files.isFile(file)) {
             try {
-                tree = MarkupHelper.loadJson(file);
+                return context.getDocumentCache().getJson(file);
             } catch (IOException e) {
                 LOG.warn("Failed to parse JSON " + file + ". " + e, e);
             }
         }
-        return tree;
+        return null;
     }
 
     @Override
     public KindDependenciesCheck checkDependencies(CommandContext context, List<DependencyVersionChange> changes) throws IOException {
+        NpmDependencyTreeGenerator generator = context.getConfiguration().getNpmDependencyTreeGenerator();
+        File workDir = context.getConfiguration().getWorkDirectory();
+        String cacheKey = null;
+        if (generator.isCacheable()) {
+            cacheKey = NpmDependencyCheckSnapshot.cacheKey(context.getDir(), generator, changes);
+            if (cacheKey != null) {
+                NpmDependencyCheckSnapshot snapshot = NpmDependencyCheckSnapshot.load(workDir, cacheKey);
+                if (snapshot != null) {
+                    LOG.debug("Reusing the npm dependency check " + cacheKey + " for " + context.getDir());
+                    return snapshot.createKindDependenciesCheck();
+                }
+            }
+        }
+
         List<DependencyVersionChange> validChanges = new ArrayList<>();
         List<DependencyVersionChange> invalidChanges = new ArrayList<>();
         Map<String, DependencyCheck> failedChecks = new TreeMap<>();
 
         String dependencyFileName = ".dependency-tree.json";
-        JsonNode json = null;
+        DependencyTree dependencyTree = null;
         File file = new File(context.getDir(), dependencyFileName);
         try (FileDeleter ignore = new FileDeleter(file)) {
             generateDependencyTree(context, dependencyFileName);
-            json = getJsonFile(context, dependencyFileName);
+            if (Files.isFile(file)) {
+                dependencyTree = DependencyTree.parseTree(file);
+            }
         } catch (IOException e) {
             LOG.warn("Caught " + e, e);
         }
-        if (json != null) {
-            DependencyTree dependencyTree = DependencyTree.parseTree(json);
-            for (DependencyVersionChange change : changes) {
-                DependencyCheck dependencyCheck = dependencyTree.dependencyCheck(change.getDependency());
-                if (dependencyCheck.isValid()) {
-                    validChanges.add(change);
-                } else {
-                    invalidChanges.add(change);
-                    failedChecks.put(change.getDependency(), dependencyCheck);
-                }
+        if (dependencyTree == null) {
+            return new KindDependenciesCheck(validChanges, invalidChanges, failedChecks);
+        }
+        for (DependencyVersionChange change : changes) {
+            DependencyCheck dependencyCheck = dependencyTree.dependencyCheck(change.getDependency());
+            if (dependencyCheck.isValid()) {
+                validChanges.add(change);
+            } else {
+                invalidChanges.add(change);
+                failedChecks.put(change.getDependency(), dependencyCheck);
+            }
+        }
+        KindDependenciesCheck answer = new KindDependenciesCheck(validChanges, invalidChanges, failedChecks);
+        if (cacheKey != null) {
+            try {
+                new NpmDependencyCheckSnapshot(answer).save(workDir, cacheKey);
+            } catch (IOException e) {
+                LOG.warn("Failed to save the npm dependency check for " + context.getDir() + ": " + e, e);
             }
         }
-        return new KindDependenciesCheck(validChanges, invalidChanges, failedChecks);
+        return answer;
     }
 
     protected void generateDependencyTree(CommandContext context, String dependencyFileName) throws IOException {
         context.getConfiguration().getNpmDependencyTreeGenerator().generateDependencyTree(context, dependencyFileName);
-
     }
 
 
@@ -225,7 +265,18 @@ public class PackageJsonUpdater implements Updater {
     @Override
     public boolean pullVersions(CommandContext context) throws IOException {
         File dir = context.getRepository().getDir();
-        return ProcessHelper.runCommandAndLogOutput(context.getConfiguration(), LOG, dir, "ncu", "--upgrade");
+        Toolchain ncu = context.getConfiguration().getToolchains().getToolchain(dir, null, "ncu", "--version");
+        if (!ncu.isAvailable()) {
+            context.warn(LOG, "Could not invoke `ncu`. Please verify you have npm-check-updates installed on your PATH");
+            return false;
+        }
+        try (ToolScheduler.Lease ignored = context.getConfiguration().getToolScheduler().acquire(ToolScheduler.NPM)) {
+            if (!ProcessHelper.runCommandAndLogOutput(context.getConfiguration(), LOG, dir, "ncu", "--upgrade")) {
+                return false;
+            }
+        }
+        context.updatedFile(new File(dir, "package.json"));
+        return true;
     }
 
 
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.kind.npm.dependency;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.fabric8.updatebot.kind.npm.NpmDependencyKinds.DEPENDENCY_KEYS;
+
+/**
+ * A compact graph of the dependencies in the output of <code>npm list -json</code> which is loaded with a streaming
+ * parser so that large dependency trees do not need to be held in memory.
+ * <p>
+ * Package names and versions are interned into integer ids and each link from a parent package to the version of
+ * a child package is stored in primitive arrays
+ */
+public class DependencyGraph {
+    public static final int NONE = -1;
+
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private final Map<String, Integer> versionIds = new HashMap<>();
+    private String[] names = new String[64];
+    private String[] versions = new String[64];
+    private int[] directVersions = new int[64];
+    private int nameCount;
+    private int versionCount;
+
+    private int[] linkParents = new int[256];
+    private int[] linkChildren = new int[256];
+    private int[] linkVersions = new int[256];
+    private byte[] linkKinds = new byte[256];
+    private int linkCount;
+
+    // the links ordered by child which are created on demand
+    private int[] childOffsets;
+    private int[] childLinks;
+
+    /**
+     * Parses the dependency tree from the given parser which should be positioned before or on the root object
+     */
+    public static DependencyGraph parse(JsonParser parser) throws IOException {
+        DependencyGraph graph = new DependencyGraph();
+        JsonToken token = parser.currentToken();
+        if (token == null) {
+            token = parser.nextToken();
+        }
+        if (token == JsonToken.START_OBJECT) {
+            graph.parseObject(parser, NONE, NONE);
+        }
+        return graph;
+    }
+
+    /**
+     * Parses the fields of the current object for the package with the given id, whose version is stored into
+     * the given link when it is a transitive dependency
+     */
+    protected void parseObject(JsonParser parser, int packageId, int link) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (packageId != NONE && "version".equals(field)) {
+                if (value == JsonToken.VALUE_STRING) {
+                    int versionId = versionId(parser.getText());
+                    if (link == NONE) {
+                        directVersions[packageId] = versionId;
+                    } else {
+                        linkVersions[link] = versionId;
+                    }
+                }
+            } else if (value == JsonToken.START_OBJECT && dependencyKeyIndex(field) != NONE) {
+                parseDependencies(parser, packageId, dependencyKeyIndex(field));
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    protected void parseDependencies(JsonParser parser, int parentId, int kind) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            int childId = nameId(parser.getCurrentName());
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            int link = NONE;
+            if (parentId != NONE) {
+                link = addLink(parentId, childId, kind);
+            }
+            parseObject(parser, childId, link);
+        }
+    }
+
+    private static int dependencyKeyIndex(String field) {
+        for (int i = 0; i < DEPENDENCY_KEYS.length; i++) {
+            if (DEPENDENCY_KEYS[i].equals(field)) {
+                return i;
+            }
+        }
+        return NONE;
+    }
+
+    protected int nameId(String name) {
+        Integer answer = nameIds.get(name);
+        if (answer == null) {
+            answer = nameCount++;
+            if (answer == names.length) {
+                names = Arrays.copyOf(names, answer * 2);
+                directVersions = Arrays.copyOf(directVersions, answer * 2);
+            }
+            names[answer] = name;
+            directVersions[answer] = NONE;
+            nameIds.put(name, answer);
+        }
+        return answer;
+    }
+
+    protected int versionId(String version) {
+        Integer answer = versionIds.get(version);
+        if (answer == null) {
+            answer = versionCount++;
+            if (answer == versions.length) {
+                versions = Arrays.copyOf(versions, answer * 2);
+            }
+            versions[answer] = version;
+            versionIds.put(version, answer);
+        }
+        return answer;
+    }
+
+    protected int addLink(int parentId, int childId, int kind) {
+        int answer = linkCount++;
+        if (answer == linkParents.length) {
+            linkParents = Arrays.copyOf(linkParents, answer * 2);
+            linkChildren = Arrays.copyOf(linkChildren, answer * 2);
+            linkVersions = Arrays.copyOf(linkVersions, answer * 2);
+            linkKinds = Arrays.copyOf(linkKinds, answer * 2);
+        }
+        linkParents[answer] = parentId;
+        linkChildren[answer] = childId;
+        linkVersions[answer] = NONE;
+        linkKinds[answer] = (byte) kind;
+        childOffsets = null;
+        return answer;
+    }
+
+    /**
+     * Indexes the links by child using a counting sort so that the links of each child stay in parse order
+     */
+    protected void indexLinks() {
+        if (childOffsets != null) {
+            return;
+        }
+        int[] offsets = new int[nameCount + 1];
+        for (int i = 0; i < linkCount; i++) {
+            offsets[linkChildren[i] + 1]++;
+        }
+        for (int i = 0; i < nameCount; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] positions = Arrays.copyOf(offsets, nameCount);
+        int[] links = new int[linkCount];
+        for (int i = 0; i < linkCount; i++) {
+            links[positions[linkChildren[i]]++] = i;
+        }
+        childLinks = links;
+        childOffsets = offsets;
+    }
+
+    /**
+     * Returns the id of the given package or {@link #NONE} if it is not in the graph
+     */
+    public int getPackageId(String name) {
+        Integer answer = nameIds.get(name);
+        return answer != null ? answer : NONE;
+    }
+
+    public String getName(int packageId) {
+        return names[packageId];
+    }
+
+    /**
+     * Returns the version of the package if its a direct dependency or null
+     */
+    public String getDirectVersion(int packageId) {
+        int versionId = directVersions[packageId];
+        return versionId != NONE ? versions[versionId] : null;
+    }
+
+    /**
+     * Returns the ids of the links to the given package in the order they were parsed
+     */
+    public int[] getLinksTo(int packageId) {
+        indexLinks();
+        return Arrays.copyOfRange(childLinks, childOffsets[packageId], childOffsets[packageId + 1]);
+    }
+
+    public int getLinkParent(int link) {
+        return linkParents[link];
+    }
+
+    /**
+     * Returns the version of the child package used by the link or null if the version was not specified
+     */
+    public String getLinkVersion(int link) {
+        int versionId = linkVersions[link];
+        return versionId != NONE ? versions[versionId] : null;
+    }
+
+    /**
+     * Returns the kind of dependency of the link as per {@link io.fabric8.updatebot.kind.npm.NpmDependencyKinds}
+     */
+    public String getLinkKind(int link) {
+        return DEPENDENCY_KEYS[linkKinds[link]];
+    }
+
+    public int getPackageCount() {
+        return nameCount;
+    }
+
+    public int getLinkCount() {
+        return linkCount;
+    }
+}
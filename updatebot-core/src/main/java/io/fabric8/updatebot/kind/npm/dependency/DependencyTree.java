@@ -15,46 +15,40 @@
  */
 package io.fabric8.updatebot.kind.npm.dependency;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import io.fabric8.updatebot.support.JsonNodes;
 
-import java.util.Iterator;
-import java.util.LinkedHashMap;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
 
-import static io.fabric8.updatebot.kind.npm.NpmDependencyKinds.DEPENDENCY_KEYS;
-
 /**
  */
 public class DependencyTree {
-    private Map<String, DependencyInfo> dependencies = new LinkedHashMap<>();
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final DependencyGraph graph;
+
+    public DependencyTree(DependencyGraph graph) {
+        this.graph = graph;
+    }
 
     public static DependencyTree parseTree(JsonNode tree) {
-        DependencyTree dependencyTree = new DependencyTree();
-        dependencyTree.parse(tree, null);
-        return dependencyTree;
+        try (JsonParser parser = tree.traverse()) {
+            return new DependencyTree(DependencyGraph.parse(parser));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to parse the dependency tree: " + e, e);
+        }
     }
 
-    protected void parse(JsonNode tree, DependencyInfo parent) {
-        for (String dependencyKey : DEPENDENCY_KEYS) {
-            JsonNode deps = tree.get(dependencyKey);
-            if (deps instanceof ObjectNode) {
-                ObjectNode objectNode = (ObjectNode) deps;
-                Iterator<String> iter = objectNode.fieldNames();
-                while (iter.hasNext()) {
-                    String field = iter.next();
-                    JsonNode properties = objectNode.get(field);
-                    String version = JsonNodes.textValue(properties, "version");
-                    DependencyInfo dependencyInfo = getOrCreateDependencyInfo(field);
-                    if (parent == null) {
-                        dependencyInfo.setVersion(version);
-                    } else {
-                        dependencyInfo.addDependency(parent, version, dependencyKey);
-                    }
-                    parse(properties, dependencyInfo);
-                }
-            }
+    /**
+     * Parses the dependency tree by streaming the given file rather than loading it into memory
+     */
+    public static DependencyTree parseTree(File file) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(file)) {
+            return new DependencyTree(DependencyGraph.parse(parser));
         }
     }
 
@@ -66,17 +60,32 @@ public class DependencyTree {
         return info.dependencyCheck();
     }
 
-    protected DependencyInfo getOrCreateDependencyInfo(String dependency) {
-        DependencyInfo answer = getDependencyInfo(dependency);
-        if (answer == null) {
-            answer = new DependencyInfo(dependency);
-            dependencies.put(dependency, answer);
+    /**
+     * Returns the information about the given dependency and the packages which depend on it
+     * or null if the dependency is not in the tree
+     */
+    public DependencyInfo getDependencyInfo(String dependency) {
+        int packageId = graph.getPackageId(dependency);
+        if (packageId == DependencyGraph.NONE) {
+            return null;
+        }
+        DependencyInfo answer = createDependencyInfo(packageId);
+        Map<Integer, DependencyInfo> parents = new HashMap<>();
+        for (int link : graph.getLinksTo(packageId)) {
+            int parentId = graph.getLinkParent(link);
+            DependencyInfo parent = parents.computeIfAbsent(parentId, this::createDependencyInfo);
+            answer.addDependency(parent, graph.getLinkVersion(link), graph.getLinkKind(link));
         }
         return answer;
+    }
 
+    protected DependencyInfo createDependencyInfo(int packageId) {
+        DependencyInfo answer = new DependencyInfo(graph.getName(packageId));
+        answer.setVersion(graph.getDirectVersion(packageId));
+        return answer;
     }
 
-    public DependencyInfo getDependencyInfo(String dependency) {
-        return dependencies.get(dependency);
+    public DependencyGraph getGraph() {
+        return graph;
     }
 }
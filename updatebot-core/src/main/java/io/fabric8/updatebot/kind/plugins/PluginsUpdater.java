@@ -60,7 +60,7 @@ public class PluginsUpdater extends UpdaterSupport implements Updater {
         PluginsDependencies plugins = getPlugins(context);
         if (plugins != null) {
             FileMatcher fileMatcher = plugins.createFileMatcher();
-            List<File> files = fileMatcher.matchFiles(context.getDir());
+            List<File> files = fileMatcher.matchFiles(context.getDir(), context.getManifestIndex().getFiles());
             for (File file : files) {
                 if (updateVersionsInFile(context, file, plugins, changes)) {
                     updated = true;
@@ -100,6 +100,7 @@ public class PluginsUpdater extends UpdaterSupport implements Updater {
         }
         if (changed) {
             IOHelpers.writeLines(file, answer);
+            context.updatedFile(file);
         }
         return changed;
     }
@@ -18,6 +18,7 @@ package io.fabric8.updatebot.model;
 import io.fabric8.updatebot.Configuration;
 import io.fabric8.updatebot.git.GitHelper;
 import io.fabric8.updatebot.git.GitRepositoryInfo;
+import io.fabric8.updatebot.support.Digests;
 import io.fabric8.updatebot.support.Strings;
 import io.fabric8.utils.Files;
 import io.fabric8.utils.GitHelpers;
@@ -42,10 +43,7 @@ public class RepositoryConfigs {
      * Returns the UpdateBot project configurations from the given configFile (File or URL) and source directory
      */
     public static RepositoryConfig loadRepositoryConfig(Configuration configuration, String configFile, File sourceDir) throws IOException {
-        File file = new File(configFile);
-        if (Files.isDirectory(sourceDir) && !file.isAbsolute()) {
-            file = new File(sourceDir, configFile);
-        }
+        File file = resolveConfigFile(configFile, sourceDir);
         if (!Files.isFile(file)) {
             URL url = null;
             try {
@@ -71,6 +69,25 @@ public class RepositoryConfigs {
         return loadYaml(file, RepositoryConfig.class);
     }
 
+    /**
+     * Returns the SHA-256 digest of the contents of the given config file or null if it is not a local file
+     */
+    public static String configFileDigest(String configFile, File sourceDir) throws IOException {
+        File file = resolveConfigFile(configFile, sourceDir);
+        if (!Files.isFile(file)) {
+            return null;
+        }
+        return Digests.sha256(java.nio.file.Files.readAllBytes(file.toPath()));
+    }
+
+    protected static File resolveConfigFile(String configFile, File sourceDir) {
+        File file = new File(configFile);
+        if (Files.isDirectory(sourceDir) && !file.isAbsolute()) {
+            file = new File(sourceDir, configFile);
+        }
+        return file;
+    }
+
     /**
      * Lets try detect the github organisation level configuration for a project.
      * <p>
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.repository;
+
+import io.fabric8.updatebot.kind.Kind;
+
+import java.io.File;
+import java.util.Set;
+
+/**
+ * A manifest file such as a <code>pom.xml</code> or <code>package.json</code> found in a {@link ManifestIndex}
+ */
+public class ManifestEntry {
+    private final String path;
+    private final File file;
+    private final Set<Kind> kinds;
+    private final long size;
+    private final long lastModified;
+    private String contentHash;
+
+    public ManifestEntry(String path, File file, Set<Kind> kinds, long size, long lastModified) {
+        this.path = path;
+        this.file = file;
+        this.kinds = kinds;
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+
+    @Override
+    public String toString() {
+        return "ManifestEntry{" +
+                "path='" + path + '\'' +
+                ", kinds=" + kinds +
+                ", size=" + size +
+                '}';
+    }
+
+    /**
+     * Returns the path relative to the root of the repository using <code>/</code> as the separator
+     */
+    public String getPath() {
+        return path;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the file name without any directory
+     */
+    public String getName() {
+        return file.getName();
+    }
+
+    public Set<Kind> getKinds() {
+        return kinds;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Returns the SHA-256 digest of the file content when the index was created
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+}
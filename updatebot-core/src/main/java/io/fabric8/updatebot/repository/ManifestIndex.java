@@ -0,0 +1,190 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.repository;
+
+import io.fabric8.updatebot.kind.Kind;
+import io.fabric8.updatebot.support.Digests;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An index of the files in a local repository created by a single walk of the directory tree which skips
+ * build output and dependency folders and does not follow symbolic links. The updaters query this index rather than walking the file system each time
+ */
+public class ManifestIndex {
+    /**
+     * The names of directories which are never searched for manifests
+     */
+    public static final Set<String> PRUNED_DIRECTORIES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            ".git", "target", "node_modules", "bower_components")));
+    private static final transient Logger LOG = LoggerFactory.getLogger(ManifestIndex.class);
+
+    private final File dir;
+    private final List<String> files;
+    private final Map<String, ManifestEntry> manifests;
+
+    public ManifestIndex(File dir, List<String> files, Map<String, ManifestEntry> manifests) {
+        this.dir = dir;
+        this.files = Collections.unmodifiableList(files);
+        this.manifests = Collections.unmodifiableMap(manifests);
+    }
+
+    /**
+     * Walks the given directory once to create the index
+     */
+    public static ManifestIndex create(File dir) {
+        Map<String, Set<Kind>> manifestKinds = new HashMap<>();
+        for (Kind kind : Kind.values()) {
+            for (String manifestFile : kind.getManifestFiles()) {
+                manifestKinds.computeIfAbsent(manifestFile, k -> EnumSet.noneOf(Kind.class)).add(kind);
+            }
+        }
+        List<String> files = new ArrayList<>();
+        Map<String, ManifestEntry> manifests = new TreeMap<>();
+        if (dir.isDirectory()) {
+            try {
+                // symbolic links inside the repository are not followed so that files outside of it are never
+                // read or modified; the directory itself may be a link
+                Path root = dir.toPath().toRealPath();
+                Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attrs) {
+                        if (!path.equals(root) && PRUNED_DIRECTORIES.contains(path.getFileName().toString())) {
+                            return FileVisitResult.SKIP_SUBTREE;
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
+                        if (attrs.isRegularFile()) {
+                            String relativePath = root.relativize(path).toString().replace(File.separatorChar, '/');
+                            files.add(relativePath);
+                            Set<Kind> kinds = manifestKinds.get(path.getFileName().toString());
+                            if (kinds != null) {
+                                manifests.put(relativePath, new ManifestEntry(relativePath, new File(dir, relativePath), kinds, attrs.size(), attrs.lastModifiedTime().toMillis()));
+                            }
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path path, IOException e) {
+                        LOG.debug("Ignoring " + path + ": " + e);
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                LOG.warn("Failed to index " + dir + ": " + e, e);
+            }
+        }
+        manifests.values().parallelStream().forEach(entry -> entry.setContentHash(contentHash(entry.getFile())));
+        Collections.sort(files);
+        return new ManifestIndex(dir, files, manifests);
+    }
+
+    protected static String contentHash(File file) {
+        try {
+            return Digests.sha256(Files.readAllBytes(file.toPath()));
+        } catch (IOException e) {
+            LOG.debug("Could not hash " + file + ": " + e);
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ManifestIndex{" +
+                "dir=" + dir +
+                ", files=" + files.size() +
+                ", manifests=" + manifests.keySet() +
+                '}';
+    }
+
+    public File getDir() {
+        return dir;
+    }
+
+    /**
+     * Returns the relative paths of all the indexed files using <code>/</code> as the separator
+     */
+    public List<String> getFiles() {
+        return files;
+    }
+
+    /**
+     * Returns the manifest files indexed by their relative path
+     */
+    public Map<String, ManifestEntry> getManifests() {
+        return manifests;
+    }
+
+    /**
+     * Returns the manifest at the given relative path or null if there is none
+     */
+    public ManifestEntry getManifest(String path) {
+        return manifests.get(path);
+    }
+
+    /**
+     * Returns true if there is a manifest at the given relative path
+     */
+    public boolean hasManifest(String path) {
+        return manifests.containsKey(path);
+    }
+
+    /**
+     * Returns the manifests with the given file name in any directory ordered by path
+     */
+    public List<ManifestEntry> findManifests(String fileName) {
+        List<ManifestEntry> answer = new ArrayList<>();
+        for (ManifestEntry entry : manifests.values()) {
+            if (entry.getName().equals(fileName)) {
+                answer.add(entry);
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Returns the manifest files with the given file name in any directory ordered by path
+     */
+    public List<File> findManifestFiles(String fileName) {
+        List<File> answer = new ArrayList<>();
+        for (ManifestEntry entry : findManifests(fileName)) {
+            answer.add(entry.getFile());
+        }
+        return answer;
+    }
+}
@@ -16,12 +16,16 @@
 package io.fabric8.updatebot.repository;
 
 import io.fabric8.updatebot.Configuration;
+import io.fabric8.updatebot.git.CloneStrategy;
 import io.fabric8.updatebot.github.GitHubHelpers;
+import io.fabric8.updatebot.kind.Kind;
+import io.fabric8.updatebot.model.Dependencies;
 import io.fabric8.updatebot.model.GitHubProjects;
 import io.fabric8.updatebot.model.GitRepository;
 import io.fabric8.updatebot.model.GitRepositoryConfig;
 import io.fabric8.updatebot.model.GithubOrganisation;
 import io.fabric8.updatebot.model.GithubRepository;
+import io.fabric8.updatebot.model.PluginsDependencies;
 import io.fabric8.updatebot.model.RepositoryConfig;
 import io.fabric8.updatebot.support.FileHelper;
 import io.fabric8.updatebot.support.Strings;
@@ -36,10 +40,13 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  */
@@ -48,11 +55,42 @@ public class Repositories {
 
 
     public static List<LocalRepository> cloneOrPullRepositories(Configuration configuration, RepositoryConfig repositoryConfig) throws IOException {
+        Map<LocalRepository, CompletableFuture<LocalRepository>> repositories = cloneOrPullRepositoriesAsync(configuration, repositoryConfig);
+        for (LocalRepository repository : repositories.keySet()) {
+            waitForRepository(repositories.get(repository));
+        }
+        return new ArrayList<>(repositories.keySet());
+    }
+
+    /**
+     * Finds the repositories and starts cloning or pulling them in the background.
+     *
+     * @return the repositories in order with the future which completes when each repository has been cloned or pulled
+     */
+    public static Map<LocalRepository, CompletableFuture<LocalRepository>> cloneOrPullRepositoriesAsync(Configuration configuration, RepositoryConfig repositoryConfig) throws IOException {
         List<LocalRepository> repositories = findRepositories(configuration, repositoryConfig);
+        Map<LocalRepository, CompletableFuture<LocalRepository>> answer = new LinkedHashMap<>();
+        RepositoryCloner cloner = new RepositoryCloner(configuration);
         for (LocalRepository repository : repositories) {
-            cloneOrPullRepository(configuration, repository);
+            answer.put(repository, cloner.cloneOrPull(repository));
+        }
+        CompletableFuture.allOf(answer.values().toArray(new CompletableFuture[answer.size()])).whenComplete((result, e) -> cloner.shutdown());
+        return answer;
+    }
+
+    /**
+     * Waits for the given repository to be cloned or pulled
+     */
+    public static LocalRepository waitForRepository(CompletableFuture<LocalRepository> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Failed to clone or pull repository: " + cause, cause);
         }
-        return repositories;
     }
 
     public static void cloneOrPullRepository(Configuration configuration, LocalRepository repository) {
@@ -71,21 +109,38 @@ public class Repositories {
             parentDir.mkdirs();
 
             configuration.info(LOG, "Cloning: " + repository.getFullName() + " to " + FileHelper.getRelativePathToCurrentDir(dir));
-            configuration.getGit().clone(parentDir, secureCloneUrl, dir.getName());
+            CloneStrategy strategy = configuration.getCloneStrategy();
+            configuration.getGit().clone(parentDir, secureCloneUrl, dir.getName(), strategy, getSparseCheckoutPatterns(repository));
 
             configuration.getGit().configUserNameAndEmail(dir);
         }
     }
 
-    protected static List<LocalRepository> findRepositories(Configuration configuration, RepositoryConfig repositoryConfig) throws IOException {
-        String workDirPath = configuration.getWorkDir();
-        File workDir = new File(workDirPath);
-        if (!workDir.isAbsolute()) {
-            File sourceDir = configuration.getSourceDir();
-            if (io.fabric8.utils.Files.isDirectory(sourceDir)) {
-                workDir = new File(sourceDir, workDirPath);
+    /**
+     * Returns the patterns of the files updatebot may read or modify in the given repository
+     * which are checked out when using a sparse clone
+     */
+    public static Set<String> getSparseCheckoutPatterns(LocalRepository repository) {
+        Set<String> answer = new LinkedHashSet<>();
+        answer.add("/" + Configuration.DEFAULT_CONFIG_FILE);
+        for (Kind kind : Kind.values()) {
+            answer.addAll(kind.getManifestFiles());
+        }
+        GitRepositoryConfig details = repository.getRepo().getRepositoryDetails();
+        if (details != null) {
+            Dependencies push = details.getPush();
+            if (push != null) {
+                PluginsDependencies plugins = push.getPlugins();
+                if (plugins != null) {
+                    answer.addAll(plugins.getIncludes());
+                }
             }
         }
+        return answer;
+    }
+
+    protected static List<LocalRepository> findRepositories(Configuration configuration, RepositoryConfig repositoryConfig) throws IOException {
+        File workDir = configuration.getWorkDirectory();
         workDir.mkdirs();
 
         Map<String, LocalRepository> map = new LinkedHashMap<>();
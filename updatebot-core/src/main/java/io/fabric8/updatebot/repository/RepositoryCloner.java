@@ -0,0 +1,89 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.repository;
+
+import io.fabric8.updatebot.Configuration;
+import io.fabric8.updatebot.git.GitHelper;
+import io.fabric8.updatebot.git.GitRepositoryInfo;
+import io.fabric8.updatebot.support.NamedThreadFactory;
+import io.fabric8.updatebot.support.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Clones or pulls repositories on a pool of worker threads, limiting the number of concurrent
+ * git operations against each git host.
+ * <p>
+ * Each repository is returned as a future which completes as soon as that repository is ready so that
+ * commands can start processing the first repositories while the rest are still being cloned.
+ */
+public class RepositoryCloner {
+    private static final transient Logger LOG = LoggerFactory.getLogger(RepositoryCloner.class);
+
+    private final Configuration configuration;
+    private final ExecutorService executor;
+    private final int connectionsPerHost;
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+    public RepositoryCloner(Configuration configuration) {
+        this.configuration = configuration;
+        this.connectionsPerHost = Math.max(1, configuration.getCloneConnectionsPerHost());
+        int threads = Math.max(1, configuration.getCloneThreads());
+        this.executor = Executors.newFixedThreadPool(threads, new NamedThreadFactory("updatebot-clone"));
+    }
+
+    /**
+     * Returns the host name of the git clone URL or an empty string if it cannot be found
+     */
+    protected static String getHost(LocalRepository repository) {
+        GitRepositoryInfo info = GitHelper.parseGitRepositoryInfo(repository.getCloneUrl());
+        if (info != null && Strings.notEmpty(info.getHost())) {
+            return info.getHost();
+        }
+        return "";
+    }
+
+    /**
+     * Asynchronously clones or pulls the given repository
+     */
+    public CompletableFuture<LocalRepository> cloneOrPull(LocalRepository repository) {
+        return CompletableFuture.supplyAsync(() -> {
+            Semaphore permits = hostPermits.computeIfAbsent(getHost(repository), host -> new Semaphore(connectionsPerHost));
+            permits.acquireUninterruptibly();
+            try {
+                Repositories.cloneOrPullRepository(configuration, repository);
+            } finally {
+                permits.release();
+            }
+            LOG.debug("Repository ready " + repository.getCloneUrl());
+            return repository;
+        }, executor);
+    }
+
+    /**
+     * Stops the worker threads once all the submitted repositories have been processed
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.repository;
+
+import io.fabric8.updatebot.model.DependencyVersionChange;
+import io.fabric8.utils.Objects;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * The inputs used the last time a repository was processed so that we can tell if anything has changed since;
+ * the head commit, the content digest of every manifest in the repository and the version changes.
+ * <p>
+ * The number of the pull request raised for those inputs is also recorded so that the repository is processed
+ * again if the pull request is closed; it is not an input so it is not compared by {@link #equals(Object)}
+ */
+public class RepositoryState {
+    private String headSha;
+    private Map<String, String> manifests = new TreeMap<>();
+    private Set<String> changes = new TreeSet<>();
+    private Integer pullRequest;
+
+    public RepositoryState() {
+    }
+
+    public RepositoryState(String headSha, ManifestIndex index, List<DependencyVersionChange> changes) {
+        this.headSha = headSha;
+        for (ManifestEntry entry : index.getManifests().values()) {
+            String contentHash = entry.getContentHash();
+            this.manifests.put(entry.getPath(), contentHash != null ? contentHash : "");
+        }
+        for (DependencyVersionChange change : changes) {
+            StringBuilder builder = new StringBuilder();
+            builder.append(change.getKind()).append(" ").append(change.getDependency()).append(" ").append(change.getVersion());
+            if (change.getScope() != null) {
+                builder.append(" ").append(change.getScope());
+            }
+            this.changes.add(builder.toString());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RepositoryState{" +
+                "headSha='" + headSha + '\'' +
+                ", manifests=" + manifests.size() +
+                ", changes=" + changes +
+                ", pullRequest=" + pullRequest +
+                '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        RepositoryState that = (RepositoryState) o;
+        return Objects.equal(headSha, that.headSha) &&
+                Objects.equal(manifests, that.manifests) &&
+                Objects.equal(changes, that.changes);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = headSha != null ? headSha.hashCode() : 0;
+        result = 31 * result + manifests.hashCode();
+        result = 31 * result + changes.hashCode();
+        return result;
+    }
+
+    public String getHeadSha() {
+        return headSha;
+    }
+
+    public void setHeadSha(String headSha) {
+        this.headSha = headSha;
+    }
+
+    /**
+     * Returns the content digests of the manifests indexed by their relative path
+     */
+    public Map<String, String> getManifests() {
+        return manifests;
+    }
+
+    public void setManifests(Map<String, String> manifests) {
+        this.manifests = manifests;
+    }
+
+    public Set<String> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(Set<String> changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * Returns the number of the pull request raised for this state or null if there is none
+     */
+    public Integer getPullRequest() {
+        return pullRequest;
+    }
+
+    public void setPullRequest(Integer pullRequest) {
+        this.pullRequest = pullRequest;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.repository;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.fabric8.updatebot.support.MarkupHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A persistent index of the {@link RepositoryState} of each repository, indexed by clone URL, which is stored
+ * in the work directory between runs
+ */
+public class RepositoryStateIndex {
+    public static final String FILE_NAME = "updatebot-state.json";
+    private static final transient Logger LOG = LoggerFactory.getLogger(RepositoryStateIndex.class);
+
+    private final File file;
+    private final Map<String, RepositoryState> states;
+
+    public RepositoryStateIndex(File file, Map<String, RepositoryState> states) {
+        this.file = file;
+        this.states = states;
+    }
+
+    /**
+     * Loads the index from the given work directory; returning an empty index if it does not exist or cannot be parsed
+     */
+    public static RepositoryStateIndex load(File workDir) {
+        File file = new File(workDir, FILE_NAME);
+        Map<String, RepositoryState> states = null;
+        if (file.isFile()) {
+            try {
+                states = MarkupHelper.loadJson(file, new TypeReference<TreeMap<String, RepositoryState>>() {
+                });
+            } catch (IOException e) {
+                LOG.warn("Ignoring invalid repository state file " + file + ": " + e);
+            }
+        }
+        if (states == null) {
+            states = new TreeMap<>();
+        }
+        return new RepositoryStateIndex(file, states);
+    }
+
+    public synchronized RepositoryState getState(String cloneUrl) {
+        return states.get(cloneUrl);
+    }
+
+    /**
+     * Updates the state of the given repository and writes the index
+     */
+    public synchronized void putState(String cloneUrl, RepositoryState state) throws IOException {
+        states.put(cloneUrl, state);
+        File parent = file.getParentFile();
+        parent.mkdirs();
+        File tmpFile = new File(parent, FILE_NAME + ".tmp");
+        MarkupHelper.savePrettyJson(tmpFile, states);
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public File getFile() {
+        return file;
+    }
+}
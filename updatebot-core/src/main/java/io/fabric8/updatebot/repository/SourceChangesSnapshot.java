@@ -0,0 +1,211 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.fabric8.updatebot.kind.Kind;
+import io.fabric8.updatebot.model.DependencyVersionChange;
+import io.fabric8.updatebot.support.Digests;
+import io.fabric8.updatebot.support.MarkupHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The version changes found in a source repository at a given commit which are stored in the work directory
+ * so that they can be reused by all the downstream repositories and by any later run for the same commit
+ */
+public class SourceChangesSnapshot {
+    public static final String SNAPSHOT_DIR = "source-changes";
+    private static final transient Logger LOG = LoggerFactory.getLogger(SourceChangesSnapshot.class);
+
+    private String sourceSha;
+    private String fingerprint;
+    private List<Change> changes = new ArrayList<>();
+
+    public SourceChangesSnapshot() {
+    }
+
+    public SourceChangesSnapshot(String sourceSha, String fingerprint, List<DependencyVersionChange> changes) {
+        this.sourceSha = sourceSha;
+        this.fingerprint = fingerprint;
+        for (DependencyVersionChange change : changes) {
+            this.changes.add(new Change(change));
+        }
+    }
+
+    /**
+     * Returns a digest of the given values which is used to detect changes in the configuration used to find
+     * the source changes or null if the values cannot be converted to JSON
+     */
+    public static String fingerprint(Object... values) {
+        StringBuilder builder = new StringBuilder();
+        try {
+            for (Object value : values) {
+                builder.append(MarkupHelper.toJson(value)).append('\0');
+            }
+        } catch (JsonProcessingException e) {
+            LOG.debug("Could not create the fingerprint of the source changes configuration: " + e, e);
+            return null;
+        }
+        return Digests.sha256(builder.toString());
+    }
+
+    protected static File snapshotFile(File workDir, String sourceSha) {
+        return new File(new File(workDir, SNAPSHOT_DIR), sourceSha + ".json");
+    }
+
+    /**
+     * Loads the snapshot for the given source commit or returns null if there is no valid snapshot
+     */
+    public static SourceChangesSnapshot load(File workDir, String sourceSha) {
+        File file = snapshotFile(workDir, sourceSha);
+        if (file.isFile()) {
+            try {
+                return MarkupHelper.loadJson(file, new TypeReference<SourceChangesSnapshot>() {
+                });
+            } catch (IOException e) {
+                LOG.warn("Ignoring invalid source changes file " + file + ": " + e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes this snapshot to the work directory
+     */
+    public void save(File workDir) throws IOException {
+        File file = snapshotFile(workDir, sourceSha);
+        File parent = file.getParentFile();
+        parent.mkdirs();
+        File tmpFile = new File(parent, file.getName() + ".tmp");
+        MarkupHelper.savePrettyJson(tmpFile, this);
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public List<DependencyVersionChange> createDependencyVersionChanges() {
+        List<DependencyVersionChange> answer = new ArrayList<>();
+        for (Change change : changes) {
+            answer.add(change.createDependencyVersionChange());
+        }
+        return answer;
+    }
+
+    @Override
+    public String toString() {
+        return "SourceChangesSnapshot{" +
+                "sourceSha='" + sourceSha + '\'' +
+                ", changes=" + changes.size() +
+                '}';
+    }
+
+    public String getSourceSha() {
+        return sourceSha;
+    }
+
+    public void setSourceSha(String sourceSha) {
+        this.sourceSha = sourceSha;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(List<Change> changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * The serialized form of a {@link DependencyVersionChange}
+     */
+    public static class Change {
+        private Kind kind;
+        private String dependency;
+        private String version;
+        private String scope;
+        private boolean add;
+
+        public Change() {
+        }
+
+        public Change(DependencyVersionChange change) {
+            this.kind = change.getKind();
+            this.dependency = change.getDependency();
+            this.version = change.getVersion();
+            this.scope = change.getScope();
+            this.add = change.isAdd();
+        }
+
+        public DependencyVersionChange createDependencyVersionChange() {
+            return new DependencyVersionChange(kind, dependency, version, scope, add);
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public void setKind(Kind kind) {
+            this.kind = kind;
+        }
+
+        public String getDependency() {
+            return dependency;
+        }
+
+        public void setDependency(String dependency) {
+            this.dependency = dependency;
+        }
+
+        public String getVersion() {
+            return version;
+        }
+
+        public void setVersion(String version) {
+            this.version = version;
+        }
+
+        public String getScope() {
+            return scope;
+        }
+
+        public void setScope(String scope) {
+            this.scope = scope;
+        }
+
+        public boolean isAdd() {
+            return add;
+        }
+
+        public void setAdd(boolean add) {
+            this.add = add;
+        }
+    }
+}
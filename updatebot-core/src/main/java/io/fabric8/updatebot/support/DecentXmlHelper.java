@@ -18,9 +18,11 @@ package io.fabric8.updatebot.support;
 import de.pdark.decentxml.Document;
 import de.pdark.decentxml.Element;
 import de.pdark.decentxml.Text;
+import de.pdark.decentxml.XMLIOSource;
 import de.pdark.decentxml.XMLParser;
 import io.fabric8.utils.Objects;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -114,6 +116,14 @@ public class DecentXmlHelper {
         return parser.parse(pomFile);
     }
 
+    /**
+     * Parses the XML document from the given contents of a file
+     */
+    public static Document parseXml(byte[] data) throws IOException {
+        XMLParser parser = new XMLParser();
+        return parser.parse(new XMLIOSource(new ByteArrayInputStream(data)));
+    }
+
     public static boolean updateFirstChild(Element parentElement, String elementName, String value) {
         if (parentElement != null) {
             Element element = firstChild(parentElement, elementName);
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.support;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import de.pdark.decentxml.Document;
+import io.fabric8.utils.IOHelpers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A cache of the parsed JSON, XML and YAML documents of a repository so that each file is only parsed once
+ * and is written back once after all the changes to it have been made.
+ * <p>
+ * Documents are keyed by file and validated against the size, modification time and content hash of the file
+ * so that changes made on disk by other tools are picked up
+ */
+public class DocumentCache {
+    private static final transient Logger LOG = LoggerFactory.getLogger(DocumentCache.class);
+
+    private final Map<String, Entry<?>> entries = new LinkedHashMap<>();
+
+    /**
+     * Returns the parsed JSON tree of the given file
+     */
+    public JsonNode getJson(File file) throws IOException {
+        return get(file, "json", data -> MarkupHelper.loadJson(data), (f, document) -> JsonPatcher.saveJson(f, document));
+    }
+
+    /**
+     * Returns the parsed XML document of the given file
+     */
+    public Document getXml(File file) throws IOException {
+        return get(file, "xml", data -> DecentXmlHelper.parseXml(data), (f, document) -> IOHelpers.writeFully(f, document.toXML()));
+    }
+
+    /**
+     * Returns the YAML file loaded as the given DTO class
+     */
+    public <T> T getYaml(File file, Class<T> clazz) throws IOException {
+        return get(file, "yaml:" + clazz.getName(), data -> MarkupHelper.loadYaml(data, clazz), (f, document) -> YamlPatcher.saveYaml(document, f));
+    }
+
+    /**
+     * Marks the cached document of the given file as modified so that it is written by the next {@link #flush()}
+     */
+    public synchronized void markDirty(File file) {
+        boolean found = false;
+        for (Entry<?> entry : entries.values()) {
+            if (entry.file.equals(file)) {
+                entry.dirty = true;
+                found = true;
+            }
+        }
+        if (!found) {
+            throw new IllegalArgumentException("No cached document for " + file);
+        }
+    }
+
+    /**
+     * Writes all the modified documents
+     *
+     * @return the files which were written
+     */
+    public synchronized List<File> flush() throws IOException {
+        List<File> answer = new ArrayList<>();
+        for (Entry<?> entry : entries.values()) {
+            if (entry.dirty) {
+                try {
+                    entry.write();
+                } catch (IOException e) {
+                    throw new IOException("Failed to save " + entry.file + ". " + e, e);
+                }
+                entry.refresh(Files.readAllBytes(entry.file.toPath()));
+                entry.dirty = false;
+                answer.add(entry.file);
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Discards all the cached documents including any unsaved changes
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    protected synchronized <T> T get(File file, String type, DocumentParser<T> parser, DocumentWriter<T> writer) throws IOException {
+        String key = type + ":" + file.getPath();
+        Entry<T> entry = (Entry<T>) entries.get(key);
+        if (entry != null && entry.isCurrent()) {
+            return entry.document;
+        }
+        byte[] data = Files.readAllBytes(file.toPath());
+        String contentHash = Digests.sha256(data);
+        if (entry != null) {
+            if (contentHash.equals(entry.contentHash)) {
+                entry.refresh(data);
+                return entry.document;
+            }
+            if (entry.dirty) {
+                LOG.warn("Discarding unsaved changes to " + file + " as it has been modified on disk");
+            }
+        }
+        entry = new Entry<>(file, parser.parse(data), writer);
+        entry.refresh(data);
+        entries.put(key, entry);
+        return entry.document;
+    }
+
+    protected interface DocumentParser<T> {
+        T parse(byte[] data) throws IOException;
+    }
+
+    protected interface DocumentWriter<T> {
+        void write(File file, T document) throws IOException;
+    }
+
+    private static class Entry<T> {
+        private final File file;
+        private final T document;
+        private final DocumentWriter<T> writer;
+        private String contentHash;
+        private long size;
+        private long lastModified;
+        private boolean dirty;
+
+        Entry(File file, T document, DocumentWriter<T> writer) {
+            this.file = file;
+            this.document = document;
+            this.writer = writer;
+        }
+
+        boolean isCurrent() {
+            return file.length() == size && file.lastModified() == lastModified;
+        }
+
+        void refresh(byte[] data) {
+            this.contentHash = Digests.sha256(data);
+            this.size = data.length;
+            this.lastModified = file.lastModified();
+        }
+
+        void write() throws IOException {
+            writer.write(file, document);
+        }
+    }
+}
@@ -45,6 +45,19 @@ public class FileMatcher {
         return answer;
     }
 
+    /**
+     * Returns the files matching the patterns from the given paths relative to the directory
+     */
+    public List<File> matchFiles(File dir, Iterable<String> relativePaths) {
+        List<File> answer = new ArrayList<>();
+        for (String path : relativePaths) {
+            if (matches(Strings.trimAllPrefix(path, "/"))) {
+                answer.add(new File(dir, path));
+            }
+        }
+        return answer;
+    }
+
     private void addMatchFiles(List<File> answer, File rootDir, File file) throws IOException {
         if (file.isDirectory()) {
             File[] children = file.listFiles();
@@ -56,12 +69,16 @@ public class FileMatcher {
         } else {
             String path = Files.getRelativePath(rootDir, file);
             path = Strings.trimAllPrefix(path, "/");
-            if (matchesPatterns(path, includes) && !matchesPatterns(path, excludes)) {
+            if (matches(path)) {
                 answer.add(file);
             }
         }
     }
 
+    protected boolean matches(String path) {
+        return matchesPatterns(path, includes) && !matchesPatterns(path, excludes);
+    }
+
     protected boolean matchesPatterns(String path, Iterable<String> patterns) {
         boolean matchesInclude = false;
         for (String include : patterns) {
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.support;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.fabric8.utils.IOHelpers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes a modified JSON tree back to its file by only rewriting the spans of the string values which have
+ * changed such as the versions in the <code>dependencies</code> of a <code>package.json</code> so that the
+ * rest of the file keeps its original formatting.
+ * <p>
+ * The original text is walked with a streaming tokenizer alongside the tree; if anything other than string
+ * values has changed the tree is pretty printed instead
+ */
+public class JsonPatcher {
+    private static final transient Logger LOG = LoggerFactory.getLogger(JsonPatcher.class);
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final String text;
+    private final List<Patch> patches = new ArrayList<>();
+
+    protected JsonPatcher(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Saves the tree to the given file patching the existing file if possible
+     */
+    public static void saveJson(File file, JsonNode tree) throws IOException {
+        if (file.isFile()) {
+            String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            String patched = null;
+            try {
+                patched = patch(text, tree);
+            } catch (JsonProcessingException e) {
+                LOG.debug("Could not parse " + file + " so rewriting it: " + e);
+            }
+            if (patched != null) {
+                if (!patched.equals(text)) {
+                    IOHelpers.writeFully(file, patched);
+                }
+                return;
+            }
+        }
+        MarkupHelper.savePrettyJson(file, tree);
+    }
+
+    /**
+     * Returns the text with the changed string values of the tree patched in or null if the tree has other
+     * changes such as added or removed fields
+     */
+    public static String patch(String text, JsonNode tree) throws IOException {
+        JsonPatcher patcher = new JsonPatcher(text);
+        try (JsonParser parser = JSON_FACTORY.createParser(text)) {
+            if (parser.nextToken() == null || !patcher.match(parser, tree) || parser.nextToken() != null) {
+                return null;
+            }
+        }
+        return patcher.apply();
+    }
+
+    protected boolean match(JsonParser parser, JsonNode node) throws IOException {
+        JsonToken token = parser.currentToken();
+        switch (token) {
+            case START_OBJECT:
+                if (!node.isObject()) {
+                    return false;
+                }
+                int fields = 0;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    JsonNode child = node.get(parser.getCurrentName());
+                    parser.nextToken();
+                    if (child == null || !match(parser, child)) {
+                        return false;
+                    }
+                    fields++;
+                }
+                return fields == node.size();
+            case START_ARRAY:
+                if (!node.isArray()) {
+                    return false;
+                }
+                int index = 0;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (index >= node.size() || !match(parser, node.get(index++))) {
+                        return false;
+                    }
+                }
+                return index == node.size();
+            case VALUE_STRING:
+                if (!node.isTextual()) {
+                    return false;
+                }
+                if (!node.textValue().equals(parser.getText())) {
+                    int start = (int) parser.getTokenLocation().getCharOffset();
+                    patches.add(new Patch(start, stringEnd(start), node.textValue()));
+                }
+                return true;
+            case VALUE_NUMBER_INT:
+                return node.isIntegralNumber() && node.bigIntegerValue().equals(parser.getBigIntegerValue());
+            case VALUE_NUMBER_FLOAT:
+                return node.isNumber() && Double.compare(node.doubleValue(), parser.getDoubleValue()) == 0;
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                return node.isBoolean() && node.booleanValue() == parser.getBooleanValue();
+            case VALUE_NULL:
+                return node.isNull();
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns the offset after the closing quote of the string starting at the given offset
+     */
+    protected int stringEnd(int start) {
+        int i = start + 1;
+        while (text.charAt(i) != '"') {
+            i += text.charAt(i) == '\\' ? 2 : 1;
+        }
+        return i + 1;
+    }
+
+    protected String apply() {
+        if (patches.isEmpty()) {
+            return text;
+        }
+        StringBuilder builder = new StringBuilder(text.length() + 16 * patches.size());
+        int offset = 0;
+        for (Patch patch : patches) {
+            builder.append(text, offset, patch.start);
+            builder.append('"').append(JsonStringEncoder.getInstance().quoteAsString(patch.value)).append('"');
+            offset = patch.end;
+        }
+        builder.append(text, offset, text.length());
+        return builder.toString();
+    }
+
+    private static class Patch {
+        private final int start;
+        private final int end;
+        private final String value;
+
+        Patch(int start, int end, String value) {
+            this.start = start;
+            this.end = end;
+            this.value = value;
+        }
+    }
+}
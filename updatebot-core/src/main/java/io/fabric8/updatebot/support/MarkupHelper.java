@@ -17,6 +17,7 @@ package io.fabric8.updatebot.support;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
@@ -35,6 +36,7 @@ import java.net.URL;
  */
 public class MarkupHelper {
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final ObjectMapper YAML_OBJECT_MAPPER = createYamlObjectMapper();
 
 
     public static ObjectMapper createYamlObjectMapper() {
@@ -71,16 +73,14 @@ public class MarkupHelper {
      * Loads the YAML for the given DTO class
      */
     public static <T> T loadYaml(File file, Class<T> clazz) throws IOException {
-        ObjectMapper mapper = createYamlObjectMapper();
-        return mapper.readValue(file, clazz);
+        return YAML_OBJECT_MAPPER.readValue(file, clazz);
     }
 
     /**
      * Loads the YAML for the given DTO class
      */
     public static <T> T loadYaml(URL src, Class<T> clazz) throws IOException {
-        ObjectMapper mapper = createYamlObjectMapper();
-        return mapper.readValue(src, clazz);
+        return YAML_OBJECT_MAPPER.readValue(src, clazz);
     }
 
     /**
@@ -105,31 +105,45 @@ public class MarkupHelper {
      * Loads the YAML file for the given DTO class
      */
     public static <T> T loadYaml(byte[] data, Class<T> clazz) throws IOException {
-        ObjectMapper mapper = createYamlObjectMapper();
-        return mapper.readValue(data, clazz);
+        return YAML_OBJECT_MAPPER.readValue(data, clazz);
     }
 
     public static void saveYaml(Object data, File file) throws IOException {
-        ObjectMapper mapper = createYamlObjectMapper();
-        mapper.writeValue(file, data);
+        YAML_OBJECT_MAPPER.writeValue(file, data);
     }
 
     public static void saveYaml(Object data, FileObject fileObject) throws IOException {
-        ObjectMapper mapper = createYamlObjectMapper();
         try (Writer writer = fileObject.openWriter()) {
-            mapper.writeValue(writer, data);
+            YAML_OBJECT_MAPPER.writeValue(writer, data);
         }
     }
 
+    /**
+     * Returns the tree that the given DTO would be saved as in YAML
+     */
+    public static JsonNode toYamlTree(Object data) {
+        return YAML_OBJECT_MAPPER.valueToTree(data);
+    }
+
     public static String toYaml(Object data) throws IOException {
-        ObjectMapper mapper = createYamlObjectMapper();
-        return mapper.writeValueAsString(data);
+        return YAML_OBJECT_MAPPER.writeValueAsString(data);
     }
 
     public static JsonNode loadJson(File file) throws IOException {
         return OBJECT_MAPPER.readTree(file);
     }
 
+    public static JsonNode loadJson(byte[] data) throws IOException {
+        return OBJECT_MAPPER.readTree(data);
+    }
+
+    /**
+     * Loads the JSON file for the given type
+     */
+    public static <T> T loadJson(File file, TypeReference<T> type) throws IOException {
+        return OBJECT_MAPPER.readValue(file, type);
+    }
+
     public static void savePrettyJson(File file, Object value) throws IOException {
         // lets use the node layout
         NpmJsonPrettyPrinter printer = new NpmJsonPrettyPrinter();
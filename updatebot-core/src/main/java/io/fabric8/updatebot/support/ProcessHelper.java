@@ -16,21 +16,53 @@
 package io.fabric8.updatebot.support;
 
 import io.fabric8.updatebot.Configuration;
+import io.fabric8.updatebot.EnvironmentVariables;
 import io.fabric8.utils.Files;
 import io.fabric8.utils.IOHelpers;
 import io.fabric8.utils.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
+ * Runs commands pumping their output straight into the logger or a consumer as it is written, killing the process
+ * and its child processes if a command times out, the calling thread is interrupted or the JVM shuts down
  */
 public class ProcessHelper {
+    /**
+     * The exit code returned when a command times out, the same as the <code>timeout</code> command
+     */
+    public static final int TIMEOUT_EXIT_CODE = 124;
     private static final transient Logger LOG = LoggerFactory.getLogger(ProcessHelper.class);
+    private static final long PUMP_DRAIN_SECONDS = 5;
+    private static final ExecutorService PUMPS = Executors.newCachedThreadPool(new NamedThreadFactory("updatebot-process"));
+    private static final Set<Process> RUNNING = ConcurrentHashMap.newKeySet();
+    private static volatile long defaultTimeoutSeconds = Systems.getConfigIntValue(EnvironmentVariables.PROCESS_TIMEOUT, 3600);
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(ProcessHelper::cancelAll, "updatebot-process-shutdown"));
+    }
 
     public static int runCommand(File dir, String... commands) {
         return runCommand(dir, Collections.EMPTY_MAP, true, commands);
@@ -45,13 +77,28 @@ public class ProcessHelper {
     }
 
     public static int runCommand(File dir, Map<String, String> environmentVariables, boolean inheritIO, String... commands) {
-        ProcessBuilder builder = new ProcessBuilder(commands);
-        builder.directory(dir);
-        applyEnvironmentVariables(builder, environmentVariables);
         if (inheritIO) {
+            ProcessBuilder builder = new ProcessBuilder(commands);
+            builder.directory(dir);
+            applyEnvironmentVariables(builder, environmentVariables);
             builder.inheritIO();
+            return doRunCommand(builder, commands, defaultTimeoutSeconds, null, null);
         }
-        return doRunCommand(builder, commands);
+        return runCommand(dir, environmentVariables, defaultTimeoutSeconds, LOG::debug, LOG::debug, commands);
+    }
+
+    /**
+     * Runs the command passing each line of its output and error to the given consumers from background threads
+     *
+     * @param timeoutSeconds the number of seconds after which the command and its child processes are killed or 0
+     *                       to wait forever
+     * @return the exit code of the command or {@link #TIMEOUT_EXIT_CODE} if it timed out
+     */
+    public static int runCommand(File dir, Map<String, String> environmentVariables, long timeoutSeconds, Consumer<String> output, Consumer<String> error, String... commands) {
+        ProcessBuilder builder = new ProcessBuilder(commands);
+        builder.directory(dir);
+        applyEnvironmentVariables(builder, environmentVariables);
+        return doRunCommand(builder, commands, timeoutSeconds, output, error);
     }
 
     public static String runCommandCaptureOutput(File dir, String... commands) throws IOException {
@@ -59,19 +106,9 @@ public class ProcessHelper {
     }
 
     public static String runCommandCaptureOutput(File dir, Map<String, String> environmentVariables, String... commands) throws IOException {
-        File outputFile;
-        File errorFile;
-        try {
-            outputFile = File.createTempFile("updatebot-", ".log");
-            errorFile = File.createTempFile("updatebot-", ".err");
-        } catch (IOException e) {
-            throw new IOException("Failed to create temporary files " + e, e);
-        }
-
-        int result = runCommand(dir, outputFile, errorFile, commands);
-        String output = loadFile(outputFile);
-        String err = loadFile(errorFile);
-        logOutput(err, true);
+        List<String> lines = Collections.synchronizedList(new ArrayList<>());
+        int result = runCommand(dir, environmentVariables, defaultTimeoutSeconds, lines::add, LOG::error, commands);
+        String output = String.join("\n", lines);
         if (result != 0) {
             LOG.warn("Failed to run commands " + String.join(" ", commands) + " result: " + result);
             logOutput(output, false);
@@ -90,27 +127,16 @@ public class ProcessHelper {
         applyEnvironmentVariables(builder, environmentVariables);
         builder.redirectOutput(outputFile);
         builder.redirectError(errorFile);
-        return doRunCommand(builder, commands);
+        return doRunCommand(builder, commands, defaultTimeoutSeconds, null, null);
     }
 
 
     public static boolean runCommandAndLogOutput(File dir, String... commands) {
-        File outputFile = new File(dir, "target/updatebot.log");
-        File errorFile = new File(dir, "target/updatebot.err");
-        try (FileDeleter ignored = new FileDeleter(outputFile, errorFile)) {
-            outputFile.getParentFile().mkdirs();
-            boolean answer = true;
-            if (runCommand(dir, outputFile, errorFile, commands) != 0) {
-                LOG.warn("Failed to run " + String.join(" ", commands));
-                answer = false;
-            }
-            logOutput(outputFile, false);
-            logOutput(errorFile, true);
-            return answer;
-        } catch (IOException e) {
-            LOG.warn("Caught: " + e, e);
+        if (runCommand(dir, Collections.EMPTY_MAP, defaultTimeoutSeconds, LOG::info, LOG::error, commands) != 0) {
+            LOG.warn("Failed to run " + String.join(" ", commands));
             return false;
         }
+        return true;
     }
 
     public static boolean runCommandAndLogOutput(Configuration configuration, Logger log, File dir, String... commands) {
@@ -126,22 +152,13 @@ public class ProcessHelper {
     }
 
     public static boolean runCommandAndLogOutput(Configuration configuration, Logger log, File dir, Map<String, String> environmentVariables, boolean useError, String... commands) {
-        File outputFile = new File(dir, "target/updatebot.log");
-        File errorFile = new File(dir, "target/updatebot.err");
-        try (FileDeleter ignored = new FileDeleter(outputFile, errorFile)) {
-            outputFile.getParentFile().mkdirs();
-            boolean answer = true;
-            if (runCommand(dir, environmentVariables, outputFile, errorFile, commands) != 0) {
-                LOG.error("Failed to run " + String.join(" ", commands));
-                answer = false;
-            }
-            logOutput(configuration, log, outputFile, false);
-            logOutput(configuration, log, errorFile, useError);
-            return answer;
-        } catch (IOException e) {
-            LOG.warn("Caught: " + e, e);
+        Consumer<String> output = line -> configuration.info(log, line);
+        Consumer<String> error = useError ? line -> configuration.error(log, line) : output;
+        if (runCommand(dir, environmentVariables, defaultTimeoutSeconds, output, error, commands) != 0) {
+            LOG.error("Failed to run " + String.join(" ", commands));
             return false;
         }
+        return true;
     }
 
     public static void logOutput(Configuration configuration, Logger log, File file, boolean error) {
@@ -199,20 +216,130 @@ public class ProcessHelper {
         }
     }
 
-    protected static int doRunCommand(ProcessBuilder builder, String[] commands) {
+    /**
+     * Runs the process pumping its output and error streams to the consumers if they are not null; otherwise the
+     * streams must have been redirected on the builder
+     */
+    protected static int doRunCommand(ProcessBuilder builder, String[] commands, long timeoutSeconds, Consumer<String> output, Consumer<String> error) {
         String line = String.join(" ", commands);
+        Process process;
         try {
-            Process process = builder.start();
-            int exitCode = process.waitFor();
+            process = builder.start();
+        } catch (IOException e) {
+            LOG.warn("Failed to run command " + line + " in " + builder.directory() + " : error " + e);
+            return 1;
+        }
+        RUNNING.add(process);
+        try {
+            List<Future<?>> pumps = new ArrayList<>();
+            if (output != null) {
+                pumps.add(pump(process.getInputStream(), output));
+            }
+            if (error != null) {
+                pumps.add(pump(process.getErrorStream(), error));
+            }
+            if (timeoutSeconds > 0) {
+                if (!process.waitFor(timeoutSeconds, TimeUnit.SECONDS)) {
+                    LOG.warn("Timed out after " + timeoutSeconds + " seconds running command " + line + " in " + builder.directory());
+                    destroyProcessTree(process);
+                    awaitPumps(pumps);
+                    return TIMEOUT_EXIT_CODE;
+                }
+            } else {
+                process.waitFor();
+            }
+            awaitPumps(pumps);
+            int exitCode = process.exitValue();
             if (exitCode != 0) {
                 LOG.warn("Failed to run command " + line + " in " + builder.directory() + " : exit " + exitCode);
             }
             return exitCode;
-        } catch (IOException e) {
-            LOG.warn("Failed to run command " + line + " in " + builder.directory() + " : error " + e);
         } catch (InterruptedException e) {
-            // ignore
+            LOG.warn("Interrupted running command " + line + " in " + builder.directory() + " so destroying it");
+            destroyProcessTree(process);
+            Thread.currentThread().interrupt();
+            return 1;
+        } finally {
+            RUNNING.remove(process);
+        }
+    }
+
+    private static Future<?> pump(InputStream in, Consumer<String> consumer) {
+        return PUMPS.submit(() -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    consumer.accept(line);
+                }
+            } catch (IOException e) {
+                LOG.debug("Stopped reading process output: " + e);
+            }
+        });
+    }
+
+    /**
+     * Waits for the output to be consumed; giving up if a background child process such as <code>git gc --auto</code>
+     * keeps the streams open after the command has exited, in which case the daemon pump threads finish when it exits
+     */
+    private static void awaitPumps(List<Future<?>> pumps) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(PUMP_DRAIN_SECONDS);
+        for (Future<?> pump : pumps) {
+            try {
+                pump.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                LOG.warn("Failed to consume process output: " + e.getCause(), e.getCause());
+            } catch (TimeoutException e) {
+                LOG.debug("Process output is still open after the process exited so no longer waiting for it");
+                return;
+            }
+        }
+    }
+
+    /**
+     * Kills all the commands which are currently running along with their child processes
+     */
+    public static void cancelAll() {
+        for (Process process : new ArrayList<>(RUNNING)) {
+            destroyProcessTree(process);
         }
-        return 1;
+    }
+
+    /**
+     * Forcibly destroys the process and, on Java 9 or later, all of its descendant processes such as the
+     * <code>node</code> processes started by <code>npm</code>
+     */
+    protected static void destroyProcessTree(Process process) {
+        List<Object> descendants = Collections.emptyList();
+        Method destroyForcibly = null;
+        try {
+            Class<?> handleClass = Class.forName("java.lang.ProcessHandle");
+            Object handle = Process.class.getMethod("toHandle").invoke(process);
+            Stream<?> stream = (Stream<?>) handleClass.getMethod("descendants").invoke(handle);
+            descendants = stream.collect(Collectors.toList());
+            destroyForcibly = handleClass.getMethod("destroyForcibly");
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            // Java 8 so we can only destroy the process itself
+        } catch (Exception e) {
+            LOG.debug("Failed to find the child processes of " + process + ": " + e);
+        }
+        process.destroyForcibly();
+        for (Object descendant : descendants) {
+            try {
+                destroyForcibly.invoke(descendant);
+            } catch (Exception e) {
+                LOG.debug("Failed to destroy child process " + descendant + ": " + e);
+            }
+        }
+    }
+
+    public static long getDefaultTimeoutSeconds() {
+        return defaultTimeoutSeconds;
+    }
+
+    /**
+     * Sets the number of seconds after which commands are killed or 0 to wait forever
+     */
+    public static void setDefaultTimeoutSeconds(long defaultTimeoutSeconds) {
+        ProcessHelper.defaultTimeoutSeconds = defaultTimeoutSeconds;
     }
 }
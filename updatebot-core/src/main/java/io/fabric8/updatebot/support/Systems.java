@@ -48,6 +48,21 @@ public class Systems {
         }
     }
 
+    /**
+     * Returns the integer value of the given environment variable as a system property or environment variable or returns the default value
+     */
+    public static int getConfigIntValue(String envVar, int defaultValue) {
+        String value = getConfigValue(envVar);
+        if (Strings.notEmpty(value)) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                LOG.warn("Ignoring invalid integer value for $" + envVar + " of " + value);
+            }
+        }
+        return defaultValue;
+    }
+
     /**
      * Returns true if the env var or system property is "true"
      */
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.InterruptedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Admission control for heavyweight external tools such as <code>mvn</code> and <code>npm</code> when repositories
+ * are processed concurrently.
+ * <p>
+ * Each tool has its own pool of permits along with an estimate of the memory each of its processes uses. A process
+ * is only started once its pool has a free permit and its memory estimate fits into the memory budget left by the
+ * processes already running. Waiters are admitted in order, though a waiter which is only blocked by its own pool
+ * does not hold up the waiters for other tools behind it.
+ */
+public class ToolScheduler {
+    public static final String MAVEN = "mvn";
+    public static final String NPM = "npm";
+    public static final long DEFAULT_MAVEN_MEMORY_MB = 1024;
+    public static final long DEFAULT_NPM_MEMORY_MB = 768;
+    private static final transient Logger LOG = LoggerFactory.getLogger(ToolScheduler.class);
+
+    /**
+     * Memory used by a JVM or node process on top of its heap
+     */
+    private static final long PROCESS_OVERHEAD_MB = 256;
+    private static final Pattern XMX_PATTERN = Pattern.compile("-Xmx(\\d+)([kKmMgG]?)");
+    private static final Pattern NODE_HEAP_PATTERN = Pattern.compile("--max-old-space-size=(\\d+)");
+
+    private final long memoryBudgetMb;
+    private final Map<String, ToolPool> pools = new TreeMap<>();
+    private final LinkedList<Waiter> waiters = new LinkedList<>();
+    private long usedMemoryMb;
+
+    /**
+     * @param memoryBudgetMb the total memory available to tool processes or 0 to use most of the physical memory
+     *                       left over by this JVM
+     */
+    public ToolScheduler(long memoryBudgetMb) {
+        this.memoryBudgetMb = memoryBudgetMb > 0 ? memoryBudgetMb : defaultMemoryBudgetMb();
+    }
+
+    /**
+     * Configures the pool of a tool
+     *
+     * @param concurrency the maximum number of processes of the tool which can run at once or 0 for no limit
+     * @param memoryMb    the estimated memory used by each process of the tool
+     */
+    public synchronized void configureTool(String tool, int concurrency, long memoryMb) {
+        ToolPool pool = getPool(tool);
+        pool.concurrency = concurrency > 0 ? concurrency : Integer.MAX_VALUE;
+        pool.memoryMb = Math.max(0, memoryMb);
+        notifyAll();
+    }
+
+    /**
+     * Blocks until a process of the given tool can be started; the returned lease must be closed when the process
+     * has finished
+     */
+    public Lease acquire(String tool) throws InterruptedIOException {
+        Waiter waiter;
+        long start = System.currentTimeMillis();
+        synchronized (this) {
+            ToolPool pool = getPool(tool);
+            waiter = new Waiter(pool);
+            waiters.add(waiter);
+            pool.queued++;
+            pool.maxQueued = Math.max(pool.maxQueued, pool.queued);
+            try {
+                while (!admit(waiter)) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                waiters.remove(waiter);
+                pool.queued--;
+                notifyAll();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting to run " + tool);
+            }
+            long waited = System.currentTimeMillis() - start;
+            pool.waitMillis += waited;
+            if (waited > 0) {
+                pool.delayed++;
+                LOG.debug("Running " + tool + " after waiting " + waited + "ms with " + usedMemoryMb + "MB of " + memoryBudgetMb + "MB in use");
+            }
+        }
+        return new Lease(waiter);
+    }
+
+    /**
+     * Admits the waiter if it is the first waiter in the queue which can run
+     */
+    private boolean admit(Waiter waiter) {
+        boolean memoryBlocked = false;
+        for (Waiter w : waiters) {
+            ToolPool pool = w.pool;
+            boolean hasPermit = pool.running < pool.concurrency;
+            // lets always let a process run if nothing else is running even if it is larger than the budget
+            boolean hasMemory = usedMemoryMb == 0 || usedMemoryMb + w.memoryMb <= memoryBudgetMb;
+            if (w == waiter) {
+                if (hasPermit && hasMemory && !memoryBlocked) {
+                    waiters.remove(waiter);
+                    pool.queued--;
+                    pool.running++;
+                    pool.runs++;
+                    pool.maxRunning = Math.max(pool.maxRunning, pool.running);
+                    usedMemoryMb += waiter.memoryMb;
+                    return true;
+                }
+                return false;
+            }
+            if (hasPermit && !hasMemory) {
+                // don't let smaller processes starve an earlier waiter which needs more memory
+                memoryBlocked = true;
+            }
+        }
+        return false;
+    }
+
+    protected synchronized void release(Waiter waiter) {
+        waiter.pool.running--;
+        usedMemoryMb -= waiter.memoryMb;
+        notifyAll();
+    }
+
+    private ToolPool getPool(String tool) {
+        return pools.computeIfAbsent(tool, ToolPool::new);
+    }
+
+    public long getMemoryBudgetMb() {
+        return memoryBudgetMb;
+    }
+
+    public synchronized long getUsedMemoryMb() {
+        return usedMemoryMb;
+    }
+
+    public synchronized int getRunning(String tool) {
+        ToolPool pool = pools.get(tool);
+        return pool != null ? pool.running : 0;
+    }
+
+    public synchronized int getQueued(String tool) {
+        ToolPool pool = pools.get(tool);
+        return pool != null ? pool.queued : 0;
+    }
+
+    /**
+     * Returns true if any tool processes have been run
+     */
+    public synchronized boolean hasRuns() {
+        for (ToolPool pool : pools.values()) {
+            if (pool.runs > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder("Tool processes with a memory budget of " + memoryBudgetMb + "MB");
+        for (ToolPool pool : pools.values()) {
+            if (pool.runs > 0) {
+                builder.append(" (" + pool.tool + ": " + pool.runs + " runs, max running: " + pool.maxRunning +
+                        ", max queued: " + pool.maxQueued + ", delayed: " + pool.delayed + " for " + (pool.waitMillis / 1000) + "s)");
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns the memory estimate of a process from the <code>-Xmx</code> in the given JVM options or the default
+     */
+    public static long jvmMemoryMb(String options, long defaultMemoryMb) {
+        if (options != null) {
+            Matcher matcher = XMX_PATTERN.matcher(options);
+            long heapMb = -1;
+            while (matcher.find()) {
+                long value = Long.parseLong(matcher.group(1));
+                switch (matcher.group(2).toLowerCase()) {
+                    case "g":
+                        heapMb = value * 1024;
+                        break;
+                    case "m":
+                        heapMb = value;
+                        break;
+                    case "k":
+                        heapMb = value / 1024;
+                        break;
+                    default:
+                        heapMb = value / (1024 * 1024);
+                }
+            }
+            if (heapMb >= 0) {
+                return heapMb + PROCESS_OVERHEAD_MB;
+            }
+        }
+        return defaultMemoryMb;
+    }
+
+    /**
+     * Returns the memory estimate of a process from the <code>--max-old-space-size</code> in the given node options
+     * or the default
+     */
+    public static long nodeMemoryMb(String options, long defaultMemoryMb) {
+        if (options != null) {
+            Matcher matcher = NODE_HEAP_PATTERN.matcher(options);
+            long heapMb = -1;
+            while (matcher.find()) {
+                heapMb = Long.parseLong(matcher.group(1));
+            }
+            if (heapMb >= 0) {
+                return heapMb + PROCESS_OVERHEAD_MB;
+            }
+        }
+        return defaultMemoryMb;
+    }
+
+    /**
+     * Returns three quarters of the physical memory not reserved for the heap of this JVM
+     */
+    protected static long defaultMemoryBudgetMb() {
+        long physical = 0;
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            physical = ((com.sun.management.OperatingSystemMXBean) os).getTotalPhysicalMemorySize();
+        }
+        if (physical <= 0) {
+            return Long.MAX_VALUE;
+        }
+        long available = physical - Runtime.getRuntime().maxMemory();
+        return Math.max(DEFAULT_MAVEN_MEMORY_MB, available / (1024 * 1024) * 3 / 4);
+    }
+
+    /**
+     * Releases the admission of a tool process when it is closed
+     */
+    public class Lease implements Closeable {
+        private final Waiter waiter;
+        private boolean closed;
+
+        private Lease(Waiter waiter) {
+            this.waiter = waiter;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(waiter);
+            }
+        }
+    }
+
+    private static class ToolPool {
+        private final String tool;
+        private int concurrency = Integer.MAX_VALUE;
+        private long memoryMb;
+        private int running;
+        private int queued;
+        private int maxRunning;
+        private int maxQueued;
+        private long runs;
+        private long delayed;
+        private long waitMillis;
+
+        ToolPool(String tool) {
+            this.tool = tool;
+        }
+    }
+
+    private static class Waiter {
+        private final ToolPool pool;
+        private final long memoryMb;
+
+        Waiter(ToolPool pool) {
+            this.pool = pool;
+            this.memoryMb = pool.memoryMb;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.support;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The result of probing a command line tool such as <code>mvn</code> or <code>npm</code>
+ */
+public class Toolchain {
+    private static final Pattern VERSION_PATTERN = Pattern.compile("(\\d+(\\.\\d+)+)");
+
+    private final String command;
+    private final boolean available;
+    private final String version;
+    private final String output;
+
+    public Toolchain(String command, boolean available, String output) {
+        this.command = command;
+        this.available = available;
+        this.output = output;
+        this.version = available ? parseVersion(output) : null;
+    }
+
+    /**
+     * Returns the first dotted version number in the given tool output or null if there is none
+     */
+    public static String parseVersion(String output) {
+        if (output != null) {
+            Matcher matcher = VERSION_PATTERN.matcher(output);
+            if (matcher.find()) {
+                return matcher.group(1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compares two dotted version numbers numerically
+     */
+    public static int compareVersions(String v1, String v2) {
+        String[] a = v1.split("\\.");
+        String[] b = v2.split("\\.");
+        for (int i = 0; i < Math.max(a.length, b.length); i++) {
+            int n1 = i < a.length ? parseNumber(a[i]) : 0;
+            int n2 = i < b.length ? parseNumber(b[i]) : 0;
+            if (n1 != n2) {
+                return Integer.compare(n1, n2);
+            }
+        }
+        return 0;
+    }
+
+    private static int parseNumber(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Toolchain{" +
+                "command='" + command + '\'' +
+                ", available=" + available +
+                ", version='" + version + '\'' +
+                '}';
+    }
+
+    /**
+     * Returns true if the tool is available and its version is at least the given version
+     */
+    public boolean isVersionAtLeast(String minimumVersion) {
+        return available && version != null && compareVersions(version, minimumVersion) >= 0;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getOutput() {
+        return output;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A registry of the command line tools used by the updaters which probes each tool only once per process
+ * rather than each time an updater checks if it is applicable
+ */
+public class Toolchains {
+    private static final transient Logger LOG = LoggerFactory.getLogger(Toolchains.class);
+
+    private final Map<String, Toolchain> toolchains = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the toolchain for the given command, running the command with the given version arguments the first
+     * time it is requested
+     */
+    public Toolchain getToolchain(File dir, Map<String, String> environmentVariables, String command, String... versionArguments) {
+        String key = command + " " + String.join(" ", versionArguments) + " " + environmentVariables;
+        return toolchains.computeIfAbsent(key, k -> probe(dir, environmentVariables, command, versionArguments));
+    }
+
+    protected Toolchain probe(File dir, Map<String, String> environmentVariables, String command, String... versionArguments) {
+        String[] commands = new String[versionArguments.length + 1];
+        commands[0] = command;
+        System.arraycopy(versionArguments, 0, commands, 1, versionArguments.length);
+        if (environmentVariables == null) {
+            environmentVariables = Collections.emptyMap();
+        }
+        Toolchain answer;
+        try {
+            String output = ProcessHelper.runCommandCaptureOutput(dir, environmentVariables, commands);
+            answer = new Toolchain(command, true, output);
+        } catch (IOException e) {
+            LOG.debug("Failed to probe " + String.join(" ", commands) + ": " + e, e);
+            answer = new Toolchain(command, false, null);
+        }
+        LOG.debug("Probed " + Arrays.asList(commands) + " => " + answer);
+        return answer;
+    }
+
+    /**
+     * Clears all the probe results so that tools are probed again
+     */
+    public void clear() {
+        toolchains.clear();
+    }
+}
@@ -0,0 +1,349 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.support;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import io.fabric8.utils.IOHelpers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.DocumentEndEvent;
+import org.yaml.snakeyaml.events.DocumentStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.MappingEndEvent;
+import org.yaml.snakeyaml.events.MappingStartEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.events.SequenceEndEvent;
+import org.yaml.snakeyaml.events.SequenceStartEvent;
+import org.yaml.snakeyaml.events.StreamEndEvent;
+import org.yaml.snakeyaml.events.StreamStartEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Writes a modified YAML model such as a Helm <code>requirements.yaml</code> or <code>Chart.yaml</code> back to
+ * its file by only rewriting the scalars which have changed, such as the <code>version</code> of a chart
+ * dependency, so that comments, ordering and formatting are kept.
+ * <p>
+ * The parse events of the original text are walked alongside the model; keys in the file which the model type
+ * cannot represent are left untouched. If the model has any other changes, such as a property which is now absent,
+ * the file is saved as a whole instead
+ */
+public class YamlPatcher {
+    private static final transient Logger LOG = LoggerFactory.getLogger(YamlPatcher.class);
+    private static final Pattern PLAIN_SCALAR = Pattern.compile("[A-Za-z0-9_][A-Za-z0-9._+\\-/]*");
+    private static final Set<String> TRUE_SCALARS = new HashSet<>(Arrays.asList("true", "yes", "y", "on"));
+    private static final Set<String> FALSE_SCALARS = new HashSet<>(Arrays.asList("false", "no", "n", "off"));
+    private static final ObjectMapper YAML_OBJECT_MAPPER = MarkupHelper.createYamlObjectMapper();
+    private static final Pattern NON_STRING_SCALAR = Pattern.compile("[-+]?[0-9_]*\\.?[0-9_]*([eE][-+]?[0-9]+)?|0x[0-9a-fA-F]+|(?i:y|n|yes|no|true|false|on|off|null)");
+
+    private final String text;
+    private final List<Patch> patches = new ArrayList<>();
+
+    protected YamlPatcher(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Saves the model to the given file patching the existing file if possible
+     */
+    public static void saveYaml(Object data, File file) throws IOException {
+        if (file.isFile()) {
+            String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            String patched = null;
+            try {
+                patched = patch(text, data);
+            } catch (YAMLException e) {
+                LOG.debug("Could not parse " + file + " so rewriting it: " + e);
+            }
+            if (patched != null) {
+                if (!patched.equals(text)) {
+                    IOHelpers.writeFully(file, patched);
+                }
+                return;
+            }
+        }
+        MarkupHelper.saveYaml(data, file);
+    }
+
+    /**
+     * Returns the text with the changed scalars of the model patched in or null if the model has other changes
+     * such as added or removed properties or a different number of list items
+     */
+    public static String patch(String text, Object data) {
+        return patch(text, MarkupHelper.toYamlTree(data), YAML_OBJECT_MAPPER.constructType(data.getClass()));
+    }
+
+    /**
+     * Returns the text with the changed scalars of the tree patched in or null if the tree has other changes.
+     * If the type of the model is given then keys which the type cannot represent are left untouched;
+     * otherwise every key in the text must be in the tree
+     */
+    public static String patch(String text, JsonNode tree, JavaType type) {
+        // the parser marks may count code points rather than chars
+        if (text.length() != text.codePointCount(0, text.length())) {
+            return null;
+        }
+        YamlPatcher patcher = new YamlPatcher(text);
+        Iterator<Event> events = new Yaml().parse(new StringReader(text)).iterator();
+        if (!(next(events) instanceof StreamStartEvent) || !(next(events) instanceof DocumentStartEvent)) {
+            return null;
+        }
+        if (!patcher.match(events, next(events), tree, type)) {
+            return null;
+        }
+        if (!(next(events) instanceof DocumentEndEvent) || !(next(events) instanceof StreamEndEvent)) {
+            return null;
+        }
+        return patcher.apply();
+    }
+
+    private static Event next(Iterator<Event> events) {
+        return events.hasNext() ? events.next() : null;
+    }
+
+    protected boolean match(Iterator<Event> events, Event event, JsonNode node, JavaType type) {
+        if (event instanceof MappingStartEvent) {
+            if (!node.isObject()) {
+                return false;
+            }
+            Set<String> fields = new HashSet<>();
+            while (true) {
+                Event key = next(events);
+                if (key instanceof MappingEndEvent) {
+                    break;
+                }
+                if (!(key instanceof ScalarEvent)) {
+                    return false;
+                }
+                String name = ((ScalarEvent) key).getValue();
+                Event value = next(events);
+                JsonNode child = node.get(name);
+                if (child == null) {
+                    // the property may have been removed or set to null or empty
+                    if (canRepresent(type, name)) {
+                        return false;
+                    }
+                    skip(events, value);
+                } else if (!match(events, value, child, propertyType(type, name)) || !fields.add(name)) {
+                    return false;
+                }
+            }
+            Iterator<Map.Entry<String, JsonNode>> iter = node.fields();
+            while (iter.hasNext()) {
+                Map.Entry<String, JsonNode> entry = iter.next();
+                if (!fields.contains(entry.getKey()) && !isDefaultValue(entry.getValue())) {
+                    // the property has been added
+                    return false;
+                }
+            }
+            return true;
+        } else if (event instanceof SequenceStartEvent) {
+            if (!node.isArray()) {
+                return false;
+            }
+            JavaType itemType = type != null && type.isContainerType() ? type.getContentType() : null;
+            int index = 0;
+            while (true) {
+                Event item = next(events);
+                if (item instanceof SequenceEndEvent) {
+                    break;
+                }
+                if (item == null || index >= node.size() || !match(events, item, node.get(index++), itemType)) {
+                    return false;
+                }
+            }
+            return index == node.size();
+        } else if (event instanceof ScalarEvent) {
+            if (node.isContainerNode() || node.isNull()) {
+                return false;
+            }
+            ScalarEvent scalar = (ScalarEvent) event;
+            return sameValue(scalar.getValue(), node) || patchScalar(scalar, node);
+        }
+        // aliases and anything else cannot be compared with the model
+        return false;
+    }
+
+    /**
+     * Returns true if the value is the default of a primitive property, such as <code>false</code>, which is the
+     * same as the property being absent from the file
+     */
+    protected static boolean isDefaultValue(JsonNode node) {
+        if (node.isBoolean()) {
+            return !node.booleanValue();
+        }
+        return node.isNumber() && node.decimalValue().signum() == 0;
+    }
+
+    /**
+     * Returns true if the model type has a property for the given key or is not known
+     */
+    protected static boolean canRepresent(JavaType type, String name) {
+        if (type == null || type.isMapLikeType() || type.isJavaLangObject() || type.isTypeOrSubTypeOf(JsonNode.class)) {
+            return true;
+        }
+        BeanDescription description = YAML_OBJECT_MAPPER.getSerializationConfig().introspect(type);
+        if (description.findAnyGetter() != null) {
+            return true;
+        }
+        return findProperty(description, name) != null;
+    }
+
+    /**
+     * Returns the type of the given property of the model type or null if it is not known
+     */
+    protected static JavaType propertyType(JavaType type, String name) {
+        if (type == null || type.isJavaLangObject() || type.isTypeOrSubTypeOf(JsonNode.class)) {
+            return null;
+        }
+        if (type.isMapLikeType()) {
+            return type.getContentType();
+        }
+        BeanPropertyDefinition property = findProperty(YAML_OBJECT_MAPPER.getSerializationConfig().introspect(type), name);
+        return property != null ? property.getPrimaryType() : null;
+    }
+
+    private static BeanPropertyDefinition findProperty(BeanDescription description, String name) {
+        for (BeanPropertyDefinition property : description.findProperties()) {
+            if (name.equals(property.getName())) {
+                return property;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if the scalar text has the same value as the node; numbers are compared by value so that
+     * <code>1.50</code> is not rewritten as <code>1.5</code>
+     */
+    protected static boolean sameValue(String text, JsonNode node) {
+        if (node.isNumber()) {
+            try {
+                return new BigDecimal(text.replace("_", "")).compareTo(node.decimalValue()) == 0;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        if (node.isBoolean()) {
+            Set<String> values = node.booleanValue() ? TRUE_SCALARS : FALSE_SCALARS;
+            return values.contains(text.toLowerCase());
+        }
+        return text.equals(node.asText());
+    }
+
+    /**
+     * Skips the events of a value which is not part of the model
+     */
+    protected void skip(Iterator<Event> events, Event event) {
+        int depth = 0;
+        while (event != null) {
+            if (event instanceof MappingStartEvent || event instanceof SequenceStartEvent) {
+                depth++;
+            } else if (event instanceof MappingEndEvent || event instanceof SequenceEndEvent) {
+                depth--;
+            }
+            if (depth <= 0) {
+                return;
+            }
+            event = next(events);
+        }
+    }
+
+    protected boolean patchScalar(ScalarEvent scalar, JsonNode node) {
+        String value = node.asText();
+        boolean typed = node.isNumber() || node.isBoolean();
+        int start = scalar.getStartMark().getIndex();
+        int end = scalar.getEndMark().getIndex();
+        if (start < 0 || end <= start || end > text.length()) {
+            return false;
+        }
+        String raw = text.substring(start, end);
+        char quote = raw.charAt(0);
+        String replacement;
+        if (quote == '"' || quote == '\'') {
+            if (raw.length() < 2 || raw.charAt(raw.length() - 1) != quote) {
+                return false;
+            }
+            replacement = quote == '"' ? doubleQuoted(value) : "'" + value.replace("'", "''") + "'";
+        } else if (typed) {
+            // numbers and booleans stay plain so that they keep their YAML type
+            if (!raw.equals(scalar.getValue()) || !NON_STRING_SCALAR.matcher(raw).matches()) {
+                return false;
+            }
+            replacement = value;
+        } else {
+            // only simple plain scalars are replaced; not block scalars, tags or anchors
+            if (!raw.equals(scalar.getValue()) || !PLAIN_SCALAR.matcher(raw).matches()) {
+                return false;
+            }
+            boolean plain = PLAIN_SCALAR.matcher(value).matches() && !NON_STRING_SCALAR.matcher(value).matches();
+            replacement = plain ? value : doubleQuoted(value);
+        }
+        patches.add(new Patch(start, end, replacement));
+        return true;
+    }
+
+    private static String doubleQuoted(String value) {
+        return "\"" + new String(JsonStringEncoder.getInstance().quoteAsString(value)) + "\"";
+    }
+
+    protected String apply() {
+        if (patches.isEmpty()) {
+            return text;
+        }
+        StringBuilder builder = new StringBuilder(text.length() + 16 * patches.size());
+        int offset = 0;
+        for (Patch patch : patches) {
+            builder.append(text, offset, patch.start);
+            builder.append(patch.value);
+            offset = patch.end;
+        }
+        builder.append(text, offset, text.length());
+        return builder.toString();
+    }
+
+    private static class Patch {
+        private final int start;
+        private final int end;
+        private final String value;
+
+        Patch(int start, int end, String value) {
+            this.start = start;
+            this.end = end;
+            this.value = value;
+        }
+    }
+}
@@ -16,7 +16,9 @@
 package io.fabric8.updatebot;
 
 
+import com.beust.jcommander.ParameterException;
 import io.fabric8.updatebot.commands.EnableFabric8;
+import io.fabric8.updatebot.git.CloneStrategy;
 import io.fabric8.updatebot.github.GitHubHelpers;
 import io.fabric8.updatebot.repository.LocalRepository;
 import io.fabric8.updatebot.test.Tests;
@@ -59,6 +61,13 @@ public class EnableFabric8Test {
         assertEnableFabric8();
     }
 
+    @Test(expected = ParameterException.class)
+    public void testSparseCloneStrategyNotSupported() throws Exception {
+        configuration.setCloneStrategy(CloneStrategy.SPARSE);
+        enableFabric8.setOrganisationAndRepository("jstrachan-testing/spring-boot-webmvc");
+        enableFabric8.run(configuration);
+    }
+
     protected void assertEnableFabric8() throws IOException {
         if (Tests.canTestWithGithubAPI(configuration)) {
             enableFabric8.run(configuration);
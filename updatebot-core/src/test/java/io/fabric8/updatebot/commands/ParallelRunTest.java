@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.commands;
+
+import io.fabric8.updatebot.Configuration;
+import io.fabric8.updatebot.model.GitRepository;
+import io.fabric8.updatebot.repository.LocalRepository;
+import io.fabric8.updatebot.test.Tests;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class ParallelRunTest {
+    protected Configuration configuration = new Configuration();
+
+    @Test
+    public void testRunRepositoriesConcurrently() throws Exception {
+        configuration.setParallelism(4);
+
+        List<LocalRepository> repositories = createRepositories(20);
+        RecordingCommand command = new RecordingCommand(repositories);
+        ParentContext parentContext = command.run(configuration);
+
+        assertThat(command.processed.get()).describedAs("processed repositories").isEqualTo(20);
+        assertThat(command.maxConcurrent.get()).describedAs("maximum concurrent repositories").isGreaterThan(1).isLessThanOrEqualTo(4);
+        assertContextsInRepositoryOrder(parentContext, repositories);
+    }
+
+    @Test
+    public void testRunRepositoriesSequentially() throws Exception {
+        configuration.setParallelism(1);
+
+        List<LocalRepository> repositories = createRepositories(5);
+        RecordingCommand command = new RecordingCommand(repositories);
+        ParentContext parentContext = command.run(configuration);
+
+        assertThat(command.processed.get()).describedAs("processed repositories").isEqualTo(5);
+        assertThat(command.maxConcurrent.get()).describedAs("maximum concurrent repositories").isEqualTo(1);
+        assertContextsInRepositoryOrder(parentContext, repositories);
+    }
+
+    protected void assertContextsInRepositoryOrder(ParentContext parentContext, List<LocalRepository> repositories) {
+        List<CommandContext> children = parentContext.getChildren();
+        assertThat(children).hasSize(repositories.size());
+        for (int i = 0; i < repositories.size(); i++) {
+            assertThat(children.get(i).getRepository()).describedAs("context " + i).isSameAs(repositories.get(i));
+        }
+    }
+
+    protected List<LocalRepository> createRepositories(int count) {
+        File dir = Tests.getTestDataDir(getClass());
+        List<LocalRepository> answer = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String name = "repo-" + i;
+            answer.add(new LocalRepository(new GitRepository(name, "https://github.com/dummy/" + name + ".git"), new File(dir, name)));
+        }
+        return answer;
+    }
+
+    public static class RecordingCommand extends CommandSupport {
+        private final AtomicInteger processed = new AtomicInteger();
+        private final AtomicInteger concurrent = new AtomicInteger();
+        private final AtomicInteger maxConcurrent = new AtomicInteger();
+
+        public RecordingCommand(List<LocalRepository> repositories) {
+            setLocalRepositories(repositories);
+        }
+
+        @Override
+        public void run(CommandContext context) throws IOException {
+            int current = concurrent.incrementAndGet();
+            maxConcurrent.accumulateAndGet(current, Math::max);
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            } finally {
+                concurrent.decrementAndGet();
+            }
+            processed.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.commands;
+
+import io.fabric8.updatebot.Configuration;
+import io.fabric8.updatebot.kind.Kind;
+import io.fabric8.updatebot.kind.npm.NpmDependencyKinds;
+import io.fabric8.updatebot.model.DependencyVersionChange;
+import io.fabric8.updatebot.model.GitRepository;
+import io.fabric8.updatebot.repository.LocalRepository;
+import io.fabric8.updatebot.repository.SourceChangesSnapshot;
+import io.fabric8.updatebot.test.Tests;
+import io.fabric8.utils.IOHelpers;
+import org.eclipse.jgit.api.Git;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class PushSourceChangesSnapshotTest {
+    protected File testDir = new File(Tests.getCleanWorkDir(getClass())).getAbsoluteFile();
+    protected File sourceDir = new File(testDir, "source");
+    protected File workDir = new File(testDir, "work");
+    protected File configFile = new File(testDir, "updatebot.yml");
+    protected Configuration configuration = new Configuration();
+    protected PushSourceChanges command = new PushSourceChanges();
+    protected CommandContext context;
+    protected String sourceSha;
+
+    @Before
+    public void init() throws Exception {
+        sourceDir.mkdirs();
+        IOHelpers.writeFully(configFile, "github:\n  organisations: []\n");
+        writePackageJson("1.0.0");
+        try (Git git = Git.init().setDirectory(sourceDir).call()) {
+            git.add().addFilepattern("package.json").call();
+            git.commit().setMessage("Release 1.0.0").setAuthor("Test", "test@example.com").setCommitter("Test", "test@example.com").call();
+            sourceSha = git.getRepository().resolve("HEAD").name();
+        }
+
+        configuration.setConfigFile(configFile.getPath());
+        configuration.setWorkDir(workDir.getPath());
+        LocalRepository sourceRepository = new LocalRepository(new GitRepository("source"), sourceDir);
+        command.setSourceRepository(sourceRepository);
+        context = new CommandContext(sourceRepository, configuration);
+    }
+
+    @Test
+    public void testSnapshotSavedAndReused() throws Exception {
+        assertVersion(command.findVersionChangesFromSource(context), "1.0.0");
+
+        SourceChangesSnapshot snapshot = SourceChangesSnapshot.load(workDir, sourceSha);
+        assertThat(snapshot).describedAs("snapshot for " + sourceSha).isNotNull();
+        assertVersion(snapshot.createDependencyVersionChanges(), "1.0.0");
+
+        // lets change the snapshot so that we can tell it is reused rather than the source being processed again
+        saveSnapshot(snapshot.getFingerprint(), "9.9.9");
+        assertVersion(command.findVersionChangesFromSource(context), "9.9.9");
+    }
+
+    @Test
+    public void testFingerprintMismatchRecomputes() throws Exception {
+        command.findVersionChangesFromSource(context);
+        String fingerprint = SourceChangesSnapshot.load(workDir, sourceSha).getFingerprint();
+        saveSnapshot(fingerprint, "9.9.9");
+
+        IOHelpers.writeFully(configFile, "github:\n  organisations: []\npush: {}\n");
+        assertVersion(command.findVersionChangesFromSource(context), "1.0.0");
+
+        SourceChangesSnapshot snapshot = SourceChangesSnapshot.load(workDir, sourceSha);
+        assertThat(snapshot.getFingerprint()).isNotEqualTo(fingerprint);
+        assertVersion(snapshot.createDependencyVersionChanges(), "1.0.0");
+    }
+
+    @Test
+    public void testDirtySourceSkipsSnapshot() throws Exception {
+        command.findVersionChangesFromSource(context);
+        saveSnapshot(SourceChangesSnapshot.load(workDir, sourceSha).getFingerprint(), "9.9.9");
+
+        writePackageJson("2.0.0");
+        assertVersion(command.findVersionChangesFromSource(context), "2.0.0");
+
+        // the snapshot is neither used nor replaced by the changes from the modified source
+        assertVersion(SourceChangesSnapshot.load(workDir, sourceSha).createDependencyVersionChanges(), "9.9.9");
+    }
+
+    protected void writePackageJson(String version) throws Exception {
+        IOHelpers.writeFully(new File(sourceDir, "package.json"), "{\n  \"name\": \"cheese\",\n  \"version\": \"" + version + "\"\n}\n");
+    }
+
+    protected void saveSnapshot(String fingerprint, String version) throws Exception {
+        new SourceChangesSnapshot(sourceSha, fingerprint, Collections.singletonList(
+                new DependencyVersionChange(Kind.NPM, "cheese", version, NpmDependencyKinds.DEPENDENCIES))).save(workDir);
+    }
+
+    protected static void assertVersion(List<DependencyVersionChange> changes, String version) {
+        assertThat(changes).hasSize(1);
+        assertThat(changes.get(0).getDependency()).isEqualTo("cheese");
+        assertThat(changes.get(0).getVersion()).isEqualTo(version);
+    }
+}
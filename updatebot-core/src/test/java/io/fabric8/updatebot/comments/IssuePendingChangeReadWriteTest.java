@@ -67,6 +67,41 @@ public class IssuePendingChangeReadWriteTest {
         assertThat(changes).describedAs("Parsed changes " + changes).hasSize(2).isEqualTo(expectedChanges);
     }
 
+    @Test
+    public void testStatusCommentKeepsHistory() throws Exception {
+        DependencyVersionChange change1 = new DependencyVersionChange(Kind.NPM, "ngx-base", "1.3.0");
+        DependencyVersionChange change2 = new DependencyVersionChange(Kind.NPM, "ngx-base", "1.4.0");
+        DependencyVersionChange change3 = new DependencyVersionChange(Kind.NPM, "ngx-base", "1.5.0");
+
+        String body = Issues.createStatusComment(createStatus(change1), null, 2);
+        assertThat(Issues.statusHistory(body)).isEmpty();
+
+        body = Issues.createStatusComment(createStatus(change2), body, 2);
+        body = Issues.createStatusComment(createStatus(change3), body, 2);
+        System.out.println("Generated status comment: " + body);
+
+        List<DependencyVersionChange> changes = Issues.parseUpdateBotIssuePendingChangesComment(Issues.statusSection(body));
+        assertThat(changes).describedAs("Parsed changes " + changes).containsExactly(change3);
+
+        List<String> history = Issues.statusHistory(body);
+        assertThat(history).hasSize(2);
+        assertThat(Issues.parseUpdateBotIssuePendingChangesComment(history.get(0))).containsExactly(change2);
+        assertThat(Issues.parseUpdateBotIssuePendingChangesComment(history.get(1))).containsExactly(change1);
+
+        body = Issues.createStatusComment(createStatus(change1), body, 0);
+        assertThat(Issues.statusHistory(body)).isEmpty();
+    }
+
+    private String createStatus(DependencyVersionChange change) {
+        List<DependencyVersionChange> changes = Arrays.asList(change);
+        Map<String, DependencyCheck> failedChecks = new HashMap<>();
+        addFailedCheck(failedChecks, change.getDependency(), change.getVersion());
+        Map<Kind, KindDependenciesCheck> failureMap = new HashMap<>();
+        failureMap.put(Kind.NPM, new KindDependenciesCheck(new ArrayList<>(), changes, failedChecks));
+        DependenciesCheck check = new DependenciesCheck(new ArrayList<>(), changes, failureMap);
+        return Issues.PENDING_CHANGE_COMMENT_PREFIX + "pushing versions\n" + Issues.conflictChangesComment(changes, check);
+    }
+
     private void addFailedCheck(Map<String, DependencyCheck> failedChecks, String dependency, String version) {
         String message = "multiple versions found " + version + " and 3.0.0";
         DependencyInfo dependencyInfo = new DependencyInfo(dependency);
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.git;
+
+import io.fabric8.updatebot.Configuration;
+import io.fabric8.updatebot.support.ProcessHelper;
+import io.fabric8.updatebot.test.Tests;
+import io.fabric8.utils.IOHelpers;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class GitPluginCLICloneTest {
+    protected File workDir = new File(Tests.getCleanWorkDir(getClass())).getAbsoluteFile();
+    protected GitPluginCLI plugin = new GitPluginCLI(new Configuration());
+    protected List<String> sparseCheckoutPatterns = Arrays.asList("/.updatebot.yml", "pom.xml", "package.json");
+    protected String cloneUrl;
+
+    @Before
+    public void init() throws Exception {
+        File remote = new File(workDir, "remote.git");
+        try (Git git = Git.init().setBare(true).setDirectory(remote).call()) {
+            // lets allow partial clones from the local repository
+            StoredConfig config = git.getRepository().getConfig();
+            config.setBoolean("uploadpack", null, "allowFilter", true);
+            config.save();
+        }
+        File seed = new File(workDir, "seed");
+        try (Git git = Git.cloneRepository().setURI(remote.toURI().toString()).setDirectory(seed).call()) {
+            new File(seed, "sub").mkdirs();
+            IOHelpers.writeFully(new File(seed, "README.md"), "# Cheese\n");
+            IOHelpers.writeFully(new File(seed, "package.json"), "{\"name\": \"cheese\"}\n");
+            IOHelpers.writeFully(new File(seed, "sub/pom.xml"), "<project/>\n");
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("Initial commit").setAuthor("Test", "test@example.com").setCommitter("Test", "test@example.com").call();
+            IOHelpers.writeFully(new File(seed, "README.md"), "# Cheese\n\nMore cheese\n");
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("Update the readme").setAuthor("Test", "test@example.com").setCommitter("Test", "test@example.com").call();
+            git.push().setRemote("origin").add("master").call();
+        }
+        // use a file URL as git ignores --depth and --filter for local paths
+        cloneUrl = "file://" + remote.getPath();
+    }
+
+    @Test
+    public void testFullClone() throws Exception {
+        File dir = assertClone(CloneStrategy.FULL);
+        assertThat(new File(dir, "README.md")).isFile();
+        assertThat(new File(dir, ".git/shallow")).doesNotExist();
+        assertThat(commitCount(dir)).isEqualTo("2");
+    }
+
+    @Test
+    public void testShallowClone() throws Exception {
+        File dir = assertClone(CloneStrategy.SHALLOW);
+        assertThat(new File(dir, "README.md")).isFile();
+        assertThat(new File(dir, ".git/shallow")).isFile();
+        assertThat(commitCount(dir)).isEqualTo("1");
+    }
+
+    @Test
+    public void testPartialClone() throws Exception {
+        File dir = assertClone(CloneStrategy.PARTIAL);
+        assertThat(new File(dir, "README.md")).isFile();
+        assertThat(commitCount(dir)).isEqualTo("2");
+        assertThat(ProcessHelper.runCommandCaptureOutput(dir, "git", "config", "remote.origin.partialclonefilter").trim()).isEqualTo("blob:none");
+    }
+
+    @Test
+    public void testSparseClone() throws Exception {
+        File dir = assertClone(CloneStrategy.SPARSE);
+        assertThat(new File(dir, "README.md")).doesNotExist();
+        assertThat(new File(dir, ".git/shallow")).isFile();
+        assertThat(IOHelpers.readFully(new File(dir, ".git/info/sparse-checkout"))).contains("package.json");
+    }
+
+    @Test
+    public void testSparseCloneWithoutPatternsChecksOutAllFiles() throws Exception {
+        File dir = new File(workDir, "sparse-all");
+        plugin.clone(workDir, cloneUrl, dir.getName(), CloneStrategy.SPARSE, Collections.emptyList());
+        assertThat(new File(dir, "README.md")).isFile();
+        assertThat(new File(dir, "package.json")).isFile();
+    }
+
+    /**
+     * Clones the repository with the given strategy asserting that the manifest files are checked out
+     */
+    protected File assertClone(CloneStrategy strategy) throws Exception {
+        File dir = new File(workDir, strategy.getName());
+        plugin.clone(workDir, cloneUrl, dir.getName(), strategy, sparseCheckoutPatterns);
+        assertThat(new File(dir, "package.json")).describedAs(strategy + " clone package.json").isFile();
+        assertThat(new File(dir, "sub/pom.xml")).describedAs(strategy + " clone sub/pom.xml").isFile();
+        return dir;
+    }
+
+    protected static String commitCount(File dir) throws Exception {
+        return ProcessHelper.runCommandCaptureOutput(dir, "git", "rev-list", "--count", "HEAD").trim();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.git;
+
+import io.fabric8.updatebot.Configuration;
+import io.fabric8.updatebot.test.Tests;
+import io.fabric8.utils.IOHelpers;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class GitPluginJGitTest {
+    protected File workDir = new File(Tests.getCleanWorkDir(getClass()));
+    protected GitPluginJGit plugin = new GitPluginJGit(new Configuration());
+    protected File remote = new File(workDir, "remote.git");
+    protected File dir = new File(workDir, "clone");
+    protected String initialSha;
+
+    @Before
+    public void init() throws Exception {
+        Git.init().setBare(true).setDirectory(remote).call().close();
+        File seed = new File(workDir, "seed");
+        try (Git git = Git.cloneRepository().setURI(remote.toURI().toString()).setDirectory(seed).call()) {
+            IOHelpers.writeFully(new File(seed, "package.json"), "{\"version\": \"1.0.0\"}\n");
+            git.add().addFilepattern("package.json").call();
+            git.commit().setMessage("Initial commit").setAuthor("Test", "test@example.com").setCommitter("Test", "test@example.com").call();
+            git.push().setRemote("origin").add("master").call();
+            initialSha = git.getRepository().resolve("HEAD").name();
+        }
+
+        plugin.clone(workDir, remote.toURI().toString(), dir.getName());
+        plugin.setConfigValue(dir, "user.name", "UpdateBot");
+        plugin.setConfigValue(dir, "user.email", "updatebot@example.com");
+    }
+
+    @Test
+    public void testClone() throws Exception {
+        assertThat(new File(dir, "package.json")).isFile();
+        assertThat(plugin.getHeadSha(dir)).isEqualTo(initialSha);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCloneRejectsShallowStrategy() throws Exception {
+        plugin.clone(workDir, remote.toURI().toString(), "shallow", CloneStrategy.SHALLOW, Collections.emptyList());
+    }
+
+    @Test
+    public void testCommitToBranchOnlyCommitsGivenFilesAndPushes() throws Exception {
+        File packageJson = new File(dir, "package.json");
+        IOHelpers.writeFully(packageJson, "{\"version\": \"1.0.1\"}\n");
+        IOHelpers.writeFully(new File(dir, "notes.txt"), "not recorded\n");
+
+        assertThat(plugin.commitToBranch(dir, "updatebot-test", "Update version", Collections.singletonList(packageJson))).isTrue();
+        String sha = plugin.getHeadSha(dir);
+        assertThat(sha).isNotEqualTo(initialSha);
+        try (Git git = Git.open(dir)) {
+            assertThat(git.getRepository().getBranch()).isEqualTo("updatebot-test");
+            assertThat(git.status().call().getUntracked()).containsExactly("notes.txt");
+        }
+
+        assertThat(plugin.push(dir, "updatebot-test")).isTrue();
+        try (Git git = Git.open(remote)) {
+            ObjectId pushed = git.getRepository().resolve("refs/heads/updatebot-test");
+            assertThat(pushed).isNotNull();
+            assertThat(pushed.name()).isEqualTo(sha);
+        }
+    }
+
+    @Test
+    public void testAddAndCommitWithoutPathsCommitsNewFiles() throws Exception {
+        IOHelpers.writeFully(new File(dir, "package.json"), "{\"version\": \"1.0.1\"}\n");
+        IOHelpers.writeFully(new File(dir, "Jenkinsfile"), "pipeline {}\n");
+
+        assertThat(plugin.addAndCommit(dir, "Add a Jenkinsfile")).isTrue();
+        try (Git git = Git.open(dir)) {
+            assertThat(git.status().call().isClean()).isTrue();
+        }
+        assertThat(plugin.addAndCommit(dir, "Nothing to commit")).isFalse();
+    }
+
+    @Test
+    public void testStashAndCheckoutMaster() throws Exception {
+        File packageJson = new File(dir, "package.json");
+        IOHelpers.writeFully(packageJson, "{\"version\": \"1.0.1\"}\n");
+        assertThat(plugin.commitToBranch(dir, "updatebot-test", "Update version", Collections.singletonList(packageJson))).isTrue();
+        IOHelpers.writeFully(packageJson, "{\"version\": \"1.0.2\"}\n");
+
+        assertThat(plugin.stashAndCheckoutMaster(dir)).isTrue();
+        try (Git git = Git.open(dir)) {
+            assertThat(git.getRepository().getBranch()).isEqualTo("master");
+            assertThat(git.status().call().isClean()).isTrue();
+        }
+        assertThat(plugin.getHeadSha(dir)).isEqualTo(initialSha);
+        assertThat(IOHelpers.readFully(packageJson)).contains("1.0.0");
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.git;
+
+import io.fabric8.updatebot.test.Tests;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class GitPluginPathsTest {
+    @Test
+    public void testRelativePaths() throws Exception {
+        File testDir = Tests.getTestDataDir(getClass());
+        File dir = new File(testDir, "repo");
+        File packageJson = new File(dir, "package.json");
+        File pom = new File(dir, "sub/pom.xml");
+        pom.getParentFile().mkdirs();
+        packageJson.createNewFile();
+        pom.createNewFile();
+        File missing = new File(dir, "missing.json");
+        File outside = new File(testDir, "outside.json");
+        outside.createNewFile();
+
+        List<String> paths = GitPlugin.relativePaths(new File(dir, "sub/.."), Arrays.asList(packageJson, pom, missing, outside, dir));
+        assertThat(paths).containsExactly("package.json", "sub/pom.xml");
+    }
+}
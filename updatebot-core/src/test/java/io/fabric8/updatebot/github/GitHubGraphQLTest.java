@@ -0,0 +1,124 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.github;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.kohsuke.github.GHIssueState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class GitHubGraphQLTest {
+    @Test
+    public void testCreateQuery() throws Exception {
+        String query = GitHubGraphQL.createQuery(Arrays.asList("fabric8io/foo", "jstrachan/bar"), "updatebot");
+
+        assertThat(query).contains("r0: repository(owner: \"fabric8io\", name: \"foo\")");
+        assertThat(query).contains("r1: repository(owner: \"jstrachan\", name: \"bar\")");
+        assertThat(query).contains("labels: [\"updatebot\"]");
+        assertThat(query).contains("pageInfo { hasNextPage }");
+    }
+
+    @Test
+    public void testCreateStatesQuery() throws Exception {
+        Map<String, List<Integer>> numbers = new LinkedHashMap<>();
+        numbers.put("fabric8io/foo", Arrays.asList(7, 12));
+        numbers.put("jstrachan/bar", Collections.singletonList(3));
+        String query = GitHubGraphQL.createStatesQuery(new ArrayList<>(numbers.keySet()), numbers);
+
+        assertThat(query).contains("r0: repository(owner: \"fabric8io\", name: \"foo\")");
+        assertThat(query).contains("n7: issueOrPullRequest(number: 7)");
+        assertThat(query).contains("n12: issueOrPullRequest(number: 12)");
+        assertThat(query).contains("r1: repository(owner: \"jstrachan\", name: \"bar\")");
+        assertThat(query).contains("n3: issueOrPullRequest(number: 3)");
+        assertThat(GitHubGraphQL.stateKey("fabric8io/foo", 7)).isEqualTo("fabric8io/foo#7");
+    }
+
+    @Test
+    public void testParseState() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        assertThat(GitHubGraphQL.parseState(mapper.readTree("\"OPEN\""))).isEqualTo(GHIssueState.OPEN);
+        assertThat(GitHubGraphQL.parseState(mapper.readTree("\"CLOSED\""))).isEqualTo(GHIssueState.CLOSED);
+        assertThat(GitHubGraphQL.parseState(mapper.readTree("\"MERGED\""))).isEqualTo(GHIssueState.CLOSED);
+        assertThat(GitHubGraphQL.parseState(mapper.readTree("{}").path("state"))).isNull();
+    }
+
+    @Test
+    public void testGraphQLEndpoint() throws Exception {
+        assertThat(GitHubConnectors.graphQLEndpoint("https://api.github.com")).isEqualTo("https://api.github.com/graphql");
+        assertThat(GitHubConnectors.graphQLEndpoint("https://github.example.com/api/v3/")).isEqualTo("https://github.example.com/api/graphql");
+    }
+
+    @Test
+    public void testTruncatedResultsAreIncomplete() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        String complete = "{\"pullRequests\": {\"nodes\": [], \"pageInfo\": {\"hasNextPage\": false}}," +
+                " \"issues\": {\"nodes\": [], \"pageInfo\": {\"hasNextPage\": false}}}";
+        String morePullRequests = "{\"pullRequests\": {\"nodes\": [], \"pageInfo\": {\"hasNextPage\": true}}," +
+                " \"issues\": {\"nodes\": []}}";
+        String moreLabels = "{\"pullRequests\": {\"nodes\": []}, \"issues\": {\"nodes\": [" +
+                "{\"number\": 7, \"labels\": {\"nodes\": [{\"name\": \"updatebot\"}], \"pageInfo\": {\"hasNextPage\": true}}}" +
+                "]}}";
+
+        assertThat(GitHubGraphQL.parseRepository("fabric8io/foo", mapper.readTree(complete)).isComplete()).isTrue();
+        assertThat(GitHubGraphQL.parseRepository("fabric8io/foo", mapper.readTree(morePullRequests)).isComplete()).isFalse();
+        assertThat(GitHubGraphQL.parseRepository("fabric8io/foo", mapper.readTree(moreLabels)).isComplete()).isFalse();
+    }
+
+    @Test
+    public void testParseRepository() throws Exception {
+        String json = "{\"pullRequests\": {\"nodes\": [" +
+                "{\"number\": 12, \"title\": \"fix(version): update cheese to 1.0.1\", \"url\": \"https://github.com/fabric8io/foo/pull/12\"," +
+                " \"mergeable\": \"CONFLICTING\", \"headRefName\": \"updatebot-1234\", \"headRefOid\": \"abc123\"," +
+                " \"labels\": {\"nodes\": [{\"name\": \"updatebot\"}]}," +
+                " \"commits\": {\"nodes\": [{\"commit\": {\"status\": {\"state\": \"SUCCESS\"}}}]}}," +
+                "{\"number\": 13, \"title\": \"fix(version): update beer\", \"mergeable\": \"UNKNOWN\"," +
+                " \"commits\": {\"nodes\": [{\"commit\": {\"status\": null}}]}}" +
+                "]}, \"issues\": {\"nodes\": [" +
+                "{\"number\": 7, \"title\": \"UpdateBot pending changes\", \"labels\": {\"nodes\": [{\"name\": \"updatebot\"}]}}" +
+                "]}}";
+        JsonNode node = new ObjectMapper().readTree(json);
+
+        RepositorySummary summary = GitHubGraphQL.parseRepository("fabric8io/foo", node);
+
+        assertThat(summary.getPullRequests()).hasSize(2);
+        PullRequestSummary conflicting = summary.getPullRequests().get(0);
+        assertThat(conflicting.getNumber()).isEqualTo(12);
+        assertThat(conflicting.getMergeable()).isFalse();
+        assertThat(conflicting.getHeadRef()).isEqualTo("updatebot-1234");
+        assertThat(conflicting.getHeadSha()).isEqualTo("abc123");
+        assertThat(conflicting.getCommitStatus()).isEqualTo("SUCCESS");
+        assertThat(conflicting.getLabels()).containsExactly("updatebot");
+
+        PullRequestSummary unknown = summary.getPullRequests().get(1);
+        assertThat(unknown.getMergeable()).isNull();
+        assertThat(unknown.getCommitStatus()).isNull();
+
+        assertThat(summary.getIssues()).hasSize(1);
+        assertThat(summary.findIssue("UpdateBot").getNumber()).isEqualTo(7);
+        assertThat(summary.findIssue("Other")).isNull();
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.github;
+
+import io.fabric8.updatebot.test.Tests;
+import org.junit.Before;
+import org.junit.Test;
+import org.kohsuke.github.GHIssue;
+import org.kohsuke.github.GHIssueComment;
+import org.kohsuke.github.GHIssueState;
+import org.kohsuke.github.GHRepository;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class GitHubLedgerTest {
+    private File workDir;
+    private GHRepository repository = new StubRepository("fabric8io/foo");
+
+    @Before
+    public void init() throws Exception {
+        workDir = Tests.getTestDataDir(getClass());
+        new File(workDir, GitHubLedger.FILE_NAME).delete();
+    }
+
+    @Test
+    public void testCommentsCachedUntilCountOrUpdateTimeChanges() throws Exception {
+        GitHubLedger ledger = GitHubLedger.load(workDir);
+        StubIssue issue = new StubIssue(7, 1000L, "hello", "updatebot push");
+
+        assertThat(ledger.findLastComment(repository, issue, "command", this::matchCommand)).isEqualTo("updatebot push");
+        assertThat(issue.commentLoads).isEqualTo(1);
+
+        // unchanged thread uses the ledger
+        assertThat(ledger.findLastComment(repository, issue, "command", this::matchCommand)).isEqualTo("updatebot push");
+        assertThat(issue.commentLoads).isEqualTo(1);
+
+        // a new comment changes the count so the stale entry is scanned again
+        issue.comments.add("updatebot rebase");
+        assertThat(ledger.findLastComment(repository, issue, "command", this::matchCommand)).isEqualTo("updatebot rebase");
+        assertThat(issue.commentLoads).isEqualTo(2);
+
+        // an edited comment only changes the update time
+        issue.comments.set(2, "updatebot merge");
+        issue.updatedAt = 2000L;
+        assertThat(ledger.findLastComment(repository, issue, "command", this::matchCommand)).isEqualTo("updatebot merge");
+        assertThat(issue.commentLoads).isEqualTo(3);
+    }
+
+    @Test
+    public void testChangesOnlySavedWhenFlushed() throws Exception {
+        GitHubLedger ledger = GitHubLedger.load(workDir);
+        StubIssue issue = new StubIssue(7, 1000L, "updatebot push");
+        ledger.recordIssue(repository, "UpdateBot", issue);
+        ledger.findLastComment(repository, issue, "command", this::matchCommand);
+
+        assertThat(ledger.isDirty()).isTrue();
+        assertThat(ledger.getFile()).doesNotExist();
+
+        ledger.flush();
+        assertThat(ledger.isDirty()).isFalse();
+        assertThat(ledger.getFile()).isFile();
+
+        GitHubLedger loaded = GitHubLedger.load(workDir);
+        assertThat(loaded.getIssueNumber(repository, "UpdateBot")).isEqualTo(7);
+        assertThat(loaded.findLastComment(repository, issue, "command", this::matchCommand)).isEqualTo("updatebot push");
+        assertThat(issue.commentLoads).isEqualTo(1);
+    }
+
+    @Test
+    public void testClosedThreadsAreForgotten() throws Exception {
+        GitHubLedger ledger = GitHubLedger.load(workDir);
+        StubIssue issue = new StubIssue(7, 1000L, "updatebot push");
+        ledger.recordIssue(repository, "UpdateBot", issue);
+        ledger.findLastComment(repository, issue, "command", this::matchCommand);
+
+        ledger.recordIssue(repository, "UpdateBot", null);
+        ledger.recordClosed(repository, issue);
+        assertThat(ledger.getIssueNumber(repository, "UpdateBot")).isNull();
+
+        ledger.findLastComment(repository, issue, "command", this::matchCommand);
+        assertThat(issue.commentLoads).isEqualTo(2);
+
+        // the comments of closed threads are not recorded
+        issue.state = GHIssueState.CLOSED;
+        ledger.recordClosed(repository, issue);
+        ledger.findLastComment(repository, issue, "command", this::matchCommand);
+        ledger.findLastComment(repository, issue, "command", this::matchCommand);
+        assertThat(issue.commentLoads).isEqualTo(4);
+    }
+
+    @Test
+    public void testStatusCommentRecorded() throws Exception {
+        GitHubLedger ledger = GitHubLedger.load(workDir);
+        StubIssue issue = new StubIssue(7, 1000L, "updatebot push");
+        assertThat(ledger.getStatusCommentId(repository, issue)).isNull();
+
+        ledger.findLastComment(repository, issue, "command", this::matchCommand);
+        ledger.recordStatusComment(repository, issue, 1234L, true, "command", "updatebot rebase");
+
+        // editing the status comment in place keeps the scanned comments up to date without loading them again
+        assertThat(ledger.getStatusCommentId(repository, issue)).isEqualTo(1234L);
+        assertThat(ledger.findLastComment(repository, issue, "command", this::matchCommand)).isEqualTo("updatebot rebase");
+        assertThat(issue.commentLoads).isEqualTo(1);
+
+        ledger.flush();
+        assertThat(GitHubLedger.load(workDir).getStatusCommentId(repository, issue)).isEqualTo(1234L);
+
+        ledger.recordClosed(repository, issue);
+        assertThat(ledger.getStatusCommentId(repository, issue)).isNull();
+    }
+
+    protected String matchCommand(GHIssueComment comment) {
+        String body = comment.getBody();
+        return body.startsWith("updatebot ") ? body : null;
+    }
+
+    public static class StubRepository extends GHRepository {
+        private final String fullName;
+
+        public StubRepository(String fullName) {
+            this.fullName = fullName;
+        }
+
+        @Override
+        public String getFullName() {
+            return fullName;
+        }
+    }
+
+    public static class StubIssue extends GHIssue {
+        private final int number;
+        private final List<String> comments = new ArrayList<>();
+        private long updatedAt;
+        private GHIssueState state = GHIssueState.OPEN;
+        private int commentLoads;
+
+        public StubIssue(int number, long updatedAt, String... comments) {
+            this.number = number;
+            this.updatedAt = updatedAt;
+            for (String comment : comments) {
+                this.comments.add(comment);
+            }
+        }
+
+        @Override
+        public int getNumber() {
+            return number;
+        }
+
+        @Override
+        public int getCommentsCount() {
+            return comments.size();
+        }
+
+        @Override
+        public Date getUpdatedAt() throws IOException {
+            return new Date(updatedAt);
+        }
+
+        @Override
+        public GHIssueState getState() {
+            return state;
+        }
+
+        @Override
+        public List<GHIssueComment> getComments() throws IOException {
+            commentLoads++;
+            List<GHIssueComment> answer = new ArrayList<>();
+            for (String comment : comments) {
+                answer.add(new StubComment(comment));
+            }
+            return answer;
+        }
+    }
+
+    public static class StubComment extends GHIssueComment {
+        private final String body;
+
+        public StubComment(String body) {
+            this.body = body;
+        }
+
+        @Override
+        public String getBody() {
+            return body;
+        }
+    }
+}
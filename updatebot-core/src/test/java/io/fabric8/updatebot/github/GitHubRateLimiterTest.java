@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.github;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class GitHubRateLimiterTest {
+    protected long now = 1000000L;
+    protected long reset = now + 100000L;
+
+    @Test
+    public void testNoDelayUntilQuotaKnown() throws Exception {
+        GitHubRateLimiter limiter = new GitHubRateLimiter(10);
+        assertThat(limiter.reserve(false, now)).isEqualTo(0);
+        assertThat(limiter.getReads()).isEqualTo(1);
+    }
+
+    @Test
+    public void testNoDelayWithPlentyOfQuota() throws Exception {
+        GitHubRateLimiter limiter = createLimiter(5000, 4000);
+        assertThat(limiter.reserve(false, now)).isEqualTo(0);
+        assertThat(limiter.getRemaining()).isEqualTo(3999);
+    }
+
+    @Test
+    public void testReadsPacedWhenQuotaLow() throws Exception {
+        GitHubRateLimiter limiter = createLimiter(5000, 110);
+
+        // 100 requests over the 100 seconds until the reset
+        assertThat(limiter.reserve(false, now)).isEqualTo(0);
+        assertThat(limiter.reserve(false, now)).isEqualTo(1000);
+        assertThat(limiter.reserve(false, now)).isBetween(2000L, 2100L);
+
+        // writes are not paced
+        assertThat(limiter.reserve(true, now)).isEqualTo(0);
+    }
+
+    @Test
+    public void testReadsWaitForResetWhenOnlyWriteReserveLeft() throws Exception {
+        GitHubRateLimiter limiter = createLimiter(5000, 10);
+
+        assertThat(limiter.reserve(false, now)).isEqualTo(reset - now);
+        assertThat(limiter.reserve(true, now)).isEqualTo(0);
+        assertThat(limiter.getRemaining()).isEqualTo(9);
+
+        // once the window resets we no longer wait
+        assertThat(limiter.reserve(false, reset)).isEqualTo(0);
+    }
+
+    @Test
+    public void testWritesWaitWhenQuotaExhausted() throws Exception {
+        GitHubRateLimiter limiter = createLimiter(5000, 0);
+        assertThat(limiter.reserve(true, now)).isEqualTo(reset - now);
+    }
+
+    @Test
+    public void testGraphQLQueriesAreReads() throws Exception {
+        assertThat(GitHubRateLimiter.isWrite("POST", "/graphql")).isFalse();
+        assertThat(GitHubRateLimiter.isWrite("POST", "/api/graphql")).isFalse();
+        assertThat(GitHubRateLimiter.isWrite("POST", "/repos/fabric8io/foo/issues")).isTrue();
+        assertThat(GitHubRateLimiter.isWrite("GET", "/repos/fabric8io/foo/issues")).isFalse();
+
+        assertThat(GitHubRateLimiter.resource("/api/graphql")).isEqualTo(GitHubRateLimiter.RESOURCE_GRAPHQL);
+        assertThat(GitHubRateLimiter.resource("/search/issues")).isEqualTo(GitHubRateLimiter.RESOURCE_SEARCH);
+        assertThat(GitHubRateLimiter.resource("/repos/fabric8io/foo")).isEqualTo(GitHubRateLimiter.RESOURCE_CORE);
+    }
+
+    @Test
+    public void testResourcesHaveSeparateQuotas() throws Exception {
+        GitHubRateLimiter limiter = createLimiter(5000, 4000);
+        limiter.update(GitHubRateLimiter.RESOURCE_SEARCH, "30", "0", Long.toString(reset / 1000));
+
+        assertThat(limiter.reserve(GitHubRateLimiter.RESOURCE_SEARCH, false, now)).isEqualTo(reset - now);
+        assertThat(limiter.reserve(false, now)).isEqualTo(0);
+        assertThat(limiter.reserve(GitHubRateLimiter.RESOURCE_GRAPHQL, false, now)).isEqualTo(0);
+        assertThat(limiter.getRemaining()).isEqualTo(3999);
+        assertThat(limiter.getLimit(GitHubRateLimiter.RESOURCE_SEARCH)).isEqualTo(30);
+    }
+
+    @Test
+    public void testWriteReserveCappedByLimit() throws Exception {
+        GitHubRateLimiter limiter = new GitHubRateLimiter(100);
+        limiter.update(GitHubRateLimiter.RESOURCE_SEARCH, "30", "20", Long.toString(reset / 1000));
+
+        // only 3 of the 30 search requests are reserved for writes so reads can still proceed
+        assertThat(limiter.reserve(GitHubRateLimiter.RESOURCE_SEARCH, false, now)).isLessThan(reset - now);
+    }
+
+    protected GitHubRateLimiter createLimiter(int limit, int remaining) {
+        GitHubRateLimiter limiter = new GitHubRateLimiter(10);
+        limiter.update(Integer.toString(limit), Integer.toString(remaining), Long.toString(reset / 1000));
+        return limiter;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.github;
+
+import org.junit.Test;
+import org.kohsuke.github.HttpException;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.Assert.fail;
+
+/**
+ */
+public class RetryPolicyTest {
+    @Test
+    public void testRetryableFailures() throws Exception {
+        assertThat(RetryPolicy.isRetryable(httpException(502, "Bad Gateway"))).isTrue();
+        assertThat(RetryPolicy.isRetryable(httpException(503, "Service Unavailable"))).isTrue();
+        assertThat(RetryPolicy.isRetryable(httpException(504, "Gateway Timeout"))).isTrue();
+        assertThat(RetryPolicy.isRetryable(httpException(-1, "No response"))).isTrue();
+        assertThat(RetryPolicy.isRetryable(httpException(403, "You have exceeded a secondary rate limit"))).isTrue();
+        assertThat(RetryPolicy.isRetryable(new SocketTimeoutException("Read timed out"))).isTrue();
+
+        assertThat(RetryPolicy.isRetryable(httpException(403, "Forbidden"))).isFalse();
+        assertThat(RetryPolicy.isRetryable(httpException(404, "Not Found"))).isFalse();
+        assertThat(RetryPolicy.isRetryable(httpException(422, "Validation Failed"))).isFalse();
+        assertThat(RetryPolicy.isRetryable(new IOException("Something else"))).isFalse();
+    }
+
+    @Test
+    public void testBackoffIsBounded() throws Exception {
+        RetryPolicy policy = new RetryPolicy(10, 100, 1000, null);
+        for (int i = 0; i < 100; i++) {
+            assertThat(policy.delayMillis(1)).isBetween(0L, 100L);
+            assertThat(policy.delayMillis(3)).isBetween(0L, 400L);
+            assertThat(policy.delayMillis(9)).isBetween(0L, 1000L);
+        }
+    }
+
+    @Test
+    public void testRetriesUntilSuccess() throws Exception {
+        RetryPolicy policy = new RetryPolicy(5, 1, 1, new RetryBudget(10, 0.1));
+        AtomicInteger calls = new AtomicInteger();
+        String answer = GitHubHelpers.retryGithub(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw httpException(503, "Service Unavailable");
+            }
+            return "done";
+        }, policy);
+
+        assertThat(answer).isEqualTo("done");
+        assertThat(calls.get()).isEqualTo(3);
+        assertThat(policy.getBudget().getTokens()).isCloseTo(8.1, within(0.001));
+    }
+
+    @Test
+    public void testDoesNotRetryPermanentFailures() throws Exception {
+        RetryPolicy policy = new RetryPolicy(5, 1, 1, null);
+        AtomicInteger calls = new AtomicInteger();
+        try {
+            GitHubHelpers.retryGithub(() -> {
+                calls.incrementAndGet();
+                throw httpException(404, "Not Found");
+            }, policy);
+            fail("Should have thrown an exception");
+        } catch (HttpException e) {
+            assertThat(e.getResponseCode()).isEqualTo(404);
+        }
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testRetryBudgetExhausted() throws Exception {
+        RetryPolicy policy = new RetryPolicy(5, 1, 1, new RetryBudget(1, 0.1));
+        AtomicInteger calls = new AtomicInteger();
+        try {
+            GitHubHelpers.retryGithub(() -> {
+                calls.incrementAndGet();
+                throw httpException(502, "Bad Gateway");
+            }, policy);
+            fail("Should have thrown an exception");
+        } catch (HttpException e) {
+            assertThat(e.getResponseCode()).isEqualTo(502);
+        }
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    protected static HttpException httpException(int code, String message) {
+        return new HttpException(message, code, message, "https://api.github.com/repos/fabric8io/foo");
+    }
+}
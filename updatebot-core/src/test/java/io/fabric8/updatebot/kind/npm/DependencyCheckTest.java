@@ -71,6 +71,16 @@ public class DependencyCheckTest {
         assertDependencyCheck(tree, "ngx-fabric8-wit", true);
     }
 
+    @Test
+    public void testStreamChangeBase() throws Exception {
+        this.fileName = "fabric8-planner-change-ngx-base.json";
+        DependencyTree tree = DependencyTree.parseTree(new File(testDir, fileName));
+
+        assertDependencyCheck(tree, "ngx-base", false);
+        assertDependencyCheck(tree, "ngx-fabric8-wit", true);
+        assertThat(tree.dependencyCheck("ngx-base").getMessage()).isEqualTo("Direct dependency is 1.3.0 but has conflicts: ngx-fabric8-wit@6.18.11 => 1.2.9");
+    }
+
     public DependencyTree assertLoadDependencyTree(String fileName) throws IOException {
         this.fileName = fileName;
         return assertLoadDependencyTree(new File(testDir, fileName));
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.kind.npm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.fabric8.updatebot.kind.npm.dependency.DependencyTree;
+import io.fabric8.updatebot.support.JsonNodes;
+import io.fabric8.updatebot.support.MarkupHelper;
+import io.fabric8.updatebot.test.Tests;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class LockfileNpmDependencyTreeGeneratorTest {
+    protected File testDir = new File(Tests.getBasedir(), "src/test/resources/npm/lockfiles");
+
+    @Test
+    public void testLockfileV1WithIncompatibleChange() throws Exception {
+        JsonNode tree = assertCreateDependencyTree("package-lock-v1.json");
+
+        assertVersion(tree, "2.0.0", "dependencies", "ngx-base");
+        assertVersion(tree, "2.4.2", "dependencies", "typescript");
+        assertVersion(tree, "1.2.0", "dependencies", "ngx-widgets", "dependencies", "ngx-base");
+        assertVersion(tree, "1.8.0", "dependencies", "ngx-widgets", "dependencies", "tslib");
+
+        DependencyTree dependencyTree = DependencyTree.parseTree(tree);
+        assertThat(dependencyTree.dependencyCheck("ngx-base").isValid()).describedAs("ngx-base check").isFalse();
+        assertThat(dependencyTree.dependencyCheck("ngx-widgets").isValid()).describedAs("ngx-widgets check").isTrue();
+    }
+
+    @Test
+    public void testLockfileV2WithCompatibleChange() throws Exception {
+        JsonNode tree = assertCreateDependencyTree("package-lock-v2.json");
+
+        assertVersion(tree, "2.0.0", "dependencies", "ngx-base");
+        assertVersion(tree, "2.0.0", "dependencies", "ngx-widgets", "dependencies", "ngx-base");
+        assertVersion(tree, "1.7.1", "dependencies", "ngx-widgets", "dependencies", "tslib");
+
+        DependencyTree dependencyTree = DependencyTree.parseTree(tree);
+        assertThat(dependencyTree.dependencyCheck("ngx-base").isValid()).describedAs("ngx-base check").isTrue();
+    }
+
+    @Test
+    public void testSemverRanges() throws Exception {
+        assertThat(NpmSemver.satisfies("1.2.3", "^1.0.0")).isTrue();
+        assertThat(NpmSemver.satisfies("2.0.0", "^1.0.0")).isFalse();
+        assertThat(NpmSemver.satisfies("0.2.5", "^0.2.3")).isTrue();
+        assertThat(NpmSemver.satisfies("0.3.0", "^0.2.3")).isFalse();
+        assertThat(NpmSemver.satisfies("1.2.9", "~1.2.3")).isTrue();
+        assertThat(NpmSemver.satisfies("1.3.0", "~1.2.3")).isFalse();
+        assertThat(NpmSemver.satisfies("1.5.0", ">=1.2.0 <2.0.0")).isTrue();
+        assertThat(NpmSemver.satisfies("3.1.0", "1.x || >=3.0.0")).isTrue();
+        assertThat(NpmSemver.satisfies("2.1.0", "1.x || >=3.0.0")).isFalse();
+        assertThat(NpmSemver.satisfies("1.4.0", "1.2.0 - 1.4")).isTrue();
+        assertThat(NpmSemver.satisfies("1.0.0-beta.1", ">=1.0.0")).isFalse();
+        assertThat(NpmSemver.satisfies("2.0.0-beta.1", "^1.0.0")).isFalse();
+        assertThat(NpmSemver.satisfies("1.5.0-rc.1", ">=1.2.0 <2.0.0")).isFalse();
+        assertThat(NpmSemver.satisfies("1.0.0-beta.1", "*")).isFalse();
+        assertThat(NpmSemver.satisfies("1.2.3-beta.2", "^1.2.3-beta.1")).isTrue();
+        assertThat(NpmSemver.satisfies("1.2.3", "^1.2.3-beta.1")).isTrue();
+        assertThat(NpmSemver.satisfies("1.2.4-beta.1", "^1.2.3-beta.1")).isFalse();
+        assertThat(NpmSemver.satisfies("1.2.3-beta.1", "1.2.3-beta.1")).isTrue();
+        assertThat(NpmSemver.satisfies("2.0.0-beta.1", "^1.0.0 || >=2.0.0-alpha")).isTrue();
+        assertThat(NpmSemver.satisfies("1.0.0", "github:foo/bar")).isTrue();
+        assertThat(NpmSemver.baseVersion("^2.1.0")).isEqualTo("2.1.0");
+    }
+
+    protected JsonNode assertCreateDependencyTree(String lockfileName) throws IOException {
+        JsonNode packageJson = MarkupHelper.loadJson(new File(testDir, "package.json"));
+        JsonNode lockfile = MarkupHelper.loadJson(new File(testDir, lockfileName));
+        JsonNode tree = LockfileNpmDependencyTreeGenerator.createDependencyTree(packageJson, lockfile);
+        assertThat(tree).describedAs("dependency tree for " + lockfileName).isNotNull();
+        return tree;
+    }
+
+    protected void assertVersion(JsonNode tree, String expected, String... paths) {
+        JsonNode node = JsonNodes.path(tree, paths);
+        assertThat(node).describedAs("node at " + String.join("/", paths)).isNotNull();
+        assertThat(JsonNodes.textValue(node, "version")).describedAs("version at " + String.join("/", paths)).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.kind.npm;
+
+import io.fabric8.updatebot.kind.Kind;
+import io.fabric8.updatebot.kind.KindDependenciesCheck;
+import io.fabric8.updatebot.kind.npm.dependency.DependencyCheck;
+import io.fabric8.updatebot.model.DependencyVersionChange;
+import io.fabric8.updatebot.test.Tests;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class NpmDependencyCheckSnapshotTest {
+    private NpmDependencyTreeGenerator generator = new LockfileNpmDependencyTreeGenerator();
+    private List<DependencyVersionChange> changes = Arrays.asList(
+            new DependencyVersionChange(Kind.NPM, "cheese", "1.2.3"),
+            new DependencyVersionChange(Kind.NPM, "beer", "2.0.0"));
+    private File testDir;
+    private File dir;
+    private File workDir;
+
+    @Before
+    public void init() throws Exception {
+        testDir = Tests.getTestDataDir(getClass());
+        dir = new File(testDir, "project");
+        workDir = new File(testDir, "work");
+        dir.mkdirs();
+        writeFile(new File(dir, "package.json"), "{\"dependencies\": {\"cheese\": \"^1.0.0\", \"beer\": \"^1.0.0\"}}");
+        writeFile(new File(dir, "package-lock.json"), "{\"lockfileVersion\": 1, \"dependencies\": {\"cheese\": {\"version\": \"1.0.0\"}}}");
+    }
+
+    @Test
+    public void testSnapshotRoundTrips() throws Exception {
+        String key = NpmDependencyCheckSnapshot.cacheKey(dir, generator, changes);
+        assertThat(key).isNotNull();
+
+        DependencyCheck failed = new DependencyCheck(false, "beer requires node 8", null);
+        KindDependenciesCheck check = new KindDependenciesCheck(changes.subList(0, 1), changes.subList(1, 2),
+                Collections.singletonMap("beer", failed));
+        new NpmDependencyCheckSnapshot(check).save(workDir, key);
+
+        NpmDependencyCheckSnapshot snapshot = NpmDependencyCheckSnapshot.load(workDir, key);
+        assertThat(snapshot).isNotNull();
+        KindDependenciesCheck loaded = snapshot.createKindDependenciesCheck();
+        assertThat(loaded.getValidChanges()).extracting(DependencyVersionChange::getDependency).containsExactly("cheese");
+        assertThat(loaded.getInvalidChanges()).extracting(DependencyVersionChange::getDependency).containsExactly("beer");
+        Map<String, DependencyCheck> failedChecks = loaded.getFailedChecks();
+        assertThat(failedChecks).containsOnlyKeys("beer");
+        assertThat(failedChecks.get("beer").isValid()).isFalse();
+        assertThat(failedChecks.get("beer").getMessage()).isEqualTo("beer requires node 8");
+    }
+
+    @Test
+    public void testChangedLockfileMissesCache() throws Exception {
+        String key = NpmDependencyCheckSnapshot.cacheKey(dir, generator, changes);
+        new NpmDependencyCheckSnapshot(new KindDependenciesCheck(changes)).save(workDir, key);
+
+        writeFile(new File(dir, "package-lock.json"), "{\"lockfileVersion\": 1, \"dependencies\": {\"cheese\": {\"version\": \"1.1.0\"}}}");
+        String changedKey = NpmDependencyCheckSnapshot.cacheKey(dir, generator, changes);
+
+        assertThat(changedKey).isNotEqualTo(key);
+        assertThat(NpmDependencyCheckSnapshot.load(workDir, changedKey)).isNull();
+    }
+
+    @Test
+    public void testNotCachedWithoutLockfile() throws Exception {
+        new File(dir, "package-lock.json").delete();
+
+        assertThat(NpmDependencyCheckSnapshot.cacheKey(dir, generator, changes)).isNull();
+        assertThat(new DefaultNpmDependencyTreeGenerator().isCacheable()).isFalse();
+    }
+
+    private static void writeFile(File file, String text) throws Exception {
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -20,6 +20,7 @@ import io.fabric8.updatebot.Configuration;
 import io.fabric8.updatebot.commands.CommandContext;
 import io.fabric8.updatebot.commands.PushVersionChangesContext;
 import io.fabric8.updatebot.kind.Kind;
+import io.fabric8.updatebot.model.DependencyVersionChange;
 import io.fabric8.updatebot.repository.LocalRepository;
 import io.fabric8.updatebot.support.MarkupHelper;
 import io.fabric8.updatebot.test.Tests;
@@ -28,6 +29,8 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import static io.fabric8.updatebot.test.MarkupAssertions.assertTextValue;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -59,12 +62,15 @@ public class PackageJsonUpdaterTest {
     }
 
     public void assertUpdatePackageJson(File packageJson, String dependencyKey, String name, String version) throws IOException {
-        PushVersionChangesContext context = parentContext.updateVersion(Kind.NPM, name, version);
-        assertThat(updater.isApplicable(context)).
+        assertThat(updater.isApplicable(parentContext)).
                 describedAs("File should be applicable " + packageJson).
                 isTrue();
-        updater.pushVersions(context);
+        List<DependencyVersionChange> changes = new ArrayList<>();
+        changes.add(new DependencyVersionChange(Kind.NPM, name, version));
+        assertThat(updater.pushVersions(parentContext, changes)).isTrue();
 
+        assertThat(parentContext.getChildren()).hasSize(1);
+        PushVersionChangesContext context = (PushVersionChangesContext) parentContext.getChildren().get(0);
         PushVersionChangesContext.Change change = context.change(name);
         assertThat(change).describedAs("expected change for name " + name).isNotNull();
         assertThat(change.getNewValue()).isEqualTo(version);
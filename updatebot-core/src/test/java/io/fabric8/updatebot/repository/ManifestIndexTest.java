@@ -0,0 +1,87 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.repository;
+
+import io.fabric8.updatebot.kind.Kind;
+import io.fabric8.updatebot.test.Tests;
+import io.fabric8.utils.IOHelpers;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class ManifestIndexTest {
+    protected File dir = new File(Tests.getCleanWorkDir(getClass()));
+
+    protected void writeFile(String path, String text) throws Exception {
+        File file = new File(dir, path);
+        file.getParentFile().mkdirs();
+        IOHelpers.writeFully(file, text);
+    }
+
+    @Test
+    public void testIndexSkipsBuildAndDependencyFolders() throws Exception {
+        writeFile("pom.xml", "<project/>");
+        writeFile("child/pom.xml", "<project/>");
+        writeFile("target/classes/META-INF/maven/pom.xml", "<project/>");
+        writeFile("package.json", "{}");
+        writeFile("node_modules/cheese/package.json", "{}");
+        writeFile("charts/foo/Chart.yaml", "name: foo");
+        writeFile("charts/foo/requirements.yaml", "dependencies: []");
+        writeFile("Jenkinsfile", "pipeline {}");
+
+        ManifestIndex index = ManifestIndex.create(dir);
+
+        assertThat(index.getFiles()).containsExactly("Jenkinsfile", "charts/foo/Chart.yaml", "charts/foo/requirements.yaml",
+                "child/pom.xml", "package.json", "pom.xml");
+        assertThat(index.getManifests().keySet()).containsExactly("charts/foo/Chart.yaml", "charts/foo/requirements.yaml",
+                "child/pom.xml", "package.json", "pom.xml");
+        assertThat(index.findManifestFiles("pom.xml")).containsExactly(new File(dir, "child/pom.xml"), new File(dir, "pom.xml"));
+        assertThat(index.hasManifest("package.json")).isTrue();
+        assertThat(index.hasManifest("Chart.yaml")).isFalse();
+
+        ManifestEntry pom = index.getManifest("pom.xml");
+        assertThat(pom.getKinds()).containsOnly(Kind.FILE, Kind.MAVEN);
+        assertThat(pom.getSize()).isEqualTo("<project/>".length());
+        assertThat(pom.getContentHash()).isNotNull().isEqualTo(index.getManifest("child/pom.xml").getContentHash());
+        assertThat(index.getManifest("package.json").getKinds()).containsOnly(Kind.NPM);
+    }
+
+    @Test
+    public void testIndexDoesNotFollowLinks() throws Exception {
+        File outside = new File(dir.getParentFile(), dir.getName() + "-outside");
+        new File(outside, "pom.xml").getParentFile().mkdirs();
+        IOHelpers.writeFully(new File(outside, "pom.xml"), "<project/>");
+        writeFile("pom.xml", "<project/>");
+        try {
+            Files.createSymbolicLink(new File(dir, "linked").toPath(), outside.toPath().toAbsolutePath());
+            Files.createSymbolicLink(new File(dir, "package.json").toPath(), new File(outside, "pom.xml").toPath().toAbsolutePath());
+        } catch (IOException | UnsupportedOperationException e) {
+            Assume.assumeNoException("symbolic links are not supported", e);
+        }
+
+        ManifestIndex index = ManifestIndex.create(dir);
+
+        assertThat(index.getFiles()).containsExactly("pom.xml");
+        assertThat(index.getManifests().keySet()).containsExactly("pom.xml");
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.repository;
+
+import io.fabric8.updatebot.model.Dependencies;
+import io.fabric8.updatebot.model.GitRepository;
+import io.fabric8.updatebot.model.GitRepositoryConfig;
+import io.fabric8.updatebot.model.PluginsDependencies;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class RepositoriesTest {
+    @Test
+    public void testSparseCheckoutPatternsIncludeConfigAndManifests() throws Exception {
+        LocalRepository repository = new LocalRepository(new GitRepository("cheese"), new File("cheese"));
+
+        Set<String> patterns = Repositories.getSparseCheckoutPatterns(repository);
+        assertThat(patterns).containsOnly("/.updatebot.yml", "pom.xml", "Chart.yaml", "requirements.yaml",
+                "package.json", "package-lock.json", "npm-shrinkwrap.json");
+    }
+
+    @Test
+    public void testSparseCheckoutPatternsIncludePluginFiles() throws Exception {
+        PluginsDependencies plugins = new PluginsDependencies();
+        plugins.setIncludes(Arrays.asList("Jenkinsfile", "*.groovy"));
+        Dependencies push = new Dependencies();
+        push.setPlugins(plugins);
+        GitRepositoryConfig details = new GitRepositoryConfig();
+        details.setPush(push);
+        GitRepository repo = new GitRepository("cheese");
+        repo.setRepositoryDetails(details);
+        LocalRepository repository = new LocalRepository(repo, new File("cheese"));
+
+        Set<String> patterns = Repositories.getSparseCheckoutPatterns(repository);
+        assertThat(patterns).contains("/.updatebot.yml", "pom.xml", "package.json", "Jenkinsfile", "*.groovy");
+    }
+}
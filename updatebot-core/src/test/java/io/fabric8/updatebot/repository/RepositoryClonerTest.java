@@ -0,0 +1,192 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.repository;
+
+import io.fabric8.updatebot.Configuration;
+import io.fabric8.updatebot.git.CloneStrategy;
+import io.fabric8.updatebot.git.GitPlugin;
+import io.fabric8.updatebot.model.GitRepository;
+import io.fabric8.updatebot.test.Tests;
+import io.fabric8.utils.Files;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class RepositoryClonerTest {
+    protected Configuration configuration = new Configuration();
+    protected File testDir = Tests.getTestDataDir(getClass());
+
+    @Test
+    public void testRepositoryReadyBeforeOthersAreCloned() throws Exception {
+        CountDownLatch releaseSlowClone = new CountDownLatch(1);
+        StubGitPlugin git = new StubGitPlugin() {
+            @Override
+            protected void doClone(String name) throws InterruptedException {
+                if (name.equals("slow")) {
+                    releaseSlowClone.await(10, TimeUnit.SECONDS);
+                }
+            }
+        };
+        configuration.setGit(git);
+        configuration.setCloneThreads(2);
+
+        RepositoryCloner cloner = new RepositoryCloner(configuration);
+        try {
+            CompletableFuture<LocalRepository> slow = cloner.cloneOrPull(createRepository("github.com", "slow"));
+            CompletableFuture<LocalRepository> fast = cloner.cloneOrPull(createRepository("github.com", "fast"));
+
+            LocalRepository ready = fast.get(10, TimeUnit.SECONDS);
+            assertThat(ready.getDir().getName()).isEqualTo("fast");
+            assertThat(slow.isDone()).describedAs("slow clone should still be running").isFalse();
+
+            releaseSlowClone.countDown();
+            slow.get(10, TimeUnit.SECONDS);
+        } finally {
+            releaseSlowClone.countDown();
+            cloner.shutdown();
+        }
+    }
+
+    @Test
+    public void testConnectionsPerHostAreLimited() throws Exception {
+        StubGitPlugin git = new StubGitPlugin();
+        configuration.setGit(git);
+        configuration.setCloneThreads(8);
+        configuration.setCloneConnectionsPerHost(2);
+
+        RepositoryCloner cloner = new RepositoryCloner(configuration);
+        List<CompletableFuture<LocalRepository>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                futures.add(cloner.cloneOrPull(createRepository("github.com", "github-" + i)));
+                futures.add(cloner.cloneOrPull(createRepository("gitlab.com", "gitlab-" + i)));
+            }
+            for (CompletableFuture<LocalRepository> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            cloner.shutdown();
+        }
+
+        assertThat(git.clones.get()).isEqualTo(16);
+        assertThat(git.getMaxConcurrent("github.com")).describedAs("github.com concurrent clones").isEqualTo(2);
+        assertThat(git.getMaxConcurrent("gitlab.com")).describedAs("gitlab.com concurrent clones").isEqualTo(2);
+        assertThat(git.maxConcurrent.get()).describedAs("total concurrent clones").isGreaterThan(2).isLessThanOrEqualTo(4);
+    }
+
+    protected LocalRepository createRepository(String host, String name) {
+        File dir = new File(testDir, host + "/" + name);
+        Files.recursiveDelete(dir);
+        return new LocalRepository(new GitRepository(name, "https://" + host + "/dummy/" + name + ".git"), dir);
+    }
+
+    /**
+     * A git plugin which records how many clones run at once for each host
+     */
+    public static class StubGitPlugin implements GitPlugin {
+        private final AtomicInteger clones = new AtomicInteger();
+        private final AtomicInteger concurrent = new AtomicInteger();
+        private final AtomicInteger maxConcurrent = new AtomicInteger();
+        private final Map<String, AtomicInteger> hostConcurrent = new ConcurrentHashMap<>();
+        private final Map<String, AtomicInteger> hostMaxConcurrent = new ConcurrentHashMap<>();
+
+        @Override
+        public void clone(File dir, String cloneUrl, String name, CloneStrategy strategy, Collection<String> sparseCheckoutPatterns) {
+            String host = dir.getName();
+            AtomicInteger hostCount = hostConcurrent.computeIfAbsent(host, h -> new AtomicInteger());
+            int current = concurrent.incrementAndGet();
+            int hostCurrent = hostCount.incrementAndGet();
+            maxConcurrent.accumulateAndGet(current, Math::max);
+            hostMaxConcurrent.computeIfAbsent(host, h -> new AtomicInteger()).accumulateAndGet(hostCurrent, Math::max);
+            try {
+                doClone(name);
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                hostCount.decrementAndGet();
+                concurrent.decrementAndGet();
+            }
+            clones.incrementAndGet();
+        }
+
+        protected void doClone(String name) throws InterruptedException {
+        }
+
+        public int getMaxConcurrent(String host) {
+            AtomicInteger answer = hostMaxConcurrent.get(host);
+            return answer != null ? answer.get() : 0;
+        }
+
+        @Override
+        public void setRemoteURL(File dir, String remoteURL) {
+        }
+
+        @Override
+        public boolean push(File dir, String localBranch) {
+            return true;
+        }
+
+        @Override
+        public void pull(File dir, String cloneUrl) {
+        }
+
+        @Override
+        public void configUserNameAndEmail(File dir) {
+        }
+
+        @Override
+        public boolean commitToBranch(File dir, String branch, String commitComment, Collection<File> files) {
+            return true;
+        }
+
+        @Override
+        public void deleteBranch(File dir, String localBranch) {
+        }
+
+        @Override
+        public boolean addAndCommit(File dir, String commitComment, Collection<File> files) {
+            return true;
+        }
+
+        @Override
+        public boolean stashAndCheckoutMaster(File dir) {
+            return true;
+        }
+
+        @Override
+        public void revertChanges(File dir) {
+        }
+
+        @Override
+        public String getHeadSha(File dir) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.repository;
+
+import io.fabric8.updatebot.kind.Kind;
+import io.fabric8.updatebot.model.DependencyVersionChange;
+import io.fabric8.updatebot.test.Tests;
+import io.fabric8.utils.IOHelpers;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class RepositoryStateIndexTest {
+    protected File workDir = new File(Tests.getCleanWorkDir(getClass()));
+
+    @Test
+    public void testStatePersistedBetweenRuns() throws Exception {
+        String cloneUrl = "https://github.com/fabric8io/foo.git";
+        RepositoryState state = new RepositoryState("1234", ManifestIndex.create(workDir), Arrays.asList(
+                new DependencyVersionChange(Kind.NPM, "cheese", "1.0.1"),
+                new DependencyVersionChange(Kind.MAVEN, "io.fabric8:foo", "2.0.0", "test")));
+
+        RepositoryStateIndex index = RepositoryStateIndex.load(workDir);
+        assertThat(index.getState(cloneUrl)).isNull();
+        index.putState(cloneUrl, state);
+
+        RepositoryStateIndex loaded = RepositoryStateIndex.load(workDir);
+        assertThat(loaded.getState(cloneUrl)).isEqualTo(state);
+
+        RepositoryState otherChanges = new RepositoryState("1234", ManifestIndex.create(workDir), Arrays.asList(
+                new DependencyVersionChange(Kind.NPM, "cheese", "1.0.2")));
+        assertThat(loaded.getState(cloneUrl)).isNotEqualTo(otherChanges);
+
+        RepositoryState otherHead = new RepositoryState("5678", ManifestIndex.create(workDir), Arrays.asList(
+                new DependencyVersionChange(Kind.NPM, "cheese", "1.0.1"),
+                new DependencyVersionChange(Kind.MAVEN, "io.fabric8:foo", "2.0.0", "test")));
+        assertThat(loaded.getState(cloneUrl)).isNotEqualTo(otherHead);
+    }
+
+    @Test
+    public void testStateIncludesManifestDigests() throws Exception {
+        File dir = new File(workDir, "repo");
+        File packageJson = new File(dir, "sub/package.json");
+        packageJson.getParentFile().mkdirs();
+        IOHelpers.writeFully(packageJson, "{\"dependencies\": {\"cheese\": \"1.0.0\"}}");
+        List<DependencyVersionChange> changes = Arrays.asList(new DependencyVersionChange(Kind.NPM, "cheese", "1.0.1"));
+
+        RepositoryState state = new RepositoryState("1234", ManifestIndex.create(dir), changes);
+        assertThat(state.getManifests()).containsOnlyKeys("sub/package.json");
+        assertThat(new RepositoryState("1234", ManifestIndex.create(dir), changes)).isEqualTo(state);
+
+        IOHelpers.writeFully(packageJson, "{\"dependencies\": {\"cheese\": \"1.0.1\"}}");
+        assertThat(new RepositoryState("1234", ManifestIndex.create(dir), changes)).isNotEqualTo(state);
+    }
+
+    @Test
+    public void testPullRequestPersistedButNotCompared() throws Exception {
+        String cloneUrl = "https://github.com/fabric8io/bar.git";
+        List<DependencyVersionChange> changes = Arrays.asList(new DependencyVersionChange(Kind.NPM, "cheese", "1.0.1"));
+        RepositoryState state = new RepositoryState("1234", ManifestIndex.create(workDir), changes);
+        state.setPullRequest(42);
+
+        RepositoryStateIndex.load(workDir).putState(cloneUrl, state);
+
+        RepositoryState loaded = RepositoryStateIndex.load(workDir).getState(cloneUrl);
+        assertThat(loaded.getPullRequest()).isEqualTo(42);
+        assertThat(new RepositoryState("1234", ManifestIndex.create(workDir), changes)).isEqualTo(loaded);
+    }
+}
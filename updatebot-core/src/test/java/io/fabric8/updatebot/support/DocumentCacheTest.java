@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.support;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.pdark.decentxml.Document;
+import io.fabric8.updatebot.test.Tests;
+import io.fabric8.utils.IOHelpers;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ */
+public class DocumentCacheTest {
+    protected DocumentCache cache = new DocumentCache();
+    protected File dir;
+    protected File packageJson;
+    protected File pomXml;
+
+    @Before
+    public void init() throws Exception {
+        dir = new File(Tests.getCleanWorkDir(getClass()));
+        dir.mkdirs();
+        packageJson = new File(dir, "package.json");
+        IOHelpers.writeFully(packageJson, "{\n  \"name\": \"cheese\",\n  \"version\": \"1.0.0\"\n}\n");
+        pomXml = new File(dir, "pom.xml");
+        IOHelpers.writeFully(pomXml, "<project>\n  <version>1.0.0</version>\n</project>\n");
+    }
+
+    @Test
+    public void testDocumentsAreParsedOnce() throws Exception {
+        JsonNode json = cache.getJson(packageJson);
+        assertThat(cache.getJson(packageJson)).isSameAs(json);
+        assertThat(json.get("version").asText()).isEqualTo("1.0.0");
+
+        Document xml = cache.getXml(pomXml);
+        assertThat(cache.getXml(pomXml)).isSameAs(xml);
+        assertThat(xml.getRootElement().getChild("version").getText()).isEqualTo("1.0.0");
+    }
+
+    @Test
+    public void testTouchedFileIsNotParsedAgain() throws Exception {
+        JsonNode json = cache.getJson(packageJson);
+        packageJson.setLastModified(packageJson.lastModified() - 10000);
+
+        assertThat(cache.getJson(packageJson)).isSameAs(json);
+    }
+
+    @Test
+    public void testFileChangedOnDiskIsParsedAgain() throws Exception {
+        JsonNode json = cache.getJson(packageJson);
+        IOHelpers.writeFully(packageJson, "{\n  \"name\": \"cheese\",\n  \"version\": \"2.0.0-SNAPSHOT\"\n}\n");
+
+        JsonNode reloaded = cache.getJson(packageJson);
+        assertThat(reloaded).isNotSameAs(json);
+        assertThat(reloaded.get("version").asText()).isEqualTo("2.0.0-SNAPSHOT");
+    }
+
+    @Test
+    public void testFlushOnlyWritesDirtyDocuments() throws Exception {
+        ObjectNode json = (ObjectNode) cache.getJson(packageJson);
+        Document xml = cache.getXml(pomXml);
+        assertThat(cache.flush()).isEmpty();
+
+        json.put("version", "2.0.0");
+        xml.getRootElement().getChild("version").setText("2.0.0");
+        cache.markDirty(packageJson);
+
+        assertThat(cache.flush()).containsOnly(packageJson);
+        assertThat(IOHelpers.readFully(packageJson)).contains("\"version\": \"2.0.0\"");
+        assertThat(IOHelpers.readFully(pomXml)).contains("<version>1.0.0</version>");
+
+        // the written file is now the current version so is not parsed or written again
+        assertThat(cache.getJson(packageJson)).isSameAs(json);
+        assertThat(cache.flush()).isEmpty();
+    }
+
+    @Test
+    public void testUnsavedChangesAreDiscardedWhenFileChangesOnDisk() throws Exception {
+        ObjectNode json = (ObjectNode) cache.getJson(packageJson);
+        json.put("version", "2.0.0");
+        cache.markDirty(packageJson);
+        IOHelpers.writeFully(packageJson, "{\n  \"name\": \"cheese\",\n  \"version\": \"3.0.0-SNAPSHOT\"\n}\n");
+
+        assertThat(cache.getJson(packageJson).get("version").asText()).isEqualTo("3.0.0-SNAPSHOT");
+        assertThat(cache.flush()).isEmpty();
+        assertThat(IOHelpers.readFully(packageJson)).contains("3.0.0-SNAPSHOT");
+    }
+
+    @Test
+    public void testMarkDirtyRequiresCachedDocument() throws Exception {
+        try {
+            cache.markDirty(packageJson);
+            fail("Should have thrown an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage()).contains(packageJson.getName());
+        }
+    }
+}
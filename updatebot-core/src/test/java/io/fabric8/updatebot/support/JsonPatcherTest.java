@@ -0,0 +1,70 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.support;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class JsonPatcherTest {
+    protected String packageJson = "{\n" +
+            "    \"name\": \"sample\",\n" +
+            "    \"dependencies\": {\"ngx-base\":   \"^1.0.0\",\n" +
+            "        \"tslib\": \"^1.7.1\"\n" +
+            "    },\n" +
+            "    \"files\": [\"dist\", 1, true, null]\n" +
+            "}\n";
+
+    @Test
+    public void testPatchChangedVersions() throws Exception {
+        ObjectNode tree = (ObjectNode) MarkupHelper.loadJson(packageJson.getBytes());
+        ((ObjectNode) tree.get("dependencies")).put("ngx-base", "^2.0.0");
+
+        String actual = JsonPatcher.patch(packageJson, tree);
+        assertThat(actual).isEqualTo(packageJson.replace("\"^1.0.0\"", "\"^2.0.0\""));
+    }
+
+    @Test
+    public void testPatchEscapesValues() throws Exception {
+        ObjectNode tree = (ObjectNode) MarkupHelper.loadJson(packageJson.getBytes());
+        ((ObjectNode) tree.get("dependencies")).put("tslib", "a \"b\"");
+
+        String actual = JsonPatcher.patch(packageJson, tree);
+        assertThat(actual).contains("\"tslib\": \"a \\\"b\\\"\"\n");
+        assertThat(MarkupHelper.loadJson(actual.getBytes())).isEqualTo(tree);
+    }
+
+    @Test
+    public void testUnchangedTreeReturnsSameText() throws Exception {
+        ObjectNode tree = (ObjectNode) MarkupHelper.loadJson(packageJson.getBytes());
+
+        assertThat(JsonPatcher.patch(packageJson, tree)).isEqualTo(packageJson);
+    }
+
+    @Test
+    public void testStructuralChangesCannotBePatched() throws Exception {
+        ObjectNode tree = (ObjectNode) MarkupHelper.loadJson(packageJson.getBytes());
+        ((ObjectNode) tree.get("dependencies")).put("rxjs", "^5.0.0");
+        assertThat(JsonPatcher.patch(packageJson, tree)).isNull();
+
+        tree = (ObjectNode) MarkupHelper.loadJson(packageJson.getBytes());
+        tree.remove("files");
+        assertThat(JsonPatcher.patch(packageJson, tree)).isNull();
+    }
+}
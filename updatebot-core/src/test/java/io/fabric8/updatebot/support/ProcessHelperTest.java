@@ -0,0 +1,82 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.support;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class ProcessHelperTest {
+    @Test
+    public void testTimeoutKillsProcessTree() throws Exception {
+        Assume.assumeFalse("requires a POSIX shell", File.separatorChar == '\\');
+        Assume.assumeTrue("requires ProcessHandle to kill child processes", hasProcessHandle());
+        File dir = new File(".");
+        List<String> output = Collections.synchronizedList(new ArrayList<>());
+
+        // the shell starts a child sleep process and waits for it
+        long start = System.currentTimeMillis();
+        int result = ProcessHelper.runCommand(dir, Collections.emptyMap(), 1, output::add, output::add,
+                "sh", "-c", "sleep 60 & echo $!; wait");
+        long duration = System.currentTimeMillis() - start;
+
+        assertThat(result).isEqualTo(ProcessHelper.TIMEOUT_EXIT_CODE);
+        assertThat(duration).isLessThan(30000L);
+        assertThat(output).isNotEmpty();
+        String pid = output.get(0).trim();
+        assertThat(pid).matches("[0-9]+");
+
+        long end = System.currentTimeMillis() + 5000L;
+        while (isRunning(pid) && System.currentTimeMillis() < end) {
+            Thread.sleep(100);
+        }
+        assertThat(isRunning(pid)).describedAs("child sleep process " + pid + " is running").isFalse();
+    }
+
+    private static boolean hasProcessHandle() {
+        try {
+            Class.forName("java.lang.ProcessHandle");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static boolean isRunning(String pid) throws Exception {
+        File proc = new File("/proc");
+        if (proc.isDirectory()) {
+            // a killed process may be a zombie until it is reaped
+            File stat = new File(proc, pid + "/stat");
+            if (!stat.isFile()) {
+                return false;
+            }
+            String text = new String(Files.readAllBytes(stat.toPath()), StandardCharsets.UTF_8);
+            return !text.substring(text.lastIndexOf(')') + 1).trim().startsWith("Z");
+        }
+        Process process = new ProcessBuilder("kill", "-0", pid).redirectErrorStream(true).start();
+        return process.waitFor() == 0;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.support;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class ToolSchedulerTest {
+
+    @Test
+    public void testMemoryAdmission() throws Exception {
+        ToolScheduler scheduler = new ToolScheduler(2000);
+        scheduler.configureTool(ToolScheduler.NPM, 0, 768);
+
+        ToolScheduler.Lease lease1 = scheduler.acquire(ToolScheduler.NPM);
+        ToolScheduler.Lease lease2 = scheduler.acquire(ToolScheduler.NPM);
+        assertThat(scheduler.getUsedMemoryMb()).isEqualTo(1536);
+
+        AtomicBoolean admitted = new AtomicBoolean();
+        Thread thread = acquireInBackground(scheduler, ToolScheduler.NPM, admitted);
+        assertQueued(scheduler, ToolScheduler.NPM);
+        assertThat(admitted.get()).describedAs("third npm process should wait for memory").isFalse();
+
+        lease1.close();
+        thread.join(5000);
+        assertThat(admitted.get()).isTrue();
+        lease2.close();
+        assertThat(scheduler.getUsedMemoryMb()).isEqualTo(0);
+    }
+
+    @Test
+    public void testToolConcurrency() throws Exception {
+        ToolScheduler scheduler = new ToolScheduler(100000);
+        scheduler.configureTool(ToolScheduler.MAVEN, 1, 1024);
+        scheduler.configureTool(ToolScheduler.NPM, 0, 768);
+
+        ToolScheduler.Lease mvn = scheduler.acquire(ToolScheduler.MAVEN);
+        AtomicBoolean admitted = new AtomicBoolean();
+        Thread thread = acquireInBackground(scheduler, ToolScheduler.MAVEN, admitted);
+        assertQueued(scheduler, ToolScheduler.MAVEN);
+
+        // a waiting mvn process should not hold up npm
+        try (ToolScheduler.Lease npm = scheduler.acquire(ToolScheduler.NPM)) {
+            assertThat(scheduler.getRunning(ToolScheduler.NPM)).isEqualTo(1);
+        }
+        assertThat(admitted.get()).isFalse();
+
+        mvn.close();
+        thread.join(5000);
+        assertThat(admitted.get()).isTrue();
+        assertThat(scheduler.toString()).contains("mvn: 2 runs, max running: 1, max queued: 1");
+    }
+
+    @Test
+    public void testOversizedProcessRunsAlone() throws Exception {
+        ToolScheduler scheduler = new ToolScheduler(1000);
+        scheduler.configureTool(ToolScheduler.MAVEN, 0, 4096);
+
+        try (ToolScheduler.Lease ignored = scheduler.acquire(ToolScheduler.MAVEN)) {
+            assertThat(scheduler.getRunning(ToolScheduler.MAVEN)).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void testMemoryEstimates() throws Exception {
+        assertThat(ToolScheduler.jvmMemoryMb("-Xms256m -Xmx2g", 1024)).isEqualTo(2048 + 256);
+        assertThat(ToolScheduler.jvmMemoryMb("-Xmx512M -Xmx768m", 1024)).isEqualTo(768 + 256);
+        assertThat(ToolScheduler.jvmMemoryMb("-Dfoo=bar", 1024)).isEqualTo(1024);
+        assertThat(ToolScheduler.jvmMemoryMb(null, 1024)).isEqualTo(1024);
+        assertThat(ToolScheduler.nodeMemoryMb("--max-old-space-size=4096", 768)).isEqualTo(4096 + 256);
+        assertThat(ToolScheduler.nodeMemoryMb("", 768)).isEqualTo(768);
+    }
+
+    protected static Thread acquireInBackground(ToolScheduler scheduler, String tool, AtomicBoolean admitted) {
+        Thread thread = new Thread(() -> {
+            try (ToolScheduler.Lease ignored = scheduler.acquire(tool)) {
+                admitted.set(true);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    protected static void assertQueued(ToolScheduler scheduler, String tool) throws InterruptedException {
+        for (int i = 0; i < 500 && scheduler.getQueued(tool) == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(scheduler.getQueued(tool)).describedAs("queued " + tool).isEqualTo(1);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.support;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class ToolchainTest {
+
+    @Test
+    public void testParseVersion() throws Exception {
+        assertThat(Toolchain.parseVersion("git version 2.39.2")).isEqualTo("2.39.2");
+        assertThat(Toolchain.parseVersion("5.6.0\n")).isEqualTo("5.6.0");
+        assertThat(Toolchain.parseVersion("Apache Maven 3.5.0 (ff8f5e7444045639af65f6095c62210b5713f426; 2017-04-03)")).isEqualTo("3.5.0");
+        assertThat(Toolchain.parseVersion("v8.9.1")).isEqualTo("8.9.1");
+        assertThat(Toolchain.parseVersion("no version here 7")).isNull();
+        assertThat(Toolchain.parseVersion(null)).isNull();
+    }
+
+    @Test
+    public void testCompareVersions() throws Exception {
+        assertThat(Toolchain.compareVersions("2.36", "2.36.0")).isEqualTo(0);
+        assertThat(Toolchain.compareVersions("2.39.2", "2.36")).isGreaterThan(0);
+        assertThat(Toolchain.compareVersions("2.9", "2.36")).isLessThan(0);
+        assertThat(Toolchain.compareVersions("10.0", "9.9.9")).isGreaterThan(0);
+        assertThat(Toolchain.compareVersions("1.0.rc1", "1.0")).isEqualTo(0);
+    }
+
+    @Test
+    public void testIsVersionAtLeast() throws Exception {
+        Toolchain git = new Toolchain("git", true, "git version 2.39.2");
+        assertThat(git.getVersion()).isEqualTo("2.39.2");
+        assertThat(git.isVersionAtLeast("2.36")).isTrue();
+        assertThat(git.isVersionAtLeast("2.39.2")).isTrue();
+        assertThat(git.isVersionAtLeast("2.40")).isFalse();
+
+        assertThat(new Toolchain("git", true, "unknown").isVersionAtLeast("1.0")).isFalse();
+
+        Toolchain missing = new Toolchain("git", false, "git version 2.39.2");
+        assertThat(missing.getVersion()).isNull();
+        assertThat(missing.isVersionAtLeast("1.0")).isFalse();
+    }
+}
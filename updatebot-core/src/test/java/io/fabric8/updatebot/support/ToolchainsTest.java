@@ -0,0 +1,78 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.support;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class ToolchainsTest {
+    protected File dir = new File(".");
+    protected List<String> probes = new ArrayList<>();
+    protected Toolchains toolchains = new Toolchains() {
+        @Override
+        protected Toolchain probe(File dir, Map<String, String> environmentVariables, String command, String... versionArguments) {
+            probes.add(command + " " + String.join(" ", versionArguments));
+            return new Toolchain(command, true, command + " version 1.2.3");
+        }
+    };
+
+    @Test
+    public void testToolIsProbedOnce() throws Exception {
+        Toolchain toolchain = toolchains.getToolchain(dir, null, "npm", "-v");
+        assertThat(toolchain.getVersion()).isEqualTo("1.2.3");
+        assertThat(toolchains.getToolchain(dir, null, "npm", "-v")).isSameAs(toolchain);
+        assertThat(toolchains.getToolchain(new File("other"), null, "npm", "-v")).isSameAs(toolchain);
+        assertThat(probes).containsExactly("npm -v");
+    }
+
+    @Test
+    public void testDifferentArgumentsOrEnvironmentAreProbedSeparately() throws Exception {
+        toolchains.getToolchain(dir, null, "npm", "-v");
+        toolchains.getToolchain(dir, null, "npm", "--version");
+        toolchains.getToolchain(dir, Collections.singletonMap("PATH", "/opt/node/bin"), "npm", "-v");
+        toolchains.getToolchain(dir, null, "mvn", "-v");
+        toolchains.getToolchain(dir, Collections.singletonMap("PATH", "/opt/node/bin"), "npm", "-v");
+
+        assertThat(probes).containsExactly("npm -v", "npm --version", "npm -v", "mvn -v");
+    }
+
+    @Test
+    public void testClearProbesAgain() throws Exception {
+        toolchains.getToolchain(dir, null, "git", "--version");
+        toolchains.clear();
+        toolchains.getToolchain(dir, null, "git", "--version");
+
+        assertThat(probes).isEqualTo(Arrays.asList("git --version", "git --version"));
+    }
+
+    @Test
+    public void testMissingToolIsNotAvailable() throws Exception {
+        Toolchain toolchain = new Toolchains().getToolchain(dir, null, "updatebot-no-such-command", "--version");
+        assertThat(toolchain.isAvailable()).isFalse();
+        assertThat(toolchain.getVersion()).isNull();
+        assertThat(toolchain.isVersionAtLeast("0.1")).isFalse();
+    }
+}
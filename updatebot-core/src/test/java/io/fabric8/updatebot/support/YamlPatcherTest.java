@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package io.fabric8.updatebot.support;
+
+import io.fabric8.updatebot.kind.Kind;
+import io.fabric8.updatebot.kind.helm.model.Chart;
+import io.fabric8.updatebot.kind.helm.model.Requirements;
+import io.fabric8.updatebot.model.DependencyVersionChange;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ */
+public class YamlPatcherTest {
+    protected String requirementsYaml = "# the charts we depend on\n" +
+            "dependencies:\n" +
+            "  - name: subchart1\n" +
+            "    repository: http://localhost:10191\n" +
+            "    version: 0.1.0 # pinned\n" +
+            "    tags:\n" +
+            "      - front-end\n" +
+            "\n" +
+            "  - name: subchart2\n" +
+            "    repository: http://localhost:10191\n" +
+            "    version: \"0.1.0\"\n";
+
+    @Test
+    public void testPatchRequirementsVersions() throws Exception {
+        Requirements requirements = MarkupHelper.loadYaml(requirementsYaml, Requirements.class);
+        requirements.applyChange(new DependencyVersionChange(Kind.HELM, "subchart1", "0.2.0"));
+        requirements.applyChange(new DependencyVersionChange(Kind.HELM, "subchart2", "0.3.0"));
+
+        String actual = YamlPatcher.patch(requirementsYaml, requirements);
+        assertThat(actual).isEqualTo(requirementsYaml.replace("0.1.0 # pinned", "0.2.0 # pinned").replace("\"0.1.0\"", "\"0.3.0\""));
+    }
+
+    @Test
+    public void testPatchQuotesNumericVersions() throws Exception {
+        String chartYaml = "name: foo\nversion: 1.0.1\n";
+        Chart chart = MarkupHelper.loadYaml(chartYaml, Chart.class);
+        chart.setVersion("2.0");
+
+        assertThat(YamlPatcher.patch(chartYaml, chart)).isEqualTo("name: foo\nversion: \"2.0\"\n");
+    }
+
+    @Test
+    public void testStructuralChangesCannotBePatched() throws Exception {
+        Requirements requirements = MarkupHelper.loadYaml(requirementsYaml, Requirements.class);
+        requirements.getDependencies().remove(1);
+
+        assertThat(YamlPatcher.patch(requirementsYaml, requirements)).isNull();
+    }
+
+    @Test
+    public void testRemovedPropertiesCannotBePatched() throws Exception {
+        String chartYaml = "name: foo\nversion: 1.0.1\ndescription: cheese\n";
+        Chart chart = MarkupHelper.loadYaml(chartYaml, Chart.class);
+        chart.setVersion("1.0.2");
+        chart.setDescription(null);
+
+        assertThat(YamlPatcher.patch(chartYaml, chart)).isNull();
+    }
+
+    @Test
+    public void testAliasesCannotBePatched() throws Exception {
+        String chartYaml = "name: &name foo\nversion: 1.0.1\ndescription: *name\n";
+        Chart chart = MarkupHelper.loadYaml(chartYaml, Chart.class);
+
+        assertThat(YamlPatcher.patch(chartYaml, chart)).isNull();
+    }
+
+    @Test
+    public void testPatchKeepsNumbersPlain() throws Exception {
+        String valuesYaml = "replicas: 1 # scaled\nratio: 1.50\n";
+        Values values = MarkupHelper.loadYaml(valuesYaml, Values.class);
+        values.setReplicas(3);
+
+        assertThat(YamlPatcher.patch(valuesYaml, values)).isEqualTo("replicas: 3 # scaled\nratio: 1.50\n");
+    }
+
+    public static class Values {
+        private int replicas;
+        private double ratio;
+
+        public int getReplicas() {
+            return replicas;
+        }
+
+        public void setReplicas(int replicas) {
+            this.replicas = replicas;
+        }
+
+        public double getRatio() {
+            return ratio;
+        }
+
+        public void setRatio(double ratio) {
+            this.ratio = ratio;
+        }
+    }
+}